@@ -0,0 +1,15 @@
+package compilador;
+
+/**
+ * Acompanha o andamento de uma compilação feita pela classe Compiler, por
+ * exemplo para exibir o progresso na interface gráfica.
+ */
+public interface CompilationListener {
+
+    /**
+     * Chamado, na thread que compila, ao fim de cada etapa concluída sem
+     * erro: SYNTAX (AST construída), CONTEXT e CODEGEN.
+     * @param phase A etapa concluída.
+     */
+    void phaseCompleted(CompilationResult.Phase phase);
+}
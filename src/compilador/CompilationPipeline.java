@@ -0,0 +1,292 @@
+package compilador;
+
+import compilador.ast.ASTNode;
+import compilador.ast.BeginEndNode;
+import compilador.lexer.Scanner;
+import compilador.lexer.Token;
+import compilador.lexer.TokenSource;
+import compilador.lexer.TokenStream;
+import compilador.lexer.TokenType;
+import compilador.parser.Parser;
+import compilador.parser.TreeBuilder;
+import compilador.visitor.CheckAndGenVisitor;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Compilação em streaming com as etapas em threads separadas, ligadas por
+ * filas limitadas:
+ * <pre>
+ *   Scanner ──lotes de tokens──▶ Parser ──declarações e comandos──▶ verificação + geração ──▶ Writer
+ * </pre>
+ * O Parser roda na thread de quem chamou; as outras duas etapas, num pool
+ * próprio de duas threads. Com várias CPUs o tempo total se aproxima do da
+ * etapa mais lenta, em vez da soma das três.
+ *
+ * As filas limitam a memória e fazem a contrapressão: uma etapa mais rápida
+ * bloqueia quando a fila seguinte está cheia. Um erro de sintaxe ou de E/S
+ * interrompe as outras etapas. Um erro de contexto só para a verificação:
+ * o Parser continua até o fim, pois um erro de sintaxe posterior tem
+ * prioridade, como na compilação sequencial. O resultado e o código gerado
+ * são idênticos aos de {@link Compiler#compile(Reader, Writer)}.
+ *
+ * Cada instância serve para uma única compilação.
+ */
+final class CompilationPipeline {
+
+    /** Tokens por lote entregue ao Parser. */
+    static final int TOKEN_BATCH = 1024;
+    /** Lotes de tokens aguardando o Parser. */
+    static final int TOKEN_QUEUE = 16;
+    /** Declarações e comandos aguardando a verificação. */
+    static final int NODE_QUEUE = 256;
+
+    // Marcadores de fim: identidade, não conteúdo
+    private static final Token[] SCAN_FAILED = new Token[0];
+    private static final ASTNode END = new BeginEndNode(Collections.emptyList());
+
+    private final BlockingQueue<Token[]> tokenBatches = new ArrayBlockingQueue<>(TOKEN_QUEUE);
+    private final BlockingQueue<ASTNode> nodes = new ArrayBlockingQueue<>(NODE_QUEUE);
+
+    // Escritos por uma etapa e lidos pelas outras
+    private volatile Throwable scanFailure;
+    private volatile Error contextError;
+    private volatile RuntimeException checkFailure;
+    private volatile IOException outputFailure;
+
+    /**
+     * @see Compiler#compilePipelined(Reader, Writer)
+     */
+    CompilationResult run(Reader source, Writer output) throws IOException {
+        ExecutorService stages = Executors.newFixedThreadPool(2);
+        try {
+            stages.submit(() -> {
+                scan(new Scanner(source));
+                return null;
+            });
+            Future<?> checking = stages.submit(() -> {
+                checkAndGenerate(output);
+                return null;
+            });
+
+            TokenStream tokens = new TokenStream(new BatchReader()::next);
+            try {
+                new Parser(tokens).parse(new QueueingBuilder(tokens));
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            } catch (Error | Exception e) {
+                return Compiler.failed(CompilationResult.Phase.SYNTAX, e);
+            }
+
+            awaitChecking(checking);
+            if (outputFailure != null) {
+                throw outputFailure;
+            }
+            if (checkFailure != null) {
+                return Compiler.failed(CompilationResult.Phase.SYNTAX, checkFailure);
+            }
+            if (contextError != null) {
+                return Compiler.failed(CompilationResult.Phase.CONTEXT, contextError);
+            }
+            return new CompilationResult(null, null, CompilationResult.Phase.DONE, null);
+        } finally {
+            // Interrompe as etapas que ainda estiverem bloqueadas numa fila
+            stages.shutdownNow();
+        }
+    }
+
+    // --- ETAPA 1: ANÁLISE LÉXICA ---
+
+    private void scan(Scanner scanner) throws InterruptedException {
+        Token[] batch = new Token[TOKEN_BATCH];
+        int size = 0;
+        try {
+            while (true) {
+                Token token = scanner.nextToken();
+                batch[size++] = token;
+                if (token.type == TokenType.EOF) {
+                    tokenBatches.put(Arrays.copyOf(batch, size));
+                    return;
+                }
+                if (size == TOKEN_BATCH) {
+                    tokenBatches.put(batch);
+                    batch = new Token[TOKEN_BATCH];
+                    size = 0;
+                }
+            }
+        } catch (Error | RuntimeException e) {
+            // Os tokens anteriores à falha ainda são entregues, na ordem
+            if (size > 0) {
+                tokenBatches.put(Arrays.copyOf(batch, size));
+            }
+            scanFailure = e;
+            tokenBatches.put(SCAN_FAILED);
+        }
+    }
+
+    /**
+     * Entrega ao Parser, um a um, os tokens dos lotes da fila.
+     */
+    private final class BatchReader {
+        private Token[] batch = new Token[0];
+        private int position = 0;
+
+        Token next() {
+            if (position == batch.length) {
+                if (batch != SCAN_FAILED) {
+                    batch = take(tokenBatches);
+                    position = 0;
+                }
+                if (batch == SCAN_FAILED) {
+                    rethrow(scanFailure);
+                }
+            }
+            return batch[position++];
+        }
+
+        private void rethrow(Throwable failure) {
+            if (failure instanceof Error) {
+                throw (Error) failure;
+            }
+            throw (RuntimeException) failure;
+        }
+    }
+
+    // --- ETAPA 2: ANÁLISE SINTÁTICA ---
+
+    /**
+     * Envia cada declaração e cada comando do bloco principal à etapa de
+     * verificação assim que o Parser os reduz. Depois de um erro de contexto,
+     * apenas descarta.
+     */
+    private final class QueueingBuilder extends TreeBuilder {
+
+        QueueingBuilder(TokenSource tokens) {
+            super(tokens);
+        }
+
+        @Override
+        public ASTNode varDecl(int identifier, int type) {
+            ASTNode decl = super.varDecl(identifier, type);
+            send(decl);
+            return decl;
+        }
+
+        @Override
+        public ASTNode topLevelStatement(ASTNode statement) {
+            send(statement);
+            return null;
+        }
+
+        @Override
+        public ASTNode program(List<ASTNode> declarations, ASTNode compoundStatement) {
+            send(END);
+            return super.program(declarations, compoundStatement);
+        }
+
+        private void send(ASTNode node) {
+            if (outputFailure != null) {
+                throw new UncheckedIOException(outputFailure);
+            }
+            if (checkFailure != null) {
+                throw checkFailure;
+            }
+            if (contextError == null || node == END) {
+                put(nodes, node);
+            }
+        }
+    }
+
+    // --- ETAPA 3: ANÁLISE DE CONTEXTO E GERAÇÃO DE CÓDIGO ---
+
+    private void checkAndGenerate(Writer output) throws InterruptedException {
+        CheckAndGenVisitor visitor = new CheckAndGenVisitor();
+        boolean failed = false;
+        while (true) {
+            ASTNode node = nodes.take();
+            if (node == END) {
+                if (!failed) {
+                    visitor.endProgram();
+                    write(visitor.getObjectCode(), output);
+                }
+                return;
+            }
+            if (failed) {
+                // Continua esvaziando a fila para não bloquear o Parser
+                continue;
+            }
+            try {
+                visitor.run(node);
+            } catch (Error e) {
+                contextError = e;
+                failed = true;
+                continue;
+            } catch (RuntimeException e) {
+                // Falha inesperada: repassada ao Parser no próximo envio
+                checkFailure = e;
+                failed = true;
+                continue;
+            }
+            failed = !write(visitor.getObjectCode(), output);
+        }
+    }
+
+    /**
+     * Escreve e descarta as instruções geradas.
+     * @return false se a escrita falhou.
+     */
+    private boolean write(List<String> code, Writer output) {
+        try {
+            for (String instruction : code) {
+                output.write(instruction);
+                output.write('\n');
+            }
+        } catch (IOException e) {
+            outputFailure = e;
+            return false;
+        }
+        code.clear();
+        return true;
+    }
+
+    private void awaitChecking(Future<?> checking) {
+        try {
+            checking.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Compilacao interrompida.", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Falha inesperada na compilacao: " + e.getCause(), e.getCause());
+        }
+    }
+
+    private static <T> T take(BlockingQueue<T> queue) {
+        try {
+            return queue.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Compilacao interrompida.", e);
+        }
+    }
+
+    private static <T> void put(BlockingQueue<T> queue, T item) {
+        try {
+            queue.put(item);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Compilacao interrompida.", e);
+        }
+    }
+}
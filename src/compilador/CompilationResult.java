@@ -0,0 +1,109 @@
+package compilador;
+
+import compilador.ast.ASTNode;
+import compilador.diagnostics.Diagnostic;
+import compilador.metrics.CompilationMetrics;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Resultado de uma compilação feita pela classe Compiler.
+ * Em caso de sucesso contém a AST e o código-objeto TAM; em caso de erro,
+ * a mensagem do primeiro erro encontrado e a etapa em que ele ocorreu.
+ * {@link #getDiagnostics()} lista todos os erros encontrados, quando a
+ * compilação continuou depois do primeiro.
+ */
+public class CompilationResult {
+
+    /**
+     * Etapas do pipeline de compilação, na ordem em que são executadas.
+     */
+    public enum Phase { SYNTAX, CONTEXT, CODEGEN, DONE }
+
+    private final ASTNode ast;
+    private final List<String> objectCode;
+    private final Phase phase;
+    private final String errorMessage;
+    private final List<Diagnostic> diagnostics;
+    private CompilationMetrics metrics;
+
+    /**
+     * Resultado com no máximo um erro, o de errorMessage.
+     */
+    public CompilationResult(ASTNode ast, List<String> objectCode, Phase phase, String errorMessage) {
+        this(ast, objectCode, phase, errorMessage, errorMessage == null || phase == Phase.DONE
+                ? Collections.emptyList()
+                : Collections.singletonList(new Diagnostic(Diagnostic.Kind.valueOf(phase.name()), 0, errorMessage)));
+    }
+
+    /**
+     * @param diagnostics Todos os erros encontrados (inclusive os léxicos, que
+     *        não interrompem a compilação), na ordem em que apareceram.
+     */
+    public CompilationResult(ASTNode ast, List<String> objectCode, Phase phase, String errorMessage,
+            List<Diagnostic> diagnostics) {
+        this.ast = ast;
+        this.objectCode = objectCode == null ? Collections.emptyList() : objectCode;
+        this.phase = phase;
+        this.errorMessage = errorMessage;
+        this.diagnostics = diagnostics;
+    }
+
+    /**
+     * @return true se todas as etapas foram concluídas sem erro.
+     */
+    public boolean isSuccess() {
+        return errorMessage == null;
+    }
+
+    /**
+     * @return A raiz da AST, ou null se a análise sintática falhou ou se a
+     *         compilação foi feita no modo fundido (que não constrói a AST).
+     */
+    public ASTNode getAst() {
+        return ast;
+    }
+
+    /**
+     * @return O código-objeto TAM (vazio se a compilação falhou).
+     */
+    public List<String> getObjectCode() {
+        return objectCode;
+    }
+
+    /**
+     * @return A etapa em que a compilação parou (DONE em caso de sucesso).
+     */
+    public Phase getPhase() {
+        return phase;
+    }
+
+    /**
+     * @return A mensagem de erro, ou null em caso de sucesso.
+     */
+    public String getErrorMessage() {
+        return errorMessage;
+    }
+
+    /**
+     * @return Todos os erros encontrados, na ordem em que apareceram; vazio
+     *         se não houve nenhum. Nas compilações que param no primeiro erro
+     *         (modo fundido, streaming), contém só ele, sem a linha.
+     */
+    public List<Diagnostic> getDiagnostics() {
+        return diagnostics;
+    }
+
+    /**
+     * @return As medidas de cada etapa, ou null se o compilador não foi
+     *         criado com as métricas ligadas.
+     */
+    public CompilationMetrics getMetrics() {
+        return metrics;
+    }
+
+    void setMetrics(CompilationMetrics metrics) {
+        this.metrics = metrics;
+    }
+}
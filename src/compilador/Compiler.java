@@ -0,0 +1,355 @@
+package compilador;
+
+import compilador.ast.ASTNode;
+import compilador.codegen.ParallelCodeGen;
+import compilador.diagnostics.CompilationError;
+import compilador.diagnostics.Diagnostic;
+import compilador.diagnostics.Diagnostics;
+import compilador.lexer.Scanner;
+import compilador.metrics.CompilationMetrics;
+import compilador.lexer.Token;
+import compilador.lexer.TokenStream;
+import compilador.parser.CheckAndGenBuilder;
+import compilador.parser.Parser;
+import compilador.visitor.CodeGenVisitor;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+
+/**
+ * Executa o pipeline completo de compilação sem depender da interface gráfica:
+ * Scanner → Parser → CheckerVisitor → CodeGenVisitor.
+ * Usada pelos modos de linha de comando; não carrega nenhuma classe Swing/AWT.
+ *
+ * No modo fundido, a análise de contexto e a geração de código são feitas
+ * numa única passagem, a partir das reduções do Parser (ver
+ * {@link CheckAndGenBuilder}); o resultado é o mesmo, mas sem a AST.
+ *
+ * Fora do modo fundido, o Parser se recupera dos erros de sintaxe e a análise
+ * de contexto continua depois de cada erro, então
+ * {@link CompilationResult#getDiagnostics()} traz todos os erros do programa
+ * (os de contexto só se não houver erro de sintaxe). O modo fundido e as
+ * compilações em streaming param no primeiro erro.
+ *
+ * Uma instância pode ser compartilhada por várias threads. O estado interno
+ * de cada compilação (Scanner, tokens, Parser, tabela de símbolos, gerador de
+ * código) fica num {@link CompilerWorkspace} por thread e é reaproveitado
+ * nas compilações seguintes da mesma thread.
+ *
+ * Com as métricas ligadas, cada etapa tem o tempo, as alocações e as
+ * contagens medidos (ver {@link CompilationMetrics}); as etapas também são
+ * medidas, e enviadas ao JDK Flight Recorder, quando há uma gravação com o
+ * evento "compilador.Phase" ligado.
+ */
+public class Compiler {
+
+    /**
+     * Versão do compilador. Deve ser alterada sempre que o código gerado ou as
+     * mensagens de erro mudarem, pois faz parte da chave do cache de compilação.
+     */
+    public static final String VERSION = "1.1";
+
+    private final boolean fused;
+    private final boolean parallelCodeGen;
+    private final boolean metrics;
+
+    public Compiler() {
+        this(false);
+    }
+
+    /**
+     * @param fused Se true, verifica e gera o código numa única passagem, sem
+     *        construir a AST do programa inteiro. O código-objeto e as
+     *        mensagens de erro são idênticos; {@link CompilationResult#getAst()}
+     *        passa a ser null.
+     */
+    public Compiler(boolean fused) {
+        this(fused, false);
+    }
+
+    /**
+     * @param fused Ver {@link #Compiler(boolean)}.
+     * @param parallelCodeGen Se true, gera o código dos comandos do bloco
+     *        principal em paralelo (ver {@link ParallelCodeGen}); o resultado
+     *        é idêntico. Ignorado no modo fundido, que não tem essa etapa.
+     */
+    public Compiler(boolean fused, boolean parallelCodeGen) {
+        this(fused, parallelCodeGen, false);
+    }
+
+    /**
+     * @param fused Ver {@link #Compiler(boolean)}.
+     * @param parallelCodeGen Ver {@link #Compiler(boolean, boolean)}.
+     * @param metrics Se true, mede cada etapa e guarda as medidas em
+     *        {@link CompilationResult#getMetrics()}. No modo fundido só a
+     *        análise léxica é medida, pois as outras etapas são uma só.
+     */
+    public Compiler(boolean fused, boolean parallelCodeGen, boolean metrics) {
+        this.fused = fused;
+        this.parallelCodeGen = parallelCodeGen;
+        this.metrics = metrics;
+    }
+
+    /**
+     * Compila um código-fonte completo.
+     * @param source O texto do programa.
+     * @return O resultado da compilação. Erros de compilação não são lançados,
+     *         e sim registrados no resultado.
+     */
+    public CompilationResult compile(String source) {
+        return compile(source, null);
+    }
+
+    /**
+     * Compila um código-fonte completo, informando cada etapa concluída.
+     *
+     * A compilação pode ser cancelada interrompendo a thread que a executa:
+     * a interrupção é verificada ao fim de cada etapa e, se houver, a
+     * compilação é abandonada com CancellationException.
+     *
+     * @param source O texto do programa.
+     * @param listener Recebe as etapas concluídas; pode ser null.
+     * @return O resultado da compilação.
+     * @throws CancellationException Se a thread foi interrompida (só quando
+     *         há um listener).
+     */
+    public CompilationResult compile(String source, CompilationListener listener) {
+        CompilerWorkspace workspace = CompilerWorkspace.acquire();
+        CompilationMetrics phases = startMetrics();
+        try {
+            List<Token> tokens;
+            try {
+                // Etapa 1: Análise Léxica
+                if (phases != null) {
+                    phases.begin(CompilationMetrics.Phase.SCANNER);
+                }
+                tokens = workspace.scan(source);
+                if (phases != null) {
+                    phases.end(CompilationMetrics.Phase.SCANNER, tokens.size());
+                }
+            } catch (RuntimeException e) {
+                return withMetrics(failed(null, CompilationResult.Phase.SYNTAX, e, workspace.diagnostics()), phases);
+            }
+            return withMetrics(compile(tokens, workspace, listener, phases), phases);
+        } finally {
+            workspace.release();
+        }
+    }
+
+    /**
+     * Compila a partir de tokens já produzidos pelo Scanner, permitindo que
+     * quem chama reaproveite ou inspecione a lista de tokens.
+     * @param tokens Os tokens do programa, terminados por EOF.
+     * @return O resultado da compilação.
+     */
+    public CompilationResult compile(List<Token> tokens) {
+        CompilerWorkspace workspace = CompilerWorkspace.acquire();
+        CompilationMetrics phases = startMetrics();
+        try {
+            return withMetrics(compile(tokens, workspace, null, phases), phases);
+        } finally {
+            workspace.release();
+        }
+    }
+
+    /**
+     * @return As métricas desta compilação, ou null se elas não foram pedidas
+     *         e nenhuma gravação do JFR registra as etapas.
+     */
+    private CompilationMetrics startMetrics() {
+        return metrics || CompilationMetrics.isRecording() ? new CompilationMetrics() : null;
+    }
+
+    private CompilationResult withMetrics(CompilationResult result, CompilationMetrics phases) {
+        if (metrics) {
+            result.setMetrics(phases);
+        }
+        return result;
+    }
+
+    private CompilationResult compile(List<Token> tokens, CompilerWorkspace workspace, CompilationListener listener,
+            CompilationMetrics phases) {
+        Diagnostics diagnostics = workspace.diagnostics();
+        if (fused) {
+            return compileFused(tokens, diagnostics, listener);
+        }
+        CompilationResult.Phase phase = CompilationResult.Phase.SYNTAX;
+        ASTNode astRoot = null;
+        try {
+            // Etapas 2 e 3: Análise Sintática e Construção da AST
+            // (com erros, a AST fica incompleta e é descartada)
+            if (phases != null) {
+                phases.begin(CompilationMetrics.Phase.PARSER);
+            }
+            astRoot = workspace.parser(tokens).parse();
+            if (phases != null) {
+                ASTNode root = astRoot;
+                phases.end(CompilationMetrics.Phase.PARSER, () -> CompilationMetrics.countNodes(root));
+            }
+            Diagnostic syntaxError = diagnostics.first(Diagnostic.Kind.SYNTAX);
+            if (syntaxError != null) {
+                return result(null, null, phase, syntaxError.message, diagnostics);
+            }
+            completed(CompilationResult.Phase.SYNTAX, listener);
+
+            // Etapa 4: Análise de Contexto
+            phase = CompilationResult.Phase.CONTEXT;
+            if (phases != null) {
+                phases.begin(CompilationMetrics.Phase.CHECKER);
+            }
+            astRoot.accept(workspace.checker());
+            if (phases != null) {
+                phases.end(CompilationMetrics.Phase.CHECKER, workspace.checker().getSymbolTable().size());
+            }
+            Diagnostic contextError = diagnostics.first(Diagnostic.Kind.CONTEXT);
+            if (contextError != null) {
+                return result(astRoot, null, phase, contextError.message, diagnostics);
+            }
+            completed(CompilationResult.Phase.CONTEXT, listener);
+
+            // Etapa 5: Geração de Código
+            phase = CompilationResult.Phase.CODEGEN;
+            List<String> objectCode;
+            if (phases != null) {
+                phases.begin(CompilationMetrics.Phase.CODEGEN);
+            }
+            if (parallelCodeGen) {
+                objectCode = new ParallelCodeGen().generate(astRoot);
+            } else {
+                CodeGenVisitor codeGen = workspace.codeGen();
+                astRoot.accept(codeGen);
+                objectCode = codeGen.getObjectCode();
+            }
+            if (phases != null) {
+                phases.end(CompilationMetrics.Phase.CODEGEN, objectCode.size());
+            }
+            completed(CompilationResult.Phase.CODEGEN, listener);
+
+            return result(astRoot, objectCode, CompilationResult.Phase.DONE, null, diagnostics);
+        } catch (CancellationException e) {
+            throw e;
+        } catch (Error | Exception e) {
+            return failed(astRoot, phase, e, diagnostics);
+        }
+    }
+
+    /**
+     * @return O resultado, com uma cópia dos erros (o Diagnostics é reaproveitado).
+     */
+    private static CompilationResult result(ASTNode ast, List<String> objectCode, CompilationResult.Phase phase,
+            String errorMessage, Diagnostics diagnostics) {
+        List<Diagnostic> list = diagnostics.getCount() == 0
+                ? Collections.emptyList()
+                : new ArrayList<>(diagnostics.getDiagnostics());
+        return new CompilationResult(ast, objectCode, phase, errorMessage, list);
+    }
+
+    /**
+     * @return O resultado de uma compilação interrompida por uma exceção, que
+     *         entra nos erros depois dos que já foram registrados.
+     */
+    private static CompilationResult failed(ASTNode ast, CompilationResult.Phase phase, Throwable error,
+            Diagnostics diagnostics) {
+        String message = String.valueOf(error.getMessage());
+        diagnostics.report(Diagnostic.Kind.valueOf(phase.name()), CompilationError.lineOf(error), message);
+        return result(ast, null, phase, message, diagnostics);
+    }
+
+    /**
+     * @return O resultado de uma compilação sem lista de erros (em streaming)
+     *         interrompida por uma exceção: só esse erro, na linha em que ele
+     *         foi encontrado.
+     */
+    static CompilationResult failed(CompilationResult.Phase phase, Throwable error) {
+        String message = String.valueOf(error.getMessage());
+        Diagnostic diagnostic = new Diagnostic(Diagnostic.Kind.valueOf(phase.name()), CompilationError.lineOf(error),
+                message);
+        return new CompilationResult(null, null, phase, message, Collections.singletonList(diagnostic));
+    }
+
+    /**
+     * Compila em streaming, com memória limitada: o código-fonte é lido aos
+     * poucos, cada declaração é registrada assim que analisada e cada comando
+     * do bloco principal é verificado, gerado, escrito na saída e descartado.
+     * A memória usada depende do maior comando, e não do tamanho do programa.
+     * Sempre usa a passagem fundida, independentemente do construtor.
+     *
+     * @param source A origem do código-fonte.
+     * @param output Destino do código-objeto TAM, uma instrução por linha.
+     * @return O resultado, sem AST e sem código-objeto (já escrito em output).
+     *         Em caso de erro, o que foi escrito em output está incompleto e
+     *         deve ser descartado.
+     * @throws IOException Se a leitura ou a escrita falhar.
+     */
+    public CompilationResult compile(Reader source, Writer output) throws IOException {
+        TokenStream tokens = new TokenStream(new Scanner(source));
+        CheckAndGenBuilder builder = new CheckAndGenBuilder(tokens, output);
+        try {
+            new Parser(tokens).parse(builder);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } catch (Error | Exception e) {
+            return failed(CompilationResult.Phase.SYNTAX, e);
+        }
+        if (builder.getContextError() != null) {
+            return failed(CompilationResult.Phase.CONTEXT, builder.getContextError());
+        }
+        return new CompilationResult(null, null, CompilationResult.Phase.DONE, null);
+    }
+
+    /**
+     * Como {@link #compile(Reader, Writer)}, mas com a análise léxica, a
+     * sintática e a verificação/geração em threads separadas, ligadas por
+     * filas limitadas (ver {@link CompilationPipeline}). Indicado para
+     * programas muito grandes em máquinas com várias CPUs; o resultado e o
+     * código escrito em output são os mesmos.
+     *
+     * @param source A origem do código-fonte.
+     * @param output Destino do código-objeto TAM, uma instrução por linha.
+     * @return O resultado, sem AST e sem código-objeto (já escrito em output).
+     * @throws IOException Se a leitura ou a escrita falhar.
+     */
+    public CompilationResult compilePipelined(Reader source, Writer output) throws IOException {
+        return new CompilationPipeline().run(source, output);
+    }
+
+    /**
+     * Informa uma etapa concluída, abandonando a compilação se a thread foi
+     * interrompida. Sem listener, não faz nada.
+     */
+    private static void completed(CompilationResult.Phase phase, CompilationListener listener) {
+        if (listener == null) {
+            return;
+        }
+        if (Thread.currentThread().isInterrupted()) {
+            throw new CancellationException("Compilacao cancelada.");
+        }
+        listener.phaseCompleted(phase);
+    }
+
+    private CompilationResult compileFused(List<Token> tokens, Diagnostics diagnostics, CompilationListener listener) {
+        CheckAndGenBuilder builder = new CheckAndGenBuilder(tokens);
+        try {
+            // Etapas 2 a 5 numa única passagem: cada comando é verificado e
+            // gerado assim que o Parser o reduz. Aqui o primeiro erro
+            // interrompe a compilação.
+            new Parser(tokens).parse(builder);
+        } catch (Error | Exception e) {
+            return failed(null, CompilationResult.Phase.SYNTAX, e, diagnostics);
+        }
+        // As etapas terminam juntas: só a ordem dos avisos é preservada
+        completed(CompilationResult.Phase.SYNTAX, listener);
+        if (builder.getContextError() != null) {
+            return failed(null, CompilationResult.Phase.CONTEXT, builder.getContextError(), diagnostics);
+        }
+        completed(CompilationResult.Phase.CONTEXT, listener);
+        completed(CompilationResult.Phase.CODEGEN, listener);
+        return result(null, builder.getObjectCode(), CompilationResult.Phase.DONE, null, diagnostics);
+    }
+}
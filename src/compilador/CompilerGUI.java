@@ -1,17 +1,24 @@
 package compilador;
 
-import compilador.ast.ASTNode;
-import compilador.lexer.Scanner;
-import compilador.parser.Parser;
+import compilador.diagnostics.Diagnostic;
+import compilador.metrics.CompilationMetrics;
 import compilador.visitor.ASTPrinter;
-import compilador.visitor.CheckerVisitor;
-import compilador.visitor.CodeGenVisitor;
 
 import javax.swing.*;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Document;
 import java.awt.*;
 import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
 
 /**
  * Implementa uma interface gráfica (GUI) para o compilador usando Java Swing.
@@ -20,9 +27,28 @@ import java.util.List;
  */
 public class CompilerGUI extends JFrame {
 
-    private final JTextArea sourceCodeArea;
-    private final JTextArea consoleArea;
+    private final SourceEditor sourceCodeArea;
+    private final ConsoleView console;
+    private final JProgressBar progressBar;
+    // Guarda a última versão compilada: cada compilação refaz só o que mudou
+    private final IncrementalCompiler compiler = new IncrementalCompiler();
+    // Usado quando as métricas estão ligadas: mede o pipeline completo, etapa
+    // por etapa (a compilação incremental mistura as etapas de cada comando)
+    private final Compiler metricsCompiler = new Compiler(false, false, true);
+    private JCheckBoxMenuItem metricsItem;
+    private CompileWorker worker; // Última compilação iniciada
+    private FileLoader loader;    // Último carregamento iniciado
     private File currentFile;
+    // true enquanto o editor contém exatamente o arquivo aberto (mesmo que
+    // ainda esteja sendo carregado); nesse caso a compilação lê o arquivo
+    private boolean editorMatchesFile;
+    private boolean inserting;    // O carregamento está inserindo texto
+
+    // Etapas exibidas na barra de progresso: sintaxe, contexto, geração, exibição
+    private static final int PHASE_STEPS = 4;
+    // Caracteres por bloco inserido no editor e blocos aguardando inserção
+    private static final int LOAD_CHUNK_CHARS = 64 * 1024;
+    private static final int LOAD_PENDING_CHUNKS = 4;
 
     public CompilerGUI() {
         super("Compilador da Linguagem Triangle");
@@ -34,30 +60,51 @@ public class CompilerGUI extends JFrame {
 
         // --- Componentes da UI ---
 
-        // 1. Área de texto para o código-fonte com barra de rolagem
-        sourceCodeArea = new JTextArea();
+        // 1. Editor do código-fonte (com destaque de sintaxe) e barra de rolagem
+        sourceCodeArea = new SourceEditor();
         sourceCodeArea.setFont(new Font("Monospaced", Font.PLAIN, 14));
         JScrollPane sourceScrollPane = new JScrollPane(sourceCodeArea);
+        // Editar o código cancela a compilação em andamento
+        sourceCodeArea.getDocument().addDocumentListener(new DocumentListener() {
+            @Override
+            public void insertUpdate(DocumentEvent e) {
+                edited();
+            }
+
+            @Override
+            public void removeUpdate(DocumentEvent e) {
+                edited();
+            }
 
-        // 2. Área de texto para a console com barra de rolagem
-        consoleArea = new JTextArea();
-        consoleArea.setFont(new Font("Monospaced", Font.PLAIN, 12));
-        consoleArea.setEditable(false);
-        JScrollPane consoleScrollPane = new JScrollPane(consoleArea);
+            @Override
+            public void changedUpdate(DocumentEvent e) {
+                // Mudanças de atributos não alteram o código
+            }
+        });
+
+        // 2. Console com busca e salto para rótulos
+        //    (virtualizada: só as linhas visíveis são desenhadas)
+        console = new ConsoleView();
 
         // 3. Painel dividido para as áreas de texto
-        JSplitPane splitPane = new JSplitPane(JSplitPane.VERTICAL_SPLIT, sourceScrollPane, consoleScrollPane);
+        JSplitPane splitPane = new JSplitPane(JSplitPane.VERTICAL_SPLIT, sourceScrollPane, console);
         splitPane.setResizeWeight(0.65); // Dá mais espaço para a área de código
 
         // 4. Botão de compilação
         JButton compileButton = new JButton("Compilar");
         compileButton.addActionListener(e -> compile());
 
-        // 5. Barra de Menu
+        // 5. Barra de progresso das etapas
+        progressBar = new JProgressBar(0, PHASE_STEPS);
+        progressBar.setStringPainted(true);
+        progressBar.setString("");
+
+        // 6. Barra de Menu
         createMenuBar();
 
         // --- Layout ---
         JPanel bottomPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT));
+        bottomPanel.add(progressBar);
         bottomPanel.add(compileButton);
 
         setLayout(new BorderLayout());
@@ -86,77 +133,296 @@ public class CompilerGUI extends JFrame {
         fileMenu.add(exitItem);
 
         menuBar.add(fileMenu);
+
+        // Menu "Opções": métricas das etapas na console
+        JMenu optionsMenu = new JMenu("Opcoes");
+        metricsItem = new JCheckBoxMenuItem("Exibir metricas das etapas");
+        optionsMenu.add(metricsItem);
+        menuBar.add(optionsMenu);
+
         setJMenuBar(menuBar);
     }
 
     /**
-     * Abre um seletor de arquivos para carregar o código-fonte.
+     * Abre um seletor de arquivos para carregar o código-fonte. O arquivo é
+     * lido em segundo plano e inserido no editor aos poucos.
      */
     private void openFile() {
         JFileChooser fileChooser = new JFileChooser();
         int result = fileChooser.showOpenDialog(this);
         if (result == JFileChooser.APPROVE_OPTION) {
+            if (loader != null && !loader.isDone()) {
+                loader.cancel(true);
+            }
+            cancelCompilation();
             currentFile = fileChooser.getSelectedFile();
+            inserting = true;
+            sourceCodeArea.setText("");
+            inserting = false;
+            sourceCodeArea.setEditable(false);
+            editorMatchesFile = true;
+            setTitle("Compilador - " + currentFile.getName() + " (carregando...)");
+            loader = new FileLoader(currentFile);
+            loader.execute();
+        }
+    }
+
+    /**
+     * Chamado a cada alteração do editor.
+     */
+    private void edited() {
+        if (inserting) {
+            return; // Texto vindo do próprio arquivo
+        }
+        editorMatchesFile = false;
+        cancelCompilation();
+    }
+
+    /**
+     * Lê o arquivo em UTF-8, decodificando aos poucos, e insere o texto no
+     * editor em blocos. Cada bloco é uma inserção separada na thread de
+     * eventos, e a leitura espera quando há blocos demais aguardando, para
+     * que a janela continue respondendo durante o carregamento.
+     */
+    private final class FileLoader extends SwingWorker<Void, String> {
+
+        private final File file;
+        private final Semaphore pending = new Semaphore(LOAD_PENDING_CHUNKS);
+
+        FileLoader(File file) {
+            this.file = file;
+        }
+
+        @Override
+        protected Void doInBackground() throws IOException, InterruptedException {
+            long size = Math.max(1, file.length());
+            long loaded = 0;
+            char[] buffer = new char[LOAD_CHUNK_CHARS];
+            try (Reader reader = new InputStreamReader(Files.newInputStream(file.toPath()), StandardCharsets.UTF_8)) {
+                while (!isCancelled()) {
+                    int count = 0;
+                    int read;
+                    while (count < buffer.length && (read = reader.read(buffer, count, buffer.length - count)) >= 0) {
+                        count += read;
+                    }
+                    if (count == 0) {
+                        break;
+                    }
+                    pending.acquire();
+                    publish(new String(buffer, 0, count));
+                    loaded += count;
+                    setProgress((int) Math.min(99, loaded * 100 / size));
+                    if (count < buffer.length) {
+                        break;
+                    }
+                }
+            }
+            return null;
+        }
+
+        @Override
+        protected void process(List<String> chunks) {
+            Document document = sourceCodeArea.getDocument();
+            for (String chunk : chunks) {
+                pending.release();
+                if (this != loader || isCancelled()) {
+                    continue;
+                }
+                inserting = true;
+                try {
+                    document.insertString(document.getLength(), chunk, null);
+                } catch (BadLocationException e) {
+                    throw new IllegalStateException(e);
+                } finally {
+                    inserting = false;
+                }
+            }
+            if (this == loader && !isCancelled()) {
+                setTitle("Compilador - " + file.getName() + " (carregando... " + getProgress() + "%)");
+            }
+        }
+
+        @Override
+        protected void done() {
+            if (this != loader || isCancelled()) {
+                return;
+            }
+            sourceCodeArea.setEditable(true);
+            setTitle("Compilador - " + file.getName());
             try {
-                String sourceCode = new String(Files.readAllBytes(currentFile.toPath()));
-                sourceCodeArea.setText(sourceCode);
-                setTitle("Compilador - " + currentFile.getName());
-            } catch (Exception e) {
-                consoleArea.setText("Erro ao ler o arquivo: " + e.getMessage());
+                get();
+                sourceCodeArea.setCaretPosition(0);
+            } catch (InterruptedException | ExecutionException e) {
+                editorMatchesFile = false;
+                console.setText("Erro ao ler o arquivo: " + (e.getCause() != null ? e.getCause().getMessage() : e));
             }
         }
     }
 
     /**
-     * Orquestra todas as etapas de compilação.
-     * Este método é o coração da integração da GUI com o backend do compilador.
+     * Compila o código do editor numa thread de fundo. Uma compilação em
+     * andamento é cancelada antes (ou ao editar o código).
      */
     private void compile() {
-        String sourceCode = sourceCodeArea.getText();
-        if (sourceCode.isEmpty()) {
-            consoleArea.setText("Nenhum codigo-fonte para compilar.");
+        cancelCompilation();
+        // Se o editor ainda mostra o arquivo aberto, o worker lê o próprio
+        // arquivo, sem esperar o editor terminar de carregá-lo
+        File sourceFile = editorMatchesFile ? currentFile : null;
+        String sourceCode = sourceFile == null ? sourceCodeArea.getText() : null;
+        if (sourceFile == null ? sourceCode.isEmpty() : sourceFile.length() == 0) {
+            console.setText("Nenhum codigo-fonte para compilar.");
             return;
         }
 
-        consoleArea.setText(""); // Limpa a console
-        consoleArea.append("Iniciando compilacao...\n");
-        consoleArea.append("---------------------------------------------------------\n");
+        console.setText(""); // Limpa a console
+        console.appendText("Iniciando compilacao...\n");
+        console.appendText("---------------------------------------------------------\n");
+        showProgress(0, "Analise lexica e sintatica...");
+
+        worker = new CompileWorker(sourceCode, sourceFile, metricsItem.isSelected());
+        worker.execute();
+    }
+
+    /**
+     * Cancela a compilação em andamento, se houver.
+     */
+    private void cancelCompilation() {
+        if (worker != null && !worker.isDone()) {
+            worker.cancel(true);
+        }
+    }
 
-        try {
-            // Etapa 1: Análise Léxica
-            Scanner scanner = new Scanner(sourceCode);
+    private void showProgress(int step, String text) {
+        progressBar.setValue(step);
+        progressBar.setString(text);
+    }
 
-            // Etapa 2 e 3: Análise Sintática e Construção da AST
-            Parser parser = new Parser(scanner);
-            ASTNode astRoot = parser.parse();
-            consoleArea.append("[SUCESSO] Analise sintatica concluida. AST construida.\n");
+    /**
+     * Executa a compilação fora da thread de eventos do Swing. O texto da
+     * console e o avanço das etapas são publicados em ordem e aplicados na
+     * thread de eventos; o código-objeto e a AST entram na console como
+     * blocos já prontos, sem cópia linha a linha.
+     */
+    private final class CompileWorker extends SwingWorker<CompilationResult, Object> {
 
-            // Etapa 4: Análise de Contexto
-            CheckerVisitor checker = new CheckerVisitor();
-            astRoot.accept(checker);
-            consoleArea.append("[SUCESSO] Analise de contexto concluida. O programa esta correto.\n");
+        private final String sourceCode;
+        private final File sourceFile; // Lido no lugar de sourceCode, se não for null
+        private final boolean metrics;
 
-            // Etapa 5: Geração de Código
-            CodeGenVisitor codeGen = new CodeGenVisitor();
-            astRoot.accept(codeGen);
-            List<String> objectCode = codeGen.getObjectCode();
-            consoleArea.append("[SUCESSO] Geracao de codigo concluida.\n\n");
+        CompileWorker(String sourceCode, File sourceFile, boolean metrics) {
+            this.sourceCode = sourceCode;
+            this.sourceFile = sourceFile;
+            this.metrics = metrics;
+        }
 
-            // Exibe o código gerado na console
-            consoleArea.append("--- Codigo Objeto (TAM) ---\n");
-            for (String instruction : objectCode) {
-                consoleArea.append(instruction + "\n");
+        @Override
+        protected CompilationResult doInBackground() throws IOException {
+            String source = sourceCode;
+            if (sourceFile != null) {
+                source = new String(Files.readAllBytes(sourceFile.toPath()), StandardCharsets.UTF_8);
             }
+            // Mensagens das etapas concluídas antes do primeiro erro
+            CompilationResult result = metrics
+                    ? metricsCompiler.compile(source, this::publish)
+                    : compiler.compile(source, this::publish);
+            if (!result.isSuccess()) {
+                // Exibe o erro (sintático, de contexto, etc.) na console e,
+                // se houver mais de um, a lista de todos
+                StringBuilder errors = new StringBuilder("\nERRO DE COMPILACAO:\n").append(result.getErrorMessage());
+                List<Diagnostic> diagnostics = result.getDiagnostics();
+                if (diagnostics.size() > 1) {
+                    errors.append("\n\nErros encontrados (").append(diagnostics.size()).append("):");
+                    for (Diagnostic diagnostic : diagnostics) {
+                        errors.append("\n  ").append(diagnostic);
+                    }
+                }
+                publish(errors.toString());
+                publishMetrics(result.getMetrics());
+                return result;
+            }
+
+            // Exibe o código gerado na console (a lista não é copiada)
+            publish("--- Codigo Objeto (TAM) ---\n", ConsoleView.lines(result.getObjectCode()));
 
             // Opcional: Imprimir a AST para verificação
-            consoleArea.append("\n--- Arvore Sintatica Abstrata (AST) ---\n");
-            ASTPrinter printer = new ASTPrinter();
-            consoleArea.append(astRoot.accept(printer));
+            CompilationMetrics phases = result.getMetrics();
+            if (phases != null) {
+                phases.begin(CompilationMetrics.Phase.PRINTER);
+            }
+            String ast = result.getAst().accept(new ASTPrinter());
+            if (phases != null) {
+                phases.end(CompilationMetrics.Phase.PRINTER, ast.length());
+            }
+            if (!isCancelled()) {
+                publish("\n--- Arvore Sintatica Abstrata (AST) ---\n", ConsoleView.text(ast));
+            }
+            publishMetrics(phases);
+            return result;
+        }
+
+        /**
+         * Exibe a tabela de métricas na console, se elas foram medidas.
+         */
+        private void publishMetrics(CompilationMetrics phases) {
+            if (phases != null && !isCancelled()) {
+                publish("\n--- Metricas das Etapas ---\n" + phases.toTable());
+            }
+        }
 
+        @Override
+        protected void process(List<Object> items) {
+            if (this != worker || isCancelled()) {
+                return; // Resultado de uma compilação já substituída
+            }
+            for (Object item : items) {
+                if (item instanceof CompilationResult.Phase) {
+                    phaseCompleted((CompilationResult.Phase) item);
+                } else if (item instanceof ConsoleView.Segment) {
+                    console.appendSegment((ConsoleView.Segment) item);
+                } else {
+                    console.appendText((String) item);
+                }
+            }
+        }
 
-        } catch (Error | Exception e) {
-            // Captura qualquer erro (sintático, de contexto, etc.) e exibe na console
-            consoleArea.append("\nERRO DE COMPILACAO:\n" + e.getMessage());
+        private void phaseCompleted(CompilationResult.Phase phase) {
+            switch (phase) {
+                case SYNTAX:
+                    console.appendText("[SUCESSO] Analise sintatica concluida. AST construida.\n");
+                    showProgress(1, "Analise de contexto...");
+                    break;
+                case CONTEXT:
+                    console.appendText("[SUCESSO] Analise de contexto concluida. O programa esta correto.\n");
+                    showProgress(2, "Geracao de codigo...");
+                    break;
+                default:
+                    console.appendText("[SUCESSO] Geracao de codigo concluida.\n\n");
+                    showProgress(3, "Exibindo resultado...");
+                    break;
+            }
+        }
+
+        @Override
+        protected void done() {
+            if (this != worker) {
+                return;
+            }
+            if (isCancelled()) {
+                console.appendText("\nCompilacao cancelada.\n");
+                showProgress(0, "Cancelada");
+                return;
+            }
+            try {
+                showProgress(PHASE_STEPS, get().isSuccess() ? "Concluida" : "Erro de compilacao");
+            } catch (InterruptedException | ExecutionException e) {
+                if (e.getCause() instanceof IOException) {
+                    console.appendText("\nErro ao ler o arquivo: " + e.getCause().getMessage() + "\n");
+                    showProgress(0, "Erro de leitura");
+                    return;
+                }
+                console.appendText("\nERRO DE COMPILACAO:\n" + e.getCause());
+                showProgress(0, "Erro de compilacao");
+            }
         }
     }
 }
\ No newline at end of file
@@ -0,0 +1,113 @@
+package compilador;
+
+import compilador.diagnostics.Diagnostics;
+import compilador.lexer.Scanner;
+import compilador.lexer.Token;
+import compilador.parser.Parser;
+import compilador.visitor.CheckerVisitor;
+import compilador.visitor.CodeGenVisitor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Estado interno de uma compilação que pode ser reaproveitado entre
+ * compilações da mesma thread: o buffer de caracteres do Scanner, a lista de
+ * tokens, as pilhas do Parser, a tabela de símbolos, o gerador de código e a
+ * lista de erros.
+ * Cada thread tem o seu, então o {@link Compiler} pode ser chamado de várias
+ * threads ao mesmo tempo sem sincronização, e um servidor que compila muitos
+ * programas pequenos gera pouco lixo além da AST e do código-objeto.
+ *
+ * Depois de um programa muito grande, os buffers são descartados em vez de
+ * guardados, para que a thread não fique presa a eles.
+ */
+final class CompilerWorkspace {
+
+    /** Maior buffer de caracteres guardado entre compilações. */
+    static final int MAX_RETAINED_CHARS = 1 << 20;
+    /** Maior lista de tokens guardada entre compilações. */
+    static final int MAX_RETAINED_TOKENS = 1 << 18;
+
+    private static final ThreadLocal<CompilerWorkspace> CURRENT = ThreadLocal.withInitial(CompilerWorkspace::new);
+
+    private Scanner scanner = new Scanner("");
+    private List<Token> tokens = new ArrayList<>();
+    private Parser parser;
+    private final CheckerVisitor checker = new CheckerVisitor();
+    private final CodeGenVisitor codeGen = new CodeGenVisitor();
+    private final Diagnostics diagnostics = new Diagnostics();
+    private boolean inUse;
+
+    private CompilerWorkspace() {
+        checker.setDiagnostics(diagnostics);
+    }
+
+    /**
+     * @return O estado da thread atual, ou um novo se ele já estiver em uso
+     *         (compilação chamada de dentro de outra).
+     */
+    static CompilerWorkspace acquire() {
+        CompilerWorkspace workspace = CURRENT.get();
+        if (workspace.inUse) {
+            workspace = new CompilerWorkspace();
+        }
+        workspace.inUse = true;
+        return workspace;
+    }
+
+    /**
+     * Limpa o estado para a próxima compilação. O resultado da anterior
+     * (AST e código-objeto) não é afetado.
+     */
+    void release() {
+        if (tokens.size() > MAX_RETAINED_TOKENS) {
+            tokens = new ArrayList<>();
+        } else {
+            tokens.clear();
+        }
+        if (scanner.getBufferCapacity() > MAX_RETAINED_CHARS) {
+            scanner = new Scanner("");
+        }
+        checker.reset();
+        codeGen.reset();
+        diagnostics.clear();
+        inUse = false;
+    }
+
+    /**
+     * Etapa 1: Análise Léxica, na lista de tokens reaproveitada.
+     */
+    List<Token> scan(String source) {
+        scanner.reset(source);
+        scanner.setErrorListener(diagnostics);
+        tokens.clear();
+        return scanner.scanTokens(tokens);
+    }
+
+    Parser parser(List<Token> programTokens) {
+        if (parser == null) {
+            parser = new Parser(programTokens);
+            parser.setDiagnostics(diagnostics);
+        } else {
+            parser.reset(programTokens);
+        }
+        return parser;
+    }
+
+    CheckerVisitor checker() {
+        return checker;
+    }
+
+    CodeGenVisitor codeGen() {
+        return codeGen;
+    }
+
+    /**
+     * @return Os erros da compilação atual: os léxicos de {@link #scan}, os do
+     *         Parser e os do CheckerVisitor.
+     */
+    Diagnostics diagnostics() {
+        return diagnostics;
+    }
+}
@@ -0,0 +1,395 @@
+package compilador;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.KeyEvent;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Console da interface gráfica, com uma linha por instrução ou linha de texto.
+ *
+ * Em vez de copiar tudo para um JTextArea, a lista é virtualizada: o modelo
+ * guarda apenas referências para o código-objeto e para o texto da AST, e o
+ * JList desenha somente as linhas visíveis. Assim listagens com centenas de
+ * milhares de instruções aparecem de uma vez e rolam sem atraso.
+ *
+ * Oferece busca (a partir da linha selecionada) e salto para rótulos: duplo
+ * clique (ou Enter) num JUMP leva à linha do rótulo, e buscar "L12" leva à
+ * definição de L12.
+ */
+final class ConsoleView extends JPanel {
+
+    private static final long serialVersionUID = 1L;
+
+    // Largura fixa das linhas, em caracteres; linhas mais longas são cortadas
+    private static final int ROW_COLUMNS = 160;
+
+    private final ConsoleModel model = new ConsoleModel();
+    private final JList<String> list = new JList<>(model);
+    private final JTextField searchField = new JTextField(20);
+
+    ConsoleView() {
+        super(new BorderLayout());
+
+        list.setFont(new Font("Monospaced", Font.PLAIN, 12));
+        // Altura e largura fixas: o JList não precisa medir cada linha
+        char[] prototype = new char[ROW_COLUMNS];
+        Arrays.fill(prototype, 'M');
+        list.setPrototypeCellValue(new String(prototype));
+        list.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        list.addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                if (e.getClickCount() == 2) {
+                    jumpFromSelection();
+                }
+            }
+        });
+        list.getInputMap().put(KeyStroke.getKeyStroke(KeyEvent.VK_ENTER, 0), "jumpToLabel");
+        list.getActionMap().put("jumpToLabel", new AbstractAction() {
+            @Override
+            public void actionPerformed(java.awt.event.ActionEvent e) {
+                jumpFromSelection();
+            }
+        });
+
+        JButton searchButton = new JButton("Buscar");
+        searchButton.addActionListener(e -> search());
+        searchField.addActionListener(e -> search());
+        JPanel searchPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        searchPanel.add(new JLabel("Buscar (texto ou rotulo):"));
+        searchPanel.add(searchField);
+        searchPanel.add(searchButton);
+
+        add(searchPanel, BorderLayout.NORTH);
+        add(new JScrollPane(list), BorderLayout.CENTER);
+    }
+
+    // --- CONTEÚDO (sempre na thread de eventos) ---
+
+    /**
+     * Substitui todo o conteúdo pelo texto.
+     */
+    void setText(String text) {
+        model.clear();
+        model.appendText(text);
+    }
+
+    /**
+     * Acrescenta texto, como JTextArea.append: cada '\n' termina uma linha.
+     */
+    void appendText(String text) {
+        model.appendText(text);
+    }
+
+    /**
+     * Acrescenta um bloco de linhas já preparado (ver {@link #lines} e {@link #text}).
+     */
+    void appendSegment(Segment segment) {
+        model.appendSegment(segment);
+    }
+
+    /**
+     * Bloco com uma linha por elemento da lista, sem copiá-la. Se as linhas
+     * forem instruções TAM, os seus rótulos podem ser alvo de saltos.
+     * A lista não deve mais ser alterada.
+     */
+    static Segment lines(List<String> lines) {
+        return new ListSegment(lines);
+    }
+
+    /**
+     * Bloco com as linhas de um texto, que é guardado inteiro; cada linha só
+     * vira String quando é desenhada. Pode ser criado fora da thread de eventos.
+     */
+    static Segment text(String text) {
+        return new TextSegment(text);
+    }
+
+    // --- BUSCA E SALTOS ---
+
+    private void search() {
+        String query = searchField.getText().trim();
+        if (query.isEmpty()) {
+            return;
+        }
+        int row = -1;
+        if (isLabel(query)) {
+            row = model.findLabel(query);
+        }
+        if (row < 0) {
+            row = model.find(query.toLowerCase(Locale.ROOT), list.getSelectedIndex() + 1);
+        }
+        if (row < 0) {
+            UIManager.getLookAndFeel().provideErrorFeedback(searchField);
+            return;
+        }
+        select(row);
+    }
+
+    private void jumpFromSelection() {
+        String row = list.getSelectedValue();
+        if (row == null || !row.startsWith("JUMP")) {
+            return;
+        }
+        int target = model.findLabel(row.substring(row.lastIndexOf(' ') + 1));
+        if (target >= 0) {
+            select(target);
+        }
+    }
+
+    private void select(int row) {
+        list.setSelectedIndex(row);
+        list.ensureIndexIsVisible(row);
+    }
+
+    private static boolean isLabel(String text) {
+        if (text.length() < 2 || text.charAt(0) != 'L') {
+            return false;
+        }
+        for (int i = 1; i < text.length(); i++) {
+            if (!Character.isDigit(text.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // --- MODELO ---
+
+    /**
+     * Bloco de linhas consecutivas da console.
+     */
+    interface Segment {
+        int size();
+
+        String get(int index);
+
+        /**
+         * @return A linha onde o rótulo é definido ("L12:"), ou -1.
+         */
+        default int findLabel(String label) {
+            return -1;
+        }
+    }
+
+    private static final class ListSegment implements Segment {
+        private final List<String> lines;
+        private Map<String, Integer> labels; // Criado na primeira consulta
+
+        ListSegment(List<String> lines) {
+            this.lines = lines;
+        }
+
+        @Override
+        public int size() {
+            return lines.size();
+        }
+
+        @Override
+        public String get(int index) {
+            return lines.get(index);
+        }
+
+        @Override
+        public int findLabel(String label) {
+            if (labels == null) {
+                labels = new HashMap<>();
+                for (int i = 0; i < lines.size(); i++) {
+                    String line = lines.get(i);
+                    if (!line.isEmpty() && line.charAt(line.length() - 1) == ':') {
+                        labels.put(line.substring(0, line.length() - 1), i);
+                    }
+                }
+            }
+            Integer row = labels.get(label);
+            return row == null ? -1 : row;
+        }
+    }
+
+    /**
+     * Linhas de mensagens avulsas; cresce à medida que o texto chega.
+     */
+    private static final class MessageSegment implements Segment {
+        private final List<String> lines = new ArrayList<>();
+
+        @Override
+        public int size() {
+            return lines.size();
+        }
+
+        @Override
+        public String get(int index) {
+            return lines.get(index);
+        }
+    }
+
+    private static final class TextSegment implements Segment {
+        private final String text;
+        private final int[] lineStarts;
+        private final int count;
+
+        TextSegment(String text) {
+            this.text = text;
+            int[] starts = new int[64];
+            int lines = 0;
+            int start = 0;
+            while (start < text.length()) {
+                if (lines == starts.length) {
+                    starts = Arrays.copyOf(starts, lines * 2);
+                }
+                starts[lines++] = start;
+                int end = text.indexOf('\n', start);
+                start = end < 0 ? text.length() : end + 1;
+            }
+            this.lineStarts = starts;
+            this.count = lines;
+        }
+
+        @Override
+        public int size() {
+            return count;
+        }
+
+        @Override
+        public String get(int index) {
+            int start = lineStarts[index];
+            int end = index + 1 < count ? lineStarts[index + 1] - 1 : text.length();
+            if (end > start && text.charAt(end - 1) == '\n') {
+                end--;
+            }
+            return text.substring(start, end);
+        }
+    }
+
+    /**
+     * Sequência de blocos. O texto avulso (mensagens) vai para um bloco de
+     * linhas no fim; a linha ainda sem '\n' fica pendente, mas já é exibida.
+     */
+    private static final class ConsoleModel extends AbstractListModel<String> {
+        private static final long serialVersionUID = 1L;
+
+        private final List<Segment> segments = new ArrayList<>();
+        private int[] segmentStarts = new int[8];
+        private int closedRows = 0;
+        private MessageSegment messages; // Bloco de mensagens no fim, ou null
+        private final StringBuilder pending = new StringBuilder();
+
+        @Override
+        public int getSize() {
+            return closedRows + (pending.length() > 0 ? 1 : 0);
+        }
+
+        @Override
+        public String getElementAt(int index) {
+            if (index >= closedRows) {
+                return pending.toString();
+            }
+            int segment = Arrays.binarySearch(segmentStarts, 0, segments.size(), index);
+            if (segment < 0) {
+                segment = -segment - 2;
+            }
+            return segments.get(segment).get(index - segmentStarts[segment]);
+        }
+
+        void clear() {
+            int size = getSize();
+            segments.clear();
+            closedRows = 0;
+            messages = null;
+            pending.setLength(0);
+            if (size > 0) {
+                fireIntervalRemoved(this, 0, size - 1);
+            }
+        }
+
+        void appendText(String text) {
+            int oldSize = getSize();
+            int start = 0;
+            int end;
+            while ((end = text.indexOf('\n', start)) >= 0) {
+                pending.append(text, start, end);
+                closeLine(pending.toString());
+                pending.setLength(0);
+                start = end + 1;
+            }
+            pending.append(text, start, text.length());
+            changed(oldSize);
+        }
+
+        void appendSegment(Segment segment) {
+            int oldSize = getSize();
+            if (pending.length() > 0) {
+                closeLine(pending.toString());
+                pending.setLength(0);
+            }
+            if (segment.size() > 0) {
+                add(segment);
+                messages = null;
+            }
+            changed(oldSize);
+        }
+
+        private void closeLine(String line) {
+            if (messages == null) {
+                messages = new MessageSegment();
+                add(messages);
+            }
+            messages.lines.add(line);
+            closedRows++;
+        }
+
+        private void add(Segment segment) {
+            int index = segments.size();
+            if (index == segmentStarts.length) {
+                segmentStarts = Arrays.copyOf(segmentStarts, index * 2);
+            }
+            segmentStarts[index] = closedRows;
+            segments.add(segment);
+            // O bloco de mensagens começa vazio e cresce depois
+            closedRows += segment.size();
+        }
+
+        private void changed(int oldSize) {
+            int size = getSize();
+            if (oldSize > 0) {
+                fireContentsChanged(this, oldSize - 1, oldSize - 1);
+            }
+            if (size > oldSize) {
+                fireIntervalAdded(this, oldSize, size - 1);
+            }
+        }
+
+        /**
+         * @return A primeira linha, a partir de from (com volta ao início),
+         *         que contém query (já em minúsculas), ou -1.
+         */
+        int find(String query, int from) {
+            int size = getSize();
+            for (int i = 0; i < size; i++) {
+                int row = (from + i) % size;
+                if (getElementAt(row).toLowerCase(Locale.ROOT).contains(query)) {
+                    return row;
+                }
+            }
+            return -1;
+        }
+
+        int findLabel(String label) {
+            for (int i = 0; i < segments.size(); i++) {
+                int row = segments.get(i).findLabel(label);
+                if (row >= 0) {
+                    return segmentStarts[i] + row;
+                }
+            }
+            return -1;
+        }
+    }
+}
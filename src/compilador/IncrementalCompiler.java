@@ -0,0 +1,735 @@
+package compilador;
+
+import compilador.ast.ASTNode;
+import compilador.ast.BeginEndNode;
+import compilador.ast.ProgramaNode;
+import compilador.ast.VarDeclNode;
+import compilador.checker.SymbolTable;
+import compilador.codegen.ParallelCodeGen;
+import compilador.diagnostics.CompilationError;
+import compilador.diagnostics.Diagnostic;
+import compilador.diagnostics.Diagnostics;
+import compilador.lexer.Scanner;
+import compilador.lexer.Token;
+import compilador.lexer.TokenType;
+import compilador.parser.Parser;
+import compilador.parser.TreeBuilder;
+import compilador.visitor.CheckerVisitor;
+import compilador.visitor.CodeGenVisitor;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+
+/**
+ * Compilação incremental, para quem compila versões sucessivas de um mesmo
+ * programa (ex: o editor da GUI, a cada edição).
+ *
+ * O programa é dividido em unidades: o cabeçalho, cada declaração, o "begin"
+ * do bloco principal, cada comando do bloco principal (com o seu ';') e o
+ * "end" final. De cada unidade ficam guardados a posição no texto, a
+ * subárvore da AST, as variáveis que ela usa, os erros de contexto (se houver)
+ * e o código gerado, com rótulos locais a partir de L0 (como os trechos de
+ * {@link ParallelCodeGen}).
+ *
+ * Cada versão é comparada com a última que não teve erro de sintaxe. Como
+ * nenhum token atravessa uma quebra de linha, só as linhas alteradas são
+ * analisadas de novo; o trecho é estendido até cobrir as unidades que elas
+ * tocam e, se a análise precisar dos tokens seguintes (ex: falta o ';'),
+ * cresce unidade a unidade até a sequência de tokens voltar a coincidir com
+ * a anterior. As outras unidades são reaproveitadas, só com a posição
+ * deslocada.
+ *
+ * Há um único escopo global, então a análise de contexto de um comando só
+ * depende das declarações das variáveis que ele usa: ela é refeita para os
+ * comandos novos e, quando as declarações mudam, para os comandos que usam
+ * uma variável declarada, removida ou com outro tipo. O código-objeto é uma
+ * visão sobre o código das unidades, com os rótulos realocados na leitura.
+ *
+ * Edições que tocam o cabeçalho, o "begin" ou o "end" do bloco principal
+ * fazem uma compilação completa. O resultado (código, etapa e mensagem de
+ * erro) é sempre o mesmo de {@link Compiler#compile(String)}. Com erro de
+ * sintaxe, a lista de erros ({@link CompilationResult#getDiagnostics()})
+ * também é a mesma, com todos os erros léxicos e de sintaxe: o programa é
+ * analisado de novo por inteiro, e as unidades da última versão sem erro de
+ * sintaxe são mantidas. Sem erro de sintaxe, a lista tem os erros léxicos
+ * e os de contexto de todo o programa: os léxicos de cada trecho analisado
+ * são guardados com a posição e deslocados junto com as unidades seguintes,
+ * e nenhum deles vai para System.err. Os nós
+ * reaproveitados guardam os tokens da versão em que foram analisados, então
+ * o número de linha dentro deles pode estar desatualizado; as mensagens de
+ * erro, porém, são refeitas com as linhas corretas.
+ *
+ * Os métodos públicos são sincronizados: compila uma versão por vez.
+ */
+public class IncrementalCompiler {
+
+    private enum UnitKind { HEADER, DECLARATION, BEGIN, STATEMENT, END }
+
+    // Último código-fonte sem erro de sintaxe e as suas unidades, em ordem
+    private String source;
+    private final List<Unit> units = new ArrayList<>();
+
+    // Tabela de símbolos com as declarações atuais (a primeira de cada variável)
+    private final CheckerVisitor checker = new CheckerVisitor();
+    private final CodeGenVisitor codeGen = new CodeGenVisitor();
+    private final Diagnostics diagnostics = new Diagnostics();
+    private final Compiler syntaxCompiler = new Compiler();
+    private Map<String, TokenType> declared = new HashMap<>();
+    private List<Diagnostic> declarationErrors;
+
+    // Erros léxicos do último código-fonte sem erro de sintaxe, em ordem de posição
+    private List<LexicalError> lexicalErrors = new ArrayList<>();
+
+    public IncrementalCompiler() {
+        checker.setDiagnostics(diagnostics);
+    }
+
+    /**
+     * Compila uma nova versão do programa.
+     * @param text O texto completo do programa.
+     * @return O resultado, igual ao de {@link Compiler#compile(String)}.
+     */
+    public CompilationResult compile(String text) {
+        return compile(text, null);
+    }
+
+    /**
+     * Compila uma nova versão do programa, informando as etapas concluídas.
+     * Como as etapas são feitas só nas unidades alteradas, elas são
+     * informadas juntas, ao final; se a thread tiver sido interrompida, a
+     * compilação é abandonada com CancellationException (só quando há um
+     * listener), e a próxima parte do estado já atualizado.
+     * @param text O texto completo do programa.
+     * @param listener Recebe as etapas concluídas; pode ser null.
+     * @return O resultado, igual ao de {@link Compiler#compile(String, CompilationListener)}.
+     */
+    public synchronized CompilationResult compile(String text, CompilationListener listener) {
+        CompilationResult result = source == null ? rebuild(text) : update(text);
+        if (result.getPhase() != CompilationResult.Phase.SYNTAX) {
+            completed(CompilationResult.Phase.SYNTAX, listener);
+            if (result.getPhase() == CompilationResult.Phase.DONE) {
+                completed(CompilationResult.Phase.CONTEXT, listener);
+                completed(CompilationResult.Phase.CODEGEN, listener);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Tabela de símbolos da última versão sem erro de sintaxe, com a
+     * primeira declaração de cada variável. Os tokens das entradas têm as
+     * linhas dessa versão. Não deve ser usada durante uma compilação.
+     */
+    public synchronized SymbolTable getSymbolTable() {
+        return checker.getSymbolTable();
+    }
+
+    private static void completed(CompilationResult.Phase phase, CompilationListener listener) {
+        if (listener == null) {
+            return;
+        }
+        if (Thread.currentThread().isInterrupted()) {
+            throw new CancellationException("Compilacao cancelada.");
+        }
+        listener.phaseCompleted(phase);
+    }
+
+    // --- COMPILAÇÃO COMPLETA ---
+
+    /**
+     * Analisa o programa inteiro e refaz todas as unidades. Em caso de erro
+     * de sintaxe, as unidades da última versão válida são mantidas.
+     */
+    private CompilationResult rebuild(String text) {
+        Lexed lexed;
+        try {
+            lexed = scan(text, 0, text.length(), 1);
+        } catch (RuntimeException e) {
+            return syntaxError(text);
+        }
+        Parser parser = new Parser(lexed.tokens);
+        // "program ID ; begin": o primeiro comando começa no token 4, se não houver declarações
+        UnitBuilder builder = new UnitBuilder(parser, lexed, 4);
+        try {
+            parser.parse(builder);
+        } catch (Error | Exception e) {
+            return syntaxError(text);
+        }
+
+        int begin = builder.declarationsEnd;
+        int end = builder.statements.isEmpty() ? begin + 1 : builder.statementsEnd;
+        units.clear();
+        units.add(structural(UnitKind.HEADER, lexed, 0, 2, lexed.offsets[2] + 1));
+        units.addAll(builder.declarations);
+        units.add(structural(UnitKind.BEGIN, lexed, begin, begin, lexed.offsets[begin] + lexed.tokens.get(begin).lexeme.length()));
+        units.addAll(builder.statements);
+        units.add(structural(UnitKind.END, lexed, end, end, text.length()));
+        source = text;
+        lexicalErrors = lexed.errors;
+
+        declare();
+        for (Unit unit : builder.statements) {
+            check(unit);
+        }
+        return result();
+    }
+
+    // --- COMPILAÇÃO INCREMENTAL ---
+
+    private CompilationResult update(String text) {
+        int oldLength = source.length();
+        int newLength = text.length();
+        int max = Math.min(oldLength, newLength);
+        int prefix = 0;
+        while (prefix < max && source.charAt(prefix) == text.charAt(prefix)) {
+            prefix++;
+        }
+        if (prefix == oldLength && prefix == newLength) {
+            return result(); // Nenhuma mudança
+        }
+        int suffix = 0;
+        while (suffix < max - prefix && source.charAt(oldLength - 1 - suffix) == text.charAt(newLength - 1 - suffix)) {
+            suffix++;
+        }
+        int delta = newLength - oldLength;
+
+        // Trecho alterado, em posições do texto antigo, estendido até linhas e unidades completas
+        Region region = new Region(lineStart(source, prefix), lineEnd(source, oldLength - suffix));
+        region.expand();
+        int growth = 1;
+        while (true) {
+            if (region.first == 0 || region.last == units.size() - 1) {
+                return rebuild(text); // Cabeçalho ou fim do programa
+            }
+            Unit before = units.get(region.first - 1);
+            Unit after = units.get(region.last + 1);
+            boolean statements;
+            if ((before.kind == UnitKind.BEGIN || before.kind == UnitKind.STATEMENT)
+                    && (after.kind == UnitKind.STATEMENT || after.kind == UnitKind.END)) {
+                statements = true;
+            } else if ((before.kind == UnitKind.HEADER || before.kind == UnitKind.DECLARATION)
+                    && (after.kind == UnitKind.DECLARATION || after.kind == UnitKind.BEGIN)) {
+                statements = false;
+            } else {
+                return rebuild(text); // O trecho inclui o "begin"
+            }
+
+            int line = before.endLine + lines(source, before.end, region.from);
+            Lexed lexed;
+            try {
+                lexed = scan(text, region.from, region.to + delta, line);
+            } catch (RuntimeException e) {
+                return syntaxError(text);
+            }
+            int eof = lexed.tokens.size() - 1;
+            Parser parser = new Parser(lexed.tokens);
+            UnitBuilder builder = new UnitBuilder(parser, lexed, 0);
+            try {
+                if (statements) {
+                    parser.parseStatements(builder);
+                } else {
+                    parser.parseDeclarations(builder);
+                }
+            } catch (Error | Exception e) {
+                if (parser.getPosition() < eof) {
+                    // O erro é o mesmo da compilação completa: as unidades
+                    // anteriores não mudaram e o token é do próprio trecho
+                    return syntaxError(text);
+                }
+                // Faltaram tokens: o trecho continua na unidade seguinte
+                region.to = lineEnd(source, units.get(Math.min(region.last + growth, units.size() - 1)).end);
+                region.expand();
+                growth *= 2;
+                continue;
+            }
+            if (parser.getPosition() != eof) {
+                return rebuild(text); // "end" ou "begin" no lugar de um comando ou declaração
+            }
+            splice(region, statements ? builder.statements : builder.declarations, lexed.errors, text);
+            if (!statements) {
+                recheck(declare());
+            }
+            for (Unit unit : builder.statements) {
+                check(unit);
+            }
+            return result();
+        }
+    }
+
+    /**
+     * Trecho do texto antigo [from, to), sempre em linhas completas, e as
+     * unidades que ele contém [first, last] (last = first - 1 se nenhuma).
+     */
+    private final class Region {
+        int from;
+        int to;
+        int first;
+        int last;
+
+        Region(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        /**
+         * Inclui as unidades que o trecho toca e as linhas delas, até estabilizar.
+         */
+        void expand() {
+            while (true) {
+                first = firstEndingAfter(from);
+                last = firstStartingAt(to) - 1;
+                if (first > last) {
+                    return;
+                }
+                int newFrom = Math.min(from, lineStart(source, units.get(first).start));
+                int newTo = Math.max(to, lineEnd(source, units.get(last).end));
+                if (newFrom == from && newTo == to) {
+                    return;
+                }
+                from = newFrom;
+                to = newTo;
+            }
+        }
+    }
+
+    /**
+     * Troca as unidades e os erros léxicos do trecho pelos novos e desloca os seguintes.
+     */
+    private void splice(Region region, List<Unit> replacement, List<LexicalError> errors, String text) {
+        int delta = text.length() - source.length();
+        int lineDelta = lines(text, region.from, region.to + delta) - lines(source, region.from, region.to);
+        units.subList(region.first, region.last + 1).clear();
+        units.addAll(region.first, replacement);
+        for (int i = region.first + replacement.size(); i < units.size(); i++) {
+            Unit unit = units.get(i);
+            unit.start += delta;
+            unit.end += delta;
+            unit.line += lineDelta;
+            unit.endLine += lineDelta;
+        }
+
+        List<LexicalError> spliced = new ArrayList<>(lexicalErrors.size() + errors.size());
+        int i = 0;
+        while (i < lexicalErrors.size() && lexicalErrors.get(i).offset < region.from) {
+            spliced.add(lexicalErrors.get(i++));
+        }
+        spliced.addAll(errors);
+        for (; i < lexicalErrors.size(); i++) {
+            LexicalError error = lexicalErrors.get(i);
+            if (error.offset >= region.to) {
+                spliced.add(error.moved(delta, lineDelta));
+            }
+        }
+        lexicalErrors = spliced;
+        source = text;
+    }
+
+    // --- ANÁLISE DE CONTEXTO ---
+
+    /**
+     * Refaz a tabela de símbolos a partir das declarações.
+     * @return As variáveis que foram declaradas, removidas ou mudaram de tipo.
+     */
+    private Set<String> declare() {
+        checker.reset();
+        diagnostics.clear();
+        Map<String, TokenType> types = new HashMap<>();
+        for (int i = 1; units.get(i).kind == UnitKind.DECLARATION; i++) {
+            Unit unit = units.get(i);
+            if (unit.parsedLine != unit.line) {
+                // A declaração só foi deslocada: corrige a linha dos seus tokens
+                VarDeclNode old = (VarDeclNode) unit.node;
+                int lineDelta = unit.line - unit.parsedLine;
+                unit.node = new VarDeclNode(moved(old.identifier, lineDelta), moved(old.type, lineDelta));
+                unit.parsedLine = unit.line;
+            }
+            VarDeclNode declaration = (VarDeclNode) unit.node;
+            checker.check(declaration);
+            // Declaração duplicada: o erro fica registrado e vale a primeira
+            types.putIfAbsent(declaration.identifier.lexeme, declaration.type.type);
+        }
+        declarationErrors = errors();
+        Set<String> changed = new HashSet<>();
+        for (Map.Entry<String, TokenType> entry : types.entrySet()) {
+            if (declared.get(entry.getKey()) != entry.getValue()) {
+                changed.add(entry.getKey());
+            }
+        }
+        for (String name : declared.keySet()) {
+            if (!types.containsKey(name)) {
+                changed.add(name);
+            }
+        }
+        declared = types;
+        return changed;
+    }
+
+    private static Token moved(Token token, int lineDelta) {
+        return new Token(token.type, token.lexeme, token.literal, token.line + lineDelta);
+    }
+
+    /**
+     * Verifica de novo os comandos que usam alguma das variáveis.
+     */
+    private void recheck(Set<String> changed) {
+        if (changed.isEmpty()) {
+            return;
+        }
+        for (Unit unit : units) {
+            if (unit.kind != UnitKind.STATEMENT) {
+                continue;
+            }
+            for (String name : unit.names) {
+                if (changed.contains(name)) {
+                    check(unit);
+                    break;
+                }
+            }
+        }
+    }
+
+    private void check(Unit unit) {
+        diagnostics.clear();
+        try {
+            checker.check(unit.node);
+        } catch (Error | RuntimeException e) {
+            diagnostics.report(Diagnostic.Kind.CONTEXT, CompilationError.lineOf(e), String.valueOf(e.getMessage()));
+        }
+        unit.errors = errors();
+    }
+
+    /**
+     * @return Uma cópia dos erros registrados, ou null se não houve nenhum.
+     */
+    private List<Diagnostic> errors() {
+        return diagnostics.getCount() == 0 ? null : new ArrayList<>(diagnostics.getDiagnostics());
+    }
+
+    // --- RESULTADO ---
+
+    /**
+     * Resultado de uma versão com erro de sintaxe. A análise do trecho
+     * alterado para no primeiro erro, então o programa inteiro passa por uma
+     * compilação completa, que para depois da análise sintática (com
+     * recuperação) e traz todos os erros léxicos e de sintaxe, com as linhas.
+     */
+    private CompilationResult syntaxError(String text) {
+        return syntaxCompiler.compile(text);
+    }
+
+    /**
+     * Monta o resultado da versão atual: os erros léxicos e os de contexto,
+     * na ordem do programa, ou a AST e o código-objeto. Como no
+     * {@link Diagnostics} da compilação completa, todos contam para o limite
+     * da lista, mas a etapa e a mensagem vêm do primeiro erro de contexto
+     * mesmo que ele fique além do limite.
+     */
+    private CompilationResult result() {
+        List<Diagnostic> errors = new ArrayList<>();
+        for (LexicalError error : lexicalErrors) {
+            errors.add(error.diagnostic);
+        }
+        String contextError = null;
+        if (declarationErrors != null) {
+            errors.addAll(declarationErrors);
+            contextError = declarationErrors.get(0).message;
+        }
+        for (int i = 0; (errors.size() < diagnostics.getLimit() || contextError == null) && i < units.size(); i++) {
+            Unit unit = units.get(i);
+            if (unit.kind == UnitKind.STATEMENT && unit.errors != null) {
+                if (unit.parsedLine != unit.line) {
+                    refresh(unit); // As mensagens citam linhas da versão antiga
+                }
+                if (contextError == null) {
+                    contextError = unit.errors.get(0).message;
+                }
+                errors.addAll(unit.errors);
+            }
+        }
+        if (errors.size() > diagnostics.getLimit()) {
+            errors.subList(diagnostics.getLimit(), errors.size()).clear();
+        }
+
+        List<ASTNode> declarations = new ArrayList<>();
+        List<ASTNode> commands = new ArrayList<>(units.size());
+        List<List<String>> chunks = new ArrayList<>(units.size());
+        int[] labels = new int[units.size()];
+        for (Unit unit : units) {
+            if (unit.kind == UnitKind.DECLARATION) {
+                declarations.add(unit.node);
+            } else if (unit.kind == UnitKind.STATEMENT) {
+                labels[commands.size()] = unit.labels;
+                commands.add(unit.node);
+                chunks.add(unit.code);
+            }
+        }
+        ASTNode ast = new ProgramaNode(declarations, new BeginEndNode(commands));
+        if (contextError != null) {
+            return new CompilationResult(ast, null, CompilationResult.Phase.CONTEXT, contextError, errors);
+        }
+        return new CompilationResult(ast, new ObjectCode(chunks, labels), CompilationResult.Phase.DONE, null, errors);
+    }
+
+    /**
+     * Analisa de novo um comando que não mudou, para que os seus tokens
+     * tenham as linhas atuais, e o verifica outra vez.
+     */
+    private void refresh(Unit unit) {
+        Lexed lexed = scan(source, unit.start, unit.end, unit.line);
+        Parser parser = new Parser(lexed.tokens);
+        UnitBuilder builder = new UnitBuilder(parser, lexed, 0);
+        parser.parseStatements(builder);
+        unit.node = builder.statements.get(0).node;
+        unit.parsedLine = unit.line;
+        check(unit);
+    }
+
+    /**
+     * Código-objeto do programa: o código de cada comando, com os rótulos
+     * realocados na leitura, seguido de HALT. Não copia as instruções.
+     */
+    private static final class ObjectCode extends AbstractList<String> {
+        private final List<List<String>> chunks;
+        private final int[] starts;     // Primeira instrução de cada comando
+        private final int[] labelBases; // Primeiro rótulo global de cada comando
+        private final int size;
+
+        ObjectCode(List<List<String>> chunks, int[] labels) {
+            this.chunks = chunks;
+            this.starts = new int[chunks.size()];
+            this.labelBases = new int[chunks.size()];
+            int start = 0;
+            int base = 0;
+            for (int i = 0; i < chunks.size(); i++) {
+                starts[i] = start;
+                labelBases[i] = base;
+                start += chunks.get(i).size();
+                base += labels[i];
+            }
+            this.size = start + 1;
+        }
+
+        @Override
+        public String get(int index) {
+            if (index < 0 || index >= size) {
+                throw new IndexOutOfBoundsException("Indice: " + index + ", tamanho: " + size);
+            }
+            if (index == size - 1) {
+                return "HALT";
+            }
+            int chunk = Arrays.binarySearch(starts, index);
+            if (chunk < 0) {
+                chunk = -chunk - 2;
+            }
+            // Comandos sem código (ex: begin end) têm o mesmo início do seguinte
+            while (chunk + 1 < starts.length && starts[chunk + 1] == index) {
+                chunk++;
+            }
+            String instruction = chunks.get(chunk).get(index - starts[chunk]);
+            return labelBases[chunk] == 0 ? instruction : ParallelCodeGen.relocate(instruction, labelBases[chunk]);
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+
+    // --- UNIDADES ---
+
+    private static final class Unit {
+        final UnitKind kind;
+        int start;       // Posição no texto: [start, end)
+        int end;
+        int line;        // Linha atual do primeiro e do último token
+        int endLine;
+        int parsedLine;  // Linha do primeiro token quando node foi construído
+        ASTNode node;    // null nas unidades de estrutura
+        final String[] names; // Variáveis usadas (comando) ou declarada
+        final List<String> code;
+        final int labels;
+        List<Diagnostic> errors; // Erros de contexto do comando, ou null
+
+        Unit(UnitKind kind, ASTNode node, Lexed lexed, int first, int last, int end,
+             String[] names, List<String> code, int labels) {
+            this.kind = kind;
+            this.node = node;
+            this.start = lexed.offsets[first];
+            this.end = end;
+            this.line = lexed.tokens.get(first).line;
+            this.endLine = lexed.tokens.get(last).line;
+            this.parsedLine = line;
+            this.names = names;
+            this.code = code;
+            this.labels = labels;
+        }
+    }
+
+    private static Unit structural(UnitKind kind, Lexed lexed, int first, int last, int end) {
+        return new Unit(kind, null, lexed, first, last, end, new String[0], List.of(), 0);
+    }
+
+    /**
+     * Constrói a AST normalmente e cria uma unidade para cada declaração e
+     * para cada comando do bloco principal, com o seu código.
+     */
+    private final class UnitBuilder extends TreeBuilder {
+        private final Parser parser;
+        private final Lexed lexed;
+        final List<Unit> declarations = new ArrayList<>();
+        final List<Unit> statements = new ArrayList<>();
+        int declarationsEnd = 3; // Token depois da última declaração ("begin")
+        int statementsEnd;       // Token depois do último comando ("end")
+        private int next;        // Primeiro token do próximo comando
+
+        UnitBuilder(Parser parser, Lexed lexed, int next) {
+            super(lexed.tokens);
+            this.parser = parser;
+            this.lexed = lexed;
+            this.next = next;
+        }
+
+        @Override
+        public ASTNode varDecl(int identifier, int type) {
+            ASTNode node = super.varDecl(identifier, type);
+            // A redução acontece depois do ';'
+            int last = parser.getPosition() - 1;
+            declarations.add(new Unit(UnitKind.DECLARATION, node, lexed, identifier - 1, last,
+                    lexed.offsets[last] + 1, new String[] { tokens.get(identifier).lexeme }, List.of(), 0));
+            declarationsEnd = last + 1;
+            next = last + 2;
+            return node;
+        }
+
+        @Override
+        public ASTNode topLevelStatement(ASTNode statement) {
+            // A redução acontece antes do ';'
+            int last = parser.getPosition();
+            Set<String> names = new HashSet<>();
+            for (int i = next; i < last; i++) {
+                Token token = tokens.get(i);
+                if (token.type == TokenType.ID) {
+                    names.add(token.lexeme);
+                }
+            }
+            codeGen.reset();
+            codeGen.generate(statement);
+            statements.add(new Unit(UnitKind.STATEMENT, statement, lexed, next, last, lexed.offsets[last] + 1,
+                    names.toArray(new String[0]), List.copyOf(codeGen.getObjectCode()), codeGen.getLabelCount()));
+            next = last + 1;
+            statementsEnd = next;
+            return statement;
+        }
+    }
+
+    // --- TEXTO ---
+
+    private static final class Lexed {
+        final List<Token> tokens = new ArrayList<>();
+        int[] offsets = new int[16]; // Posição de cada token no texto completo
+        final List<LexicalError> errors = new ArrayList<>();
+    }
+
+    /**
+     * Erro léxico, com a posição no texto completo para que seja deslocado
+     * junto com as unidades quando o texto anterior a ele muda.
+     */
+    private static final class LexicalError {
+        final int offset;
+        final Diagnostic diagnostic;
+
+        LexicalError(int offset, Diagnostic diagnostic) {
+            this.offset = offset;
+            this.diagnostic = diagnostic;
+        }
+
+        LexicalError moved(int delta, int lineDelta) {
+            return new LexicalError(offset + delta, lineDelta == 0 ? diagnostic
+                    : new Diagnostic(diagnostic.kind, diagnostic.line + lineDelta, diagnostic.message));
+        }
+    }
+
+    /**
+     * Análise léxica de text[from, to), que começa na linha informada. Os
+     * erros léxicos ficam em {@link Lexed#errors}, com as mesmas mensagens de
+     * {@link Diagnostics}, em vez de irem para System.err.
+     */
+    private static Lexed scan(String text, int from, int to, int line) {
+        Scanner scanner = new Scanner("");
+        scanner.reset(text.substring(from, to), line);
+        Lexed lexed = new Lexed();
+        scanner.setErrorListener((offset, errorLine, message) -> lexed.errors.add(new LexicalError(from + offset,
+                new Diagnostic(Diagnostic.Kind.LEXICAL, errorLine, Diagnostics.lexicalMessage(message)))));
+        Token token;
+        do {
+            token = scanner.nextToken();
+            int index = lexed.tokens.size();
+            if (index == lexed.offsets.length) {
+                lexed.offsets = Arrays.copyOf(lexed.offsets, index * 2);
+            }
+            lexed.offsets[index] = from + scanner.getTokenOffset();
+            lexed.tokens.add(token);
+        } while (token.type != TokenType.EOF);
+        return lexed;
+    }
+
+    /**
+     * @return A primeira unidade que termina depois da posição.
+     */
+    private int firstEndingAfter(int position) {
+        int low = 0;
+        int high = units.size();
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (units.get(middle).end > position) {
+                high = middle;
+            } else {
+                low = middle + 1;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * @return A primeira unidade que começa na posição ou depois dela.
+     */
+    private int firstStartingAt(int position) {
+        int low = 0;
+        int high = units.size();
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (units.get(middle).start >= position) {
+                high = middle;
+            } else {
+                low = middle + 1;
+            }
+        }
+        return low;
+    }
+
+    private static int lineStart(String text, int position) {
+        return text.lastIndexOf('\n', position - 1) + 1;
+    }
+
+    private static int lineEnd(String text, int position) {
+        int end = text.indexOf('\n', position);
+        return end < 0 ? text.length() : end;
+    }
+
+    private static int lines(String text, int from, int to) {
+        int count = 0;
+        for (int i = from; i < to; i++) {
+            if (text.charAt(i) == '\n') {
+                count++;
+            }
+        }
+        return count;
+    }
+}
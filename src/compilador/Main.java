@@ -1,11 +1,19 @@
 package compilador;
 
+import compilador.cli.BatchCompiler;
+
 import javax.swing.SwingUtilities;
+import java.io.IOException;
 
 public class Main {
-    public static void main(String[] args) {
+    public static void main(String[] args) throws IOException {
+        // Com argumentos, compila em lote pela linha de comando sem carregar Swing/AWT
+        if (args.length > 0) {
+            BatchCompiler.main(args);
+            return;
+        }
         SwingUtilities.invokeLater(() -> {
             new CompilerGUI();
         });
     }
-}
\ No newline at end of file
+}
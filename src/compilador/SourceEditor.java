@@ -0,0 +1,248 @@
+package compilador;
+
+import compilador.lexer.LineTokens;
+import compilador.lexer.Scanner;
+import compilador.lexer.TokenType;
+
+import javax.swing.*;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.DefaultEditorKit;
+import javax.swing.text.Document;
+import javax.swing.text.Element;
+import javax.swing.text.PlainView;
+import javax.swing.text.Segment;
+import javax.swing.text.Utilities;
+import javax.swing.text.ViewFactory;
+import java.awt.*;
+import java.awt.event.MouseEvent;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Editor do código-fonte com destaque de sintaxe e marcação dos erros
+ * léxicos (sublinhado ondulado, com a mensagem na dica de ferramenta).
+ *
+ * Os tokens são guardados por linha ({@link LineTokens}): uma edição
+ * descarta apenas as linhas que tocou, e a análise volta a coincidir com a
+ * anterior logo no fim da última delas. As linhas descartadas
+ * só são analisadas de novo quando são desenhadas, de modo que digitar num
+ * arquivo enorme custa o mesmo que num pequeno, e carregar um arquivo não
+ * analisa as linhas que nunca aparecem na tela.
+ */
+final class SourceEditor extends JEditorPane {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final Color KEYWORD = new Color(0x00, 0x33, 0x99);
+    private static final Color TYPE = new Color(0x00, 0x80, 0x80);
+    private static final Color LITERAL = new Color(0xA0, 0x40, 0x00);
+    private static final Color COMMENT_COLOR = new Color(0x60, 0x80, 0x60);
+    private static final Color ERROR = Color.RED;
+    private static final TokenType[] TYPES = TokenType.values();
+
+    // Tokens de cada linha do documento; null se a linha precisa ser analisada
+    private final List<LineTokens> lines = new ArrayList<>();
+    private final Scanner scanner = new Scanner("");
+    private final DocumentListener documentListener = new DocumentListener() {
+        @Override
+        public void insertUpdate(DocumentEvent e) {
+            invalidate(e);
+        }
+
+        @Override
+        public void removeUpdate(DocumentEvent e) {
+            invalidate(e);
+        }
+
+        @Override
+        public void changedUpdate(DocumentEvent e) {
+            // Mudanças de atributos não alteram os tokens
+        }
+    };
+
+    SourceEditor() {
+        // O documento muda quando o EditorKit é trocado
+        addPropertyChangeListener("document", e -> {
+            if (e.getOldValue() != null) {
+                ((Document) e.getOldValue()).removeDocumentListener(documentListener);
+            }
+            documentChanged();
+        });
+        setEditorKit(new SourceEditorKit());
+        ToolTipManager.sharedInstance().registerComponent(this);
+    }
+
+    private void documentChanged() {
+        Document document = getDocument();
+        document.addDocumentListener(documentListener);
+        lines.clear();
+        lines.addAll(Collections.nCopies(document.getDefaultRootElement().getElementCount(), null));
+    }
+
+    /**
+     * Descarta os tokens das linhas tocadas por uma edição, acompanhando as
+     * linhas criadas ou removidas.
+     */
+    private void invalidate(DocumentEvent e) {
+        Element root = getDocument().getDefaultRootElement();
+        DocumentEvent.ElementChange change = e.getChange(root);
+        if (change != null) {
+            int index = change.getIndex();
+            lines.subList(index, index + change.getChildrenRemoved().length).clear();
+            lines.addAll(index, Collections.nCopies(change.getChildrenAdded().length, null));
+        }
+        lines.set(root.getElementIndex(e.getOffset()), null);
+        if (e.getType() == DocumentEvent.EventType.INSERT) {
+            lines.set(root.getElementIndex(e.getOffset() + e.getLength()), null);
+        }
+    }
+
+    /**
+     * @return Os tokens da linha, analisando-a se necessário.
+     */
+    private LineTokens tokens(int index) {
+        LineTokens tokens = lines.get(index);
+        if (tokens == null) {
+            tokens = scan(getDocument().getDefaultRootElement().getElement(index));
+            lines.set(index, tokens);
+        }
+        return tokens;
+    }
+
+    /**
+     * Analisa uma linha, com posições relativas ao seu início.
+     */
+    private LineTokens scan(Element line) {
+        try {
+            return LineTokens.scan(scanner,
+                    getDocument().getText(line.getStartOffset(), line.getEndOffset() - line.getStartOffset()));
+        } catch (BadLocationException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    public String getToolTipText(MouseEvent event) {
+        int offset = viewToModel2D(event.getPoint());
+        if (offset < 0) {
+            return null;
+        }
+        Element root = getDocument().getDefaultRootElement();
+        int index = root.getElementIndex(offset);
+        LineTokens tokens = tokens(index);
+        int column = offset - root.getElement(index).getStartOffset();
+        for (int i = 0; i < tokens.errorCount(); i++) {
+            // A posição pode cair logo antes ou logo depois do caractere
+            if (column >= tokens.errorStart(i) - 1 && column <= tokens.errorEnd(i)) {
+                return tokens.errorMessage(i);
+            }
+        }
+        return null;
+    }
+
+    private static Color color(int kind) {
+        if (kind == LineTokens.COMMENT) {
+            return COMMENT_COLOR;
+        }
+        switch (TYPES[kind]) {
+            case PROGRAM: case VAR: case BEGIN: case END: case IF: case THEN:
+            case ELSE: case WHILE: case DO: case OR: case AND:
+                return KEYWORD;
+            case INTEGER: case BOOLEAN:
+                return TYPE;
+            case INT_LIT: case FLOAT_LIT: case TRUE: case FALSE:
+                return LITERAL;
+            default:
+                return null; // Cor normal do texto
+        }
+    }
+
+    private final class SourceEditorKit extends DefaultEditorKit {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        public ViewFactory getViewFactory() {
+            return SourceView::new;
+        }
+    }
+
+    /**
+     * Desenha cada linha visível com as cores dos seus tokens.
+     */
+    private final class SourceView extends PlainView {
+
+        SourceView(Element element) {
+            super(element);
+        }
+
+        @Override
+        protected float drawUnselectedText(Graphics2D g, float x, float y, int p0, int p1)
+                throws BadLocationException {
+            Element root = getElement();
+            int index = root.getElementIndex(p0);
+            int lineStart = root.getElement(index).getStartOffset();
+            LineTokens tokens = tokens(index);
+            Color normal = isEnabled() ? getForeground() : getDisabledTextColor();
+            Segment text = getLineBuffer();
+            float startX = x;
+
+            int position = p0;
+            for (int i = 0; i < tokens.size() && position < p1; i++) {
+                int start = lineStart + tokens.start(i);
+                int end = Math.min(lineStart + tokens.end(i), p1);
+                if (end <= position) {
+                    continue;
+                }
+                if (start > position) {
+                    x = draw(g, x, y, text, position, Math.min(start, p1), normal);
+                    position = Math.min(start, p1);
+                }
+                if (position < end) {
+                    Color color = color(tokens.kind(i));
+                    x = draw(g, x, y, text, position, end, color != null ? color : normal);
+                    position = end;
+                }
+            }
+            if (position < p1) {
+                x = draw(g, x, y, text, position, p1, normal);
+            }
+
+            for (int i = 0; i < tokens.errorCount(); i++) {
+                int start = Math.max(lineStart + tokens.errorStart(i), p0);
+                int end = Math.min(lineStart + tokens.errorEnd(i), p1);
+                if (start < end) {
+                    float from = startX + width(text, p0, start, startX);
+                    float to = from + width(text, start, end, from);
+                    squiggle(g, from, to, y);
+                }
+            }
+            return x;
+        }
+
+        private float draw(Graphics2D g, float x, float y, Segment text, int p0, int p1, Color color)
+                throws BadLocationException {
+            g.setColor(color);
+            getDocument().getText(p0, p1 - p0, text);
+            return Utilities.drawTabbedText(text, x, y, g, this, p0);
+        }
+
+        private float width(Segment text, int p0, int p1, float x) throws BadLocationException {
+            getDocument().getText(p0, p1 - p0, text);
+            return Utilities.getTabbedTextWidth(text, getFontMetrics(getFont()), x, this, p0);
+        }
+
+        private void squiggle(Graphics2D g, float from, float to, float y) {
+            g.setColor(ERROR);
+            int base = (int) y + 2;
+            int left = (int) from;
+            int right = Math.max((int) to, left + 4);
+            for (int px = left; px < right; px += 2) {
+                int dy = (px - left) / 2 % 2 == 0 ? 0 : 2;
+                g.drawLine(px, base + dy, px + 2, base + 2 - dy);
+            }
+        }
+    }
+}
@@ -2,11 +2,21 @@ package compilador.ast;
 
 import compilador.visitor.Visitor;
 
-public interface ASTNode {
+public abstract class ASTNode {
+
+    /**
+     * O tipo concreto deste nó, para despacho com switch.
+     */
+    public final NodeKind kind;
+
+    protected ASTNode(NodeKind kind) {
+        this.kind = kind;
+    }
+
     /**
      * Aceita um visitor, implementando o padrão de projeto Visitor.
      * @param visitor O visitor que irá operar sobre este nó.
      * @return O resultado da operação do visitor.
      */
-    <T> T accept(Visitor<T> visitor);
-}
\ No newline at end of file
+    public abstract <T> T accept(Visitor<T> visitor);
+}
@@ -3,11 +3,12 @@ package compilador.ast;
 import compilador.lexer.Token;
 import compilador.visitor.Visitor;
 
-public class AssignNode implements ASTNode {
+public class AssignNode extends ASTNode {
     public final Token variable;
     public final ASTNode expression;
 
     public AssignNode(Token variable, ASTNode expression) {
+        super(NodeKind.ASSIGN);
         this.variable = variable;
         this.expression = expression;
     }
@@ -7,10 +7,11 @@ import java.util.List;
  * Nó da AST que representa um bloco de comandos compostos (begin...end).
  * Contém uma lista de nós de comando.
  */
-public class BeginEndNode implements ASTNode {
+public class BeginEndNode extends ASTNode {
     public final List<ASTNode> commands;
 
     public BeginEndNode(List<ASTNode> commands) {
+        super(NodeKind.BEGIN_END);
         this.commands = commands;
     }
 
@@ -3,12 +3,13 @@ package compilador.ast;
 import compilador.lexer.Token;
 import compilador.visitor.Visitor;
 
-public class BinaryOpNode implements ASTNode {
+public class BinaryOpNode extends ASTNode {
     public final ASTNode left;
     public final Token operator;
     public final ASTNode right;
 
     public BinaryOpNode(ASTNode left, Token operator, ASTNode right) {
+        super(NodeKind.BINARY_OP);
         this.left = left;
         this.operator = operator;
         this.right = right;
@@ -6,10 +6,11 @@ import compilador.visitor.Visitor;
 /**
  * Nó da AST para um literal booleano (true, false).
  */
-public class BooleanLitNode implements ASTNode {
+public class BooleanLitNode extends ASTNode {
     public final Token value;
 
     public BooleanLitNode(Token value) {
+        super(NodeKind.BOOLEAN_LIT);
         this.value = value;
     }
 
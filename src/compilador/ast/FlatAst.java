@@ -0,0 +1,194 @@
+package compilador.ast;
+
+import compilador.lexer.Token;
+import compilador.visitor.Visitor;
+
+import java.util.AbstractList;
+import java.util.List;
+
+/**
+ * Representação alternativa da AST, codificada em vetores de tipos primitivos
+ * em vez de um objeto por nó. Indicada para programas muito grandes: cada nó
+ * ocupa uma posição em cada vetor (tipo e dois campos inteiros, com índices de
+ * tokens ou de filhos) e as listas de filhos (declarações, comandos de um bloco)
+ * ficam num único vetor compartilhado.
+ *
+ * Como o Parser reduz cada nó logo depois do seu último filho, esse último
+ * filho é sempre o nó de índice imediatamente anterior e não precisa ser
+ * guardado. Assim bastam dois inteiros por nó. Layout por tipo:
+ * <pre>
+ *   PROGRAM       a = início das declarações em lists, b = quantidade; comando composto = nó anterior
+ *   VAR_DECL      a = token do identificador, b = token do tipo
+ *   BEGIN_END     a = início dos comandos em lists, b = quantidade
+ *   ASSIGN        a = token da variável; expressão = nó anterior
+ *   IF            a = condição, b = ramo então se houver senão (senão = nó anterior),
+ *                 ou -1 se não houver (então = nó anterior)
+ *   WHILE         a = condição; corpo = nó anterior
+ *   BINARY_OP     a = token do operador, b = operando esquerdo; direito = nó anterior
+ *   INT_LIT, BOOLEAN_LIT, VARIABLE_USE    a = token do literal/identificador
+ * </pre>
+ *
+ * Os visitors existentes podem percorrer esta representação sem alterações por
+ * meio de {@link #accept(Visitor)}: cada nó é materializado como um objeto comum
+ * apenas no momento da visita, com filhos preguiçosos, e descartado em seguida.
+ */
+public final class FlatAst {
+
+    public static final byte PROGRAM = 0;
+    public static final byte VAR_DECL = 1;
+    public static final byte BEGIN_END = 2;
+    public static final byte ASSIGN = 3;
+    public static final byte IF = 4;
+    public static final byte WHILE = 5;
+    public static final byte BINARY_OP = 6;
+    public static final byte INT_LIT = 7;
+    public static final byte BOOLEAN_LIT = 8;
+    public static final byte VARIABLE_USE = 9;
+
+    private final List<Token> tokens;
+    private final byte[] kinds;
+    private final int[] a;
+    private final int[] b;
+    private final int[] lists;
+    private final int size;
+
+    public FlatAst(List<Token> tokens, byte[] kinds, int[] a, int[] b, int[] lists, int size) {
+        this.tokens = tokens;
+        this.kinds = kinds;
+        this.a = a;
+        this.b = b;
+        this.lists = lists;
+        this.size = size;
+    }
+
+    // --- Acesso direto aos vetores ---
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return O índice da raiz: o último nó reduzido.
+     */
+    public int root() {
+        return size - 1;
+    }
+
+    public byte kind(int node) {
+        return kinds[node];
+    }
+
+    /**
+     * @return O token do nó (identificador, operador ou literal).
+     */
+    public Token token(int node) {
+        return tokens.get(a[node]);
+    }
+
+    /**
+     * @return O i-ésimo filho de um nó PROGRAM (declarações) ou BEGIN_END (comandos).
+     */
+    public int listElement(int node, int i) {
+        return lists[a[node] + i];
+    }
+
+    /**
+     * @return O tamanho da lista de um nó PROGRAM ou BEGIN_END.
+     */
+    public int listSize(int node) {
+        return b[node];
+    }
+
+    /**
+     * @return Uma estimativa dos bytes ocupados pelos vetores (sem contar os tokens).
+     */
+    public long estimatedBytes() {
+        long header = 16;
+        return 4 * header + kinds.length + 4L * (a.length + b.length + lists.length);
+    }
+
+    // --- Adaptador para os visitors ---
+
+    /**
+     * Percorre a árvore com um visitor escrito para a AST de objetos.
+     */
+    public <T> T accept(Visitor<T> visitor) {
+        return node(root()).accept(visitor);
+    }
+
+    /**
+     * Materializa um único nó como objeto da AST tradicional. Seus filhos são
+     * referências preguiçosas, materializadas apenas quando visitadas.
+     */
+    public ASTNode node(int index) {
+        int previous = index - 1;
+        switch (kinds[index]) {
+            case PROGRAM:
+                return new ProgramaNode(new LazyList(a[index], b[index]), new Ref(previous));
+            case VAR_DECL:
+                return new VarDeclNode(tokens.get(a[index]), tokens.get(b[index]));
+            case BEGIN_END:
+                return new BeginEndNode(new LazyList(a[index], b[index]));
+            case ASSIGN:
+                return new AssignNode(tokens.get(a[index]), new Ref(previous));
+            case IF:
+                return b[index] < 0
+                        ? new IfNode(new Ref(a[index]), new Ref(previous), null)
+                        : new IfNode(new Ref(a[index]), new Ref(b[index]), new Ref(previous));
+            case WHILE:
+                return new WhileNode(new Ref(a[index]), new Ref(previous));
+            case BINARY_OP:
+                return new BinaryOpNode(new Ref(b[index]), tokens.get(a[index]), new Ref(previous));
+            case INT_LIT:
+                return new IntLitNode(tokens.get(a[index]));
+            case BOOLEAN_LIT:
+                return new BooleanLitNode(tokens.get(a[index]));
+            case VARIABLE_USE:
+                return new VariableUseNode(tokens.get(a[index]));
+            default:
+                throw new IllegalStateException("Tipo de no desconhecido: " + kinds[index]);
+        }
+    }
+
+    /**
+     * Referência preguiçosa para um nó da AST plana.
+     */
+    private final class Ref extends NodeRef {
+        private final int index;
+
+        Ref(int index) {
+            this.index = index;
+        }
+
+        @Override
+        public ASTNode resolve() {
+            return node(index);
+        }
+    }
+
+    /**
+     * Visão de uma lista de filhos, sem copiar os índices.
+     */
+    private final class LazyList extends AbstractList<ASTNode> {
+        private final int start;
+        private final int count;
+
+        LazyList(int start, int count) {
+            this.start = start;
+            this.count = count;
+        }
+
+        @Override
+        public ASTNode get(int i) {
+            if (i < 0 || i >= count) {
+                throw new IndexOutOfBoundsException("Indice " + i + " fora da lista de " + count);
+            }
+            return new Ref(lists[start + i]);
+        }
+
+        @Override
+        public int size() {
+            return count;
+        }
+    }
+}
@@ -2,12 +2,13 @@ package compilador.ast;
 
 import compilador.visitor.Visitor;
 
-public class IfNode implements ASTNode {
+public class IfNode extends ASTNode {
     public final ASTNode condition;
     public final ASTNode thenBranch;
     public final ASTNode elseBranch; // Pode ser null
 
     public IfNode(ASTNode condition, ASTNode thenBranch, ASTNode elseBranch) {
+        super(NodeKind.IF);
         this.condition = condition;
         this.thenBranch = thenBranch;
         this.elseBranch = elseBranch;
@@ -3,10 +3,11 @@ package compilador.ast;
 import compilador.lexer.Token;
 import compilador.visitor.Visitor;
 
-public class IntLitNode implements ASTNode {
+public class IntLitNode extends ASTNode {
     public final Token value;
 
     public IntLitNode(Token value) {
+        super(NodeKind.INT_LIT);
         this.value = value;
     }
 
@@ -0,0 +1,22 @@
+package compilador.ast;
+
+/**
+ * Tipo de cada nó da AST. Guardado num campo final de {@link ASTNode}, permite
+ * que as passagens do compilador despachem com um switch em vez de chamar
+ * accept/visit, cujas chamadas de interface não podem ser inlined pela JVM
+ * quando há muitas implementações.
+ */
+public enum NodeKind {
+    PROGRAMA,
+    VAR_DECL,
+    BEGIN_END,
+    ASSIGN,
+    IF,
+    WHILE,
+    BINARY_OP,
+    INT_LIT,
+    BOOLEAN_LIT,
+    VARIABLE_USE,
+    /** Referência preguiçosa ({@link NodeRef}); deve ser resolvida antes do despacho. */
+    REF
+}
@@ -0,0 +1,25 @@
+package compilador.ast;
+
+import compilador.visitor.Visitor;
+
+/**
+ * Referência para um nó que só é materializado quando necessário
+ * (ex: os filhos dos nós da {@link FlatAst}). Seu tipo é sempre
+ * {@link NodeKind#REF}.
+ */
+public abstract class NodeRef extends ASTNode {
+
+    protected NodeRef() {
+        super(NodeKind.REF);
+    }
+
+    /**
+     * @return O nó referenciado, como objeto da AST.
+     */
+    public abstract ASTNode resolve();
+
+    @Override
+    public <T> T accept(Visitor<T> visitor) {
+        return resolve().accept(visitor);
+    }
+}
@@ -3,11 +3,12 @@ package compilador.ast;
 import compilador.visitor.Visitor;
 import java.util.List;
 
-public class ProgramaNode implements ASTNode {
+public class ProgramaNode extends ASTNode {
     public final List<ASTNode> declaracoes;
     public final ASTNode comandoComposto;
 
     public ProgramaNode(List<ASTNode> declaracoes, ASTNode comandoComposto) {
+        super(NodeKind.PROGRAMA);
         this.declaracoes = declaracoes;
         this.comandoComposto = comandoComposto;
     }
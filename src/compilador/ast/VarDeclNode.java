@@ -7,11 +7,12 @@ import compilador.visitor.Visitor;
  * Nó da AST que representa uma declaração de variável.
  * Ex: var idade : integer;
  */
-public class VarDeclNode implements ASTNode {
+public class VarDeclNode extends ASTNode {
     public final Token identifier;
     public final Token type;
 
     public VarDeclNode(Token identifier, Token type) {
+        super(NodeKind.VAR_DECL);
         this.identifier = identifier;
         this.type = type;
     }
@@ -6,10 +6,11 @@ import compilador.visitor.Visitor;
 /**
  * Nó da AST que representa o uso de uma variável em uma expressão.
  */
-public class VariableUseNode implements ASTNode {
+public class VariableUseNode extends ASTNode {
     public final Token identifier;
 
     public VariableUseNode(Token identifier) {
+        super(NodeKind.VARIABLE_USE);
         this.identifier = identifier;
     }
 
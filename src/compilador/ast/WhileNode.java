@@ -5,13 +5,14 @@ import compilador.visitor.Visitor;
 /**
  * Nó da AST para a estrutura de repetição 'while'.
  */
-public class WhileNode implements ASTNode {
+public class WhileNode extends ASTNode {
     // A expressão que serve como condição do laço
     public final ASTNode condition;
     // O comando ou bloco de comandos a ser executado
     public final ASTNode body;
 
     public WhileNode(ASTNode condition, ASTNode body) {
+        super(NodeKind.WHILE);
         this.condition = condition;
         this.body = body;
     }
@@ -0,0 +1,127 @@
+package compilador.bench;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Resultados guardados de uma execução anterior dos benchmarks, para
+ * comparar com a atual.
+ *
+ * Formato: um arquivo de texto com uma linha por medida,
+ * "benchmark TAB entrada TAB ops/s TAB erro TAB bytes/op"; linhas começando
+ * com '#' são comentários (o cabeçalho registra a JVM e a máquina em que as
+ * medidas foram feitas, já que só são comparáveis com as de um ambiente igual).
+ */
+public final class Baseline {
+
+    /**
+     * Diferença de alocação (bytes por operação) abaixo da qual não há
+     * regressão, qualquer que seja a porcentagem: evita alarmes em operações
+     * que quase não alocam.
+     */
+    static final double MIN_ALLOCATION_DELTA = 64;
+
+    private final Map<String, Measurement> measurements = new LinkedHashMap<>();
+
+    private Baseline() {
+    }
+
+    /**
+     * @throws IOException Se o arquivo não puder ser lido.
+     * @throws IllegalArgumentException Se uma linha estiver mal formada.
+     */
+    public static Baseline read(Path file) throws IOException {
+        Baseline baseline = new Baseline();
+        int lineNumber = 0;
+        for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+            lineNumber++;
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            String[] fields = line.split("\t");
+            if (fields.length != 5) {
+                throw new IllegalArgumentException("Linha " + lineNumber + " invalida em " + file + ": " + line);
+            }
+            try {
+                Measurement measurement = new Measurement(fields[0], fields[1], Double.parseDouble(fields[2]),
+                        Double.parseDouble(fields[3]), Double.parseDouble(fields[4]));
+                baseline.measurements.put(key(measurement), measurement);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Linha " + lineNumber + " invalida em " + file + ": " + line);
+            }
+        }
+        return baseline;
+    }
+
+    /**
+     * Grava as medidas como referência para as próximas execuções.
+     */
+    public static void write(Path file, List<Measurement> measurements) throws IOException {
+        List<String> lines = new ArrayList<>();
+        lines.add(String.format(Locale.ROOT, "# Java %s (%s), %s %s, %d processador(es)",
+                System.getProperty("java.version"), System.getProperty("java.vm.name"),
+                System.getProperty("os.name"), System.getProperty("os.arch"),
+                Runtime.getRuntime().availableProcessors()));
+        lines.add("# benchmark\tentrada\tops/s\terro\tbytes/op");
+        for (Measurement measurement : measurements) {
+            lines.add(String.format(Locale.ROOT, "%s\t%s\t%.3f\t%.3f\t%.1f", measurement.benchmark, measurement.input,
+                    measurement.opsPerSecond, measurement.error, measurement.bytesPerOp));
+        }
+        Files.write(file, lines, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Compara as medidas atuais com as guardadas e imprime uma linha por
+     * medida. É regressão a vazão cair mais do que o limite e mais do que a
+     * soma dos erros das duas medidas (os intervalos média ± erro não se
+     * sobrepõem), ou a alocação por operação subir mais do que o limite.
+     * Uma queda acima do limite, mas dentro do erro, é só ruído e aparece
+     * como "OK (ruido)".
+     * @param threshold O limite, em fração (ex: 0.10 para 10%).
+     * @return O número de regressões.
+     */
+    public int compare(List<Measurement> current, double threshold, PrintStream out) {
+        out.println(String.format(Locale.ROOT, "%-16s %-34s %14s %14s %8s %12s %12s  %s",
+                "Benchmark", "Entrada", "base ops/s", "ops/s", "var.", "base B/op", "B/op", "situacao"));
+        int regressions = 0;
+        for (Measurement measurement : current) {
+            Measurement base = measurements.get(key(measurement));
+            if (base == null) {
+                out.println(String.format(Locale.ROOT, "%-16s %-34s %14s %14.1f %8s %12s %12.0f  %s",
+                        measurement.benchmark, measurement.input, "-", measurement.opsPerSecond, "-", "-",
+                        measurement.bytesPerOp, "NOVO"));
+                continue;
+            }
+            double change = measurement.opsPerSecond / base.opsPerSecond - 1;
+            boolean significant = Math.abs(measurement.opsPerSecond - base.opsPerSecond)
+                    > measurement.error + base.error;
+            boolean slower = change < -threshold && significant;
+            boolean allocates = base.bytesPerOp >= 0 && measurement.bytesPerOp >= 0
+                    && measurement.bytesPerOp - base.bytesPerOp > MIN_ALLOCATION_DELTA
+                    && measurement.bytesPerOp > base.bytesPerOp * (1 + threshold);
+            String status = slower && allocates ? "REGRESSAO (vazao, alocacao)"
+                    : slower ? "REGRESSAO (vazao)"
+                    : allocates ? "REGRESSAO (alocacao)"
+                    : Math.abs(change) > threshold ? (significant ? "MELHORA" : "OK (ruido)") : "OK";
+            if (slower || allocates) {
+                regressions++;
+            }
+            out.println(String.format(Locale.ROOT, "%-16s %-34s %14.1f %14.1f %+7.1f%% %12.0f %12.0f  %s",
+                    measurement.benchmark, measurement.input, base.opsPerSecond, measurement.opsPerSecond,
+                    change * 100, base.bytesPerOp, measurement.bytesPerOp, status));
+        }
+        return regressions;
+    }
+
+    private static String key(Measurement measurement) {
+        return measurement.benchmark + '\t' + measurement.input;
+    }
+}
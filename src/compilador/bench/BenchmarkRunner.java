@@ -0,0 +1,294 @@
+package compilador.bench;
+
+import compilador.CompilationResult;
+import compilador.Compiler;
+import compilador.ast.ASTNode;
+import compilador.gen.ProgramGenerator;
+import compilador.lexer.Scanner;
+import compilador.lexer.Token;
+import compilador.parser.Parser;
+import compilador.tam.ExecutionLimits;
+import compilador.tam.TamMachine;
+import compilador.tam.TamProgram;
+import compilador.visitor.ASTPrinter;
+import compilador.visitor.CheckerVisitor;
+import compilador.visitor.CodeGenVisitor;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Benchmarks de cada etapa do compilador e da execução na TAM, sem
+ * dependências: mede a vazão (operações por segundo) e a alocação por
+ * operação, com iterações de aquecimento descartadas antes das de medição,
+ * como o JMH.
+ *
+ * Benchmarks: Scanner, Parser, CheckerVisitor, CodeGenVisitor, ASTPrinter,
+ * Compiler (do texto ao código-objeto) e TamMachine (execução do programa
+ * compilado). As entradas são os arquivos de casos_de_teste e programas
+ * sintéticos de vários tamanhos; os de etapa só usam as entradas que
+ * compilam sem erro, e o Compiler usa todas (os caminhos de erro também
+ * importam).
+ *
+ * Uso: java -cp out compilador.bench.BenchmarkRunner [opções]
+ *   --inputs dir     diretório com os programas de entrada (padrão: casos_de_teste)
+ *   --scale n,n...   número de comandos dos programas sintéticos (padrão: 100,10000)
+ *   --filter regex   só os benchmarks cujo nome contém a expressão
+ *   --warmup n       iterações de aquecimento (padrão: 3)
+ *   --iterations n   iterações de medição (padrão: 5)
+ *   --time ms        duração de cada iteração (padrão: 500)
+ *   --save arquivo   grava os resultados como referência
+ *   --baseline arquivo  compara com uma referência gravada por --save
+ *   --threshold pct  variação que conta como regressão (padrão: 10)
+ *   --help           exibe as opções
+ *
+ * A vazão só é marcada como regressão se cair mais do que o limite e mais
+ * do que a soma dos erros (desvios-padrão) da referência e da medida atual.
+ * A referência de casos_de_teste fica em bench/referencia.tsv.
+ *
+ * Código de saída: 0 sem regressões, 1 se houve alguma e 2 para uso incorreto.
+ * Para resultados estáveis, rode numa JVM sem outras cargas; a alocação
+ * por operação vem do ThreadMXBean da JVM (como o "-prof gc" do JMH).
+ */
+public class BenchmarkRunner {
+
+    private static final String USAGE = String.join("\n",
+            "Uso: java -cp out compilador.bench.BenchmarkRunner [opcoes]",
+            "  --inputs dir     diretorio com os programas de entrada (padrao: casos_de_teste)",
+            "  --scale n,n...   numero de comandos dos programas sinteticos (padrao: 100,10000)",
+            "  --filter regex   so os benchmarks cujo nome contem a expressao",
+            "  --warmup n       iteracoes de aquecimento (padrao: 3)",
+            "  --iterations n   iteracoes de medicao (padrao: 5)",
+            "  --time ms        duracao de cada iteracao (padrao: 500)",
+            "  --save arquivo   grava os resultados como referencia",
+            "  --baseline arquivo  compara com uma referencia gravada por --save",
+            "  --threshold pct  variacao que conta como regressao (padrao: 10)",
+            "  --help           exibe estas opcoes");
+
+    private Path inputDirectory = Paths.get("casos_de_teste");
+    private int[] scales = {100, 10_000};
+    private Pattern filter;
+    private int warmupIterations = 3;
+    private int iterations = 5;
+    private long iterationMillis = 500;
+    private Path savePath;
+    private Path baselinePath;
+    private double threshold = 0.10;
+    private boolean help = false;
+
+    public static void main(String[] args) {
+        System.exit(new BenchmarkRunner().run(args, System.out));
+    }
+
+    /**
+     * Executa os benchmarks.
+     * @return O código de saída do processo (ver a documentação da classe).
+     */
+    public int run(String[] args, PrintStream out) {
+        try {
+            if (!parseArguments(args, out)) {
+                return 2;
+            }
+        } catch (NumberFormatException e) {
+            out.println("Valor numerico invalido: " + e.getMessage());
+            return 2;
+        }
+        if (help) {
+            out.println(USAGE);
+            return 0;
+        }
+
+        Baseline baseline = null;
+        if (baselinePath != null) {
+            try {
+                baseline = Baseline.read(baselinePath);
+            } catch (IOException | IllegalArgumentException e) {
+                out.println("Erro ao ler a referencia: " + e.getMessage());
+                return 2;
+            }
+        }
+
+        Map<String, String> inputs;
+        try {
+            inputs = loadInputs();
+        } catch (IOException e) {
+            out.println("Erro ao ler as entradas: " + e.getMessage());
+            return 2;
+        }
+
+        out.println(String.format(Locale.ROOT, "%-16s %-34s %14s %12s %14s %12s",
+                "Benchmark", "Entrada", "ops/s", "erro", "B/op", "MB/s alocados"));
+        List<Measurement> measurements = new ArrayList<>();
+        try {
+            for (Map.Entry<String, String> input : inputs.entrySet()) {
+                runInput(input.getKey(), input.getValue(), measurements, out);
+            }
+        } catch (Exception e) {
+            out.println("Falha inesperada no benchmark: " + e);
+            return 2;
+        }
+
+        if (savePath != null) {
+            try {
+                Baseline.write(savePath, measurements);
+                out.println("Referencia gravada em " + savePath);
+            } catch (IOException e) {
+                out.println("Erro ao gravar a referencia: " + e.getMessage());
+                return 2;
+            }
+        }
+        if (baseline == null) {
+            return 0;
+        }
+        out.println();
+        out.println(String.format(Locale.ROOT, "Comparacao com %s (limite de %.0f%%):", baselinePath, threshold * 100));
+        int regressions = baseline.compare(measurements, threshold, out);
+        out.println(regressions + " regressao(oes).");
+        return regressions == 0 ? 0 : 1;
+    }
+
+    private boolean parseArguments(String[] args, PrintStream out) {
+        for (int i = 0; i < args.length; i++) {
+            String option = args[i];
+            if (option.equals("--help") || option.equals("-h")) {
+                help = true;
+                return true;
+            }
+            if (!option.startsWith("--")) {
+                out.println("Argumento inesperado: " + option);
+                return false;
+            }
+            if (i + 1 >= args.length) {
+                out.println("A opcao " + option + " exige um valor.");
+                return false;
+            }
+            String value = args[++i];
+            switch (option) {
+                case "--inputs":
+                    inputDirectory = Paths.get(value);
+                    break;
+                case "--scale":
+                    scales = value.isEmpty()
+                            ? new int[0]
+                            : Stream.of(value.split(",")).mapToInt(s -> Integer.parseInt(s.trim())).toArray();
+                    break;
+                case "--filter":
+                    filter = Pattern.compile(value);
+                    break;
+                case "--warmup":
+                    warmupIterations = Integer.parseInt(value);
+                    break;
+                case "--iterations":
+                    iterations = Integer.parseInt(value);
+                    break;
+                case "--time":
+                    iterationMillis = Long.parseLong(value);
+                    break;
+                case "--save":
+                    savePath = Paths.get(value);
+                    break;
+                case "--baseline":
+                    baselinePath = Paths.get(value);
+                    break;
+                case "--threshold":
+                    threshold = Double.parseDouble(value) / 100;
+                    break;
+                default:
+                    out.println("Opcao desconhecida: " + option);
+                    out.println(USAGE);
+                    return false;
+            }
+        }
+        if (iterations < 1 || warmupIterations < 0 || iterationMillis < 1) {
+            out.println("Sao necessarias ao menos 1 iteracao de medicao e 1 ms por iteracao.");
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * @return As entradas, do nome ao texto: os arquivos .txt do diretório,
+     *         em ordem alfabética, e os programas sintéticos.
+     */
+    private Map<String, String> loadInputs() throws IOException {
+        Map<String, String> inputs = new LinkedHashMap<>();
+        if (Files.isDirectory(inputDirectory)) {
+            List<Path> files;
+            try (Stream<Path> list = Files.list(inputDirectory)) {
+                files = list.filter(p -> p.getFileName().toString().endsWith(".txt"))
+                        .sorted()
+                        .collect(Collectors.toList());
+            }
+            for (Path file : files) {
+                inputs.put(file.getFileName().toString(), new String(Files.readAllBytes(file), StandardCharsets.UTF_8));
+            }
+        }
+        for (int statements : scales) {
+            inputs.put("sintetico-" + statements, synthetic(statements));
+        }
+        return inputs;
+    }
+
+    /**
+     * Programa válido com o número de comandos no bloco principal, gerado
+     * pelo {@link ProgramGenerator} com a configuração padrão e semente fixa,
+     * sempre igual para o mesmo tamanho.
+     */
+    static String synthetic(int statements) {
+        ProgramGenerator generator = new ProgramGenerator();
+        generator.setStatements(statements);
+        return generator.generate();
+    }
+
+    /**
+     * Mede os benchmarks de uma entrada e imprime uma linha por benchmark.
+     */
+    private void runInput(String name, String source, List<Measurement> measurements, PrintStream out) throws Exception {
+        Map<String, Measurement.Operation> benchmarks = new LinkedHashMap<>();
+        Compiler compiler = new Compiler();
+        CompilationResult result = compiler.compile(source);
+        if (result.isSuccess()) {
+            // Entradas de cada etapa, preparadas uma vez fora da medição
+            List<Token> tokens = new Scanner(source).scanTokens();
+            ASTNode ast = new Parser(tokens).parse();
+
+            benchmarks.put("Scanner", () -> new Scanner(source).scanTokens());
+            benchmarks.put("Parser", () -> new Parser(tokens).parse());
+            benchmarks.put("CheckerVisitor", () -> ast.accept(new CheckerVisitor()));
+            benchmarks.put("CodeGenVisitor", () -> {
+                CodeGenVisitor codeGen = new CodeGenVisitor();
+                ast.accept(codeGen);
+                return codeGen.getObjectCode();
+            });
+            benchmarks.put("ASTPrinter", () -> ast.accept(new ASTPrinter()));
+        }
+        benchmarks.put("Compiler", () -> compiler.compile(source));
+        if (result.isSuccess()) {
+            TamProgram program = TamProgram.assemble(result.getObjectCode());
+            TamMachine machine = new TamMachine(ExecutionLimits.defaults());
+            benchmarks.put("TamMachine", () -> machine.execute(program));
+        }
+
+        for (Map.Entry<String, Measurement.Operation> benchmark : benchmarks.entrySet()) {
+            if (filter != null && !filter.matcher(benchmark.getKey()).find()) {
+                continue;
+            }
+            Measurement measurement = Measurement.measure(benchmark.getKey(), name, benchmark.getValue(),
+                    warmupIterations, iterations, iterationMillis * 1_000_000);
+            measurements.add(measurement);
+            out.println(measurement);
+        }
+    }
+}
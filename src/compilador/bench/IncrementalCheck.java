@@ -0,0 +1,250 @@
+package compilador.bench;
+
+import compilador.CompilationResult;
+import compilador.Compiler;
+import compilador.IncrementalCompiler;
+import compilador.visitor.ASTPrinter;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Verificação do {@link IncrementalCompiler}: aplica sequências de edições
+ * aleatórias (inserir trechos de código, apagar caracteres, trocar, duplicar
+ * ou remover linhas, tirar o ';') a cada programa de entrada e, a cada
+ * versão, compara o resultado incremental com o de uma compilação completa
+ * por {@link Compiler#compile(String)}: a etapa, a mensagem de erro, a lista
+ * de erros (com as linhas, inclusive os léxicos e o corte no limite de
+ * {@link compilador.diagnostics.Diagnostics}), o código-objeto e a AST
+ * impressa devem ser iguais. Nenhuma das duas compilações deve escrever em
+ * System.err.
+ *
+ * Uso: java -cp out compilador.bench.IncrementalCheck [opções] [arquivo|diretório...]
+ *   --steps n   edições por programa (padrão: 300)
+ *   --seed n    semente das edições; a mesma semente repete as mesmas versões (padrão: 1)
+ * Sem arquivos, usa os .txt de casos_de_teste.
+ *
+ * Código de saída: 0 se todas as versões coincidiram, 1 se alguma divergiu
+ * (a primeira divergência é impressa com o texto da versão) e 2 para uso
+ * incorreto.
+ */
+public class IncrementalCheck {
+
+    /** Trechos inseridos nas edições: comandos, declarações e fragmentos soltos. */
+    private static final String[] SNIPPETS = {
+        "x := 1;", "i0 := i1 + 2;", "b0 := i0 < 3;", "if b1 then i2 := 4 else i3 := 5;",
+        "while b2 do begin i4 := i4 - 1; end;", "begin end;", "zz := 1;", "b0 := 7;",
+        "var zz : integer;", "var i0 : boolean;", "var q : boolean;", "// comentario\n", "\n", ";",
+        "begin", "end", "end;", "if", "then", "(", ")", "@", "99999999999", "i0", " ", ":= ", "//"
+    };
+
+    /** Os primeiros trechos são linhas inteiras, usadas nas edições de linha. */
+    private static final int LINE_SNIPPETS = 11;
+
+    private int steps = 300;
+    private long seed = 1;
+    private final List<Path> inputs = new ArrayList<>();
+
+    public static void main(String[] args) {
+        System.exit(new IncrementalCheck().run(args, System.out));
+    }
+
+    /**
+     * Executa a verificação.
+     * @return O código de saída do processo (ver a documentação da classe).
+     */
+    public int run(String[] args, PrintStream out) {
+        try {
+            if (!parseArguments(args, out)) {
+                return 2;
+            }
+        } catch (NumberFormatException e) {
+            out.println("Valor numerico invalido: " + e.getMessage());
+            return 2;
+        }
+
+        List<Path> files;
+        try {
+            files = collectSources();
+        } catch (IOException e) {
+            out.println("Erro ao listar os arquivos: " + e.getMessage());
+            return 2;
+        }
+        if (files.isEmpty()) {
+            out.println("Nenhum arquivo-fonte encontrado.");
+            return 2;
+        }
+
+        int versions = 0;
+        int mismatches = 0;
+        Map<CompilationResult.Phase, Integer> phases = new TreeMap<>();
+        for (int f = 0; f < files.size(); f++) {
+            String source;
+            try {
+                source = new String(Files.readAllBytes(files.get(f)), StandardCharsets.UTF_8);
+            } catch (IOException e) {
+                out.println("Erro ao ler " + files.get(f) + ": " + e.getMessage());
+                return 2;
+            }
+            Random random = new Random(seed * 31 + f);
+            IncrementalCompiler incremental = new IncrementalCompiler();
+            String text = source;
+            String lastParsed = source;
+            for (int step = 0; step < steps; step++) {
+                CompilationResult expected = new Compiler().compile(text);
+                CompilationResult actual = incremental.compile(text);
+                versions++;
+                phases.merge(expected.getPhase(), 1, Integer::sum);
+                String expectedKey = describe(expected);
+                String actualKey = describe(actual);
+                if (!expectedKey.equals(actualKey)) {
+                    if (mismatches++ == 0) {
+                        out.println("Divergencia em " + files.get(f) + ", edicao " + step + ". Versao:");
+                        out.println(text);
+                        out.println("--- completa:");
+                        out.println(expectedKey);
+                        out.println("--- incremental:");
+                        out.println(actualKey);
+                    }
+                }
+                if (expected.getPhase() != CompilationResult.Phase.SYNTAX) {
+                    lastParsed = text;
+                }
+                // Às vezes volta à última versão sem erro de sintaxe, como um editor
+                if (random.nextInt(4) == 0) {
+                    text = lastParsed;
+                }
+                text = edit(text, random);
+            }
+        }
+        out.println(versions + " versao(oes) de " + files.size() + " arquivo(s), " + mismatches
+                + " divergencia(s); etapas: " + phases);
+        return mismatches == 0 ? 0 : 1;
+    }
+
+    /**
+     * @return O que deve coincidir entre as duas compilações, como texto.
+     */
+    private static String describe(CompilationResult result) {
+        return "etapa: " + result.getPhase()
+                + "\nmensagem: " + result.getErrorMessage()
+                + "\nerros: " + result.getDiagnostics().stream()
+                        .map(d -> d.kind + " " + d)
+                        .collect(Collectors.toList())
+                + "\ncodigo:\n" + result.getObjectCode()
+                + "\nast:\n" + (result.getAst() == null ? null : result.getAst().accept(new ASTPrinter()));
+    }
+
+    /**
+     * @return O texto com uma edição aleatória.
+     */
+    static String edit(String text, Random random) {
+        int kind = random.nextInt(10);
+        int length = text.length();
+        if (kind < 3) {
+            // Edição de linha (a primeira, com o cabeçalho, fica)
+            List<String> lines = new ArrayList<>(Arrays.asList(text.split("\n", -1)));
+            int line = 1 + random.nextInt(Math.max(1, lines.size() - 1));
+            switch (random.nextInt(4)) {
+                case 0:
+                    if (lines.size() > 3) {
+                        lines.remove(line);
+                    }
+                    break;
+                case 1:
+                    lines.add(line, lines.get(Math.min(line, lines.size() - 1)));
+                    break;
+                case 2:
+                    lines.add(line, SNIPPETS[random.nextInt(LINE_SNIPPETS)]);
+                    break;
+                default:
+                    if (line < lines.size()) {
+                        lines.set(line, lines.get(line).replace(";", ""));
+                    }
+                    break;
+            }
+            return String.join("\n", lines);
+        }
+        int position = random.nextInt(length + 1);
+        if (kind < 6) {
+            return text.substring(0, position) + SNIPPETS[random.nextInt(SNIPPETS.length)] + text.substring(position);
+        }
+        if (kind < 8) {
+            int end = Math.min(length, position + random.nextInt(6));
+            return text.substring(0, position) + text.substring(end);
+        }
+        // Troca um dígito ou uma letra, ou quebra a linha
+        if (position < length && Character.isLetterOrDigit(text.charAt(position))) {
+            char c = text.charAt(position);
+            char replacement = Character.isDigit(c) ? (char) ('0' + random.nextInt(10)) : (char) ('a' + random.nextInt(3));
+            return text.substring(0, position) + replacement + text.substring(position + 1);
+        }
+        return text.substring(0, position) + "\n" + text.substring(position);
+    }
+
+    private boolean parseArguments(String[] args, PrintStream out) {
+        for (int i = 0; i < args.length; i++) {
+            String option = args[i];
+            if (!option.startsWith("--")) {
+                inputs.add(Paths.get(option));
+                continue;
+            }
+            if (i + 1 >= args.length) {
+                out.println("A opcao " + option + " exige um valor.");
+                return false;
+            }
+            String value = args[++i];
+            switch (option) {
+                case "--steps":
+                    steps = Integer.parseInt(value);
+                    break;
+                case "--seed":
+                    seed = Long.parseLong(value);
+                    break;
+                default:
+                    out.println("Opcao desconhecida: " + option);
+                    return false;
+            }
+        }
+        if (steps < 1) {
+            out.println("E necessaria ao menos 1 edicao por programa.");
+            return false;
+        }
+        if (inputs.isEmpty()) {
+            inputs.add(Paths.get("casos_de_teste"));
+        }
+        return true;
+    }
+
+    /**
+     * @return Os arquivos de entrada, com os diretórios trocados pelos seus
+     *         .txt em ordem alfabética.
+     */
+    private List<Path> collectSources() throws IOException {
+        List<Path> files = new ArrayList<>();
+        for (Path input : inputs) {
+            if (!Files.isDirectory(input)) {
+                files.add(input);
+                continue;
+            }
+            try (Stream<Path> list = Files.list(input)) {
+                files.addAll(list.filter(p -> p.getFileName().toString().endsWith(".txt"))
+                        .sorted()
+                        .collect(Collectors.toList()));
+            }
+        }
+        return files;
+    }
+}
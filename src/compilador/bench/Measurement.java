@@ -0,0 +1,105 @@
+package compilador.bench;
+
+import compilador.metrics.CompilationMetrics;
+
+import java.util.Locale;
+
+/**
+ * Resultado de um benchmark numa entrada: a vazão média (operações por
+ * segundo) das iterações de medição, o desvio padrão entre elas e os bytes
+ * alocados por operação.
+ */
+public final class Measurement {
+
+    /**
+     * Uma operação medida. O valor devolvido é consumido, para que o JIT não
+     * elimine o trabalho que o produziu.
+     */
+    public interface Operation {
+        Object run() throws Exception;
+    }
+
+    // Consome os resultados das operações (o "blackhole" do JMH)
+    private static volatile int sink;
+
+    public final String benchmark;
+    public final String input;
+    public final double opsPerSecond;
+    public final double error;
+    /** Bytes alocados por operação, ou -1 se a JVM não informa. */
+    public final double bytesPerOp;
+
+    public Measurement(String benchmark, String input, double opsPerSecond, double error, double bytesPerOp) {
+        this.benchmark = benchmark;
+        this.input = input;
+        this.opsPerSecond = opsPerSecond;
+        this.error = error;
+        this.bytesPerOp = bytesPerOp;
+    }
+
+    /**
+     * Executa a operação repetidamente: primeiro as iterações de aquecimento,
+     * descartadas, depois as de medição. Cada iteração repete a operação até
+     * passar o tempo informado.
+     */
+    static Measurement measure(String benchmark, String input, Operation operation,
+                               int warmupIterations, int iterations, long iterationNanos) throws Exception {
+        for (int i = 0; i < warmupIterations; i++) {
+            iteration(operation, iterationNanos, null);
+        }
+        double[] throughput = new double[iterations];
+        long[] allocation = new long[2]; // bytes, operações
+        for (int i = 0; i < iterations; i++) {
+            throughput[i] = iteration(operation, iterationNanos, allocation);
+        }
+        double mean = 0;
+        for (double value : throughput) {
+            mean += value;
+        }
+        mean /= iterations;
+        double variance = 0;
+        for (double value : throughput) {
+            variance += (value - mean) * (value - mean);
+        }
+        double error = iterations > 1 ? Math.sqrt(variance / (iterations - 1)) : 0;
+        double bytesPerOp = allocation[0] < 0 ? -1 : (double) allocation[0] / allocation[1];
+        return new Measurement(benchmark, input, mean, error, bytesPerOp);
+    }
+
+    /**
+     * @param allocation Acumula os bytes alocados e as operações; null no aquecimento.
+     * @return A vazão da iteração, em operações por segundo.
+     */
+    private static double iteration(Operation operation, long iterationNanos, long[] allocation) throws Exception {
+        int hash = 0;
+        long operations = 0;
+        long startBytes = CompilationMetrics.allocatedBytes();
+        long start = System.nanoTime();
+        long elapsed;
+        do {
+            hash += System.identityHashCode(operation.run());
+            operations++;
+            elapsed = System.nanoTime() - start;
+        } while (elapsed < iterationNanos);
+        long endBytes = CompilationMetrics.allocatedBytes();
+        sink = hash;
+        if (allocation != null) {
+            allocation[0] = startBytes < 0 || allocation[0] < 0 ? -1 : allocation[0] + endBytes - startBytes;
+            allocation[1] += operations;
+        }
+        return operations * 1e9 / elapsed;
+    }
+
+    /**
+     * @return A taxa de alocação, em MB por segundo, ou -1 se desconhecida.
+     */
+    public double allocationRate() {
+        return bytesPerOp < 0 ? -1 : opsPerSecond * bytesPerOp / (1024 * 1024);
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT, "%-16s %-34s %14.1f %12.1f %14.0f %12.1f",
+                benchmark, input, opsPerSecond, error, bytesPerOp, allocationRate());
+    }
+}
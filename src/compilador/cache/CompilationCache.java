@@ -0,0 +1,238 @@
+package compilador.cache;
+
+import compilador.CompilationResult;
+import compilador.Compiler;
+import compilador.diagnostics.Diagnostic;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Cache de compilação em disco, endereçado pelo conteúdo.
+ *
+ * A chave de cada entrada é o SHA-256 dos bytes do fonte junto com a versão
+ * do compilador e as opções de compilação. Uma entrada guarda o código TAM
+ * (ou o diagnóstico de erro) de forma que um acerto devolve o resultado sem
+ * executar Scanner, Parser ou CheckerVisitor. O tamanho total é limitado:
+ * quando excedido, as entradas usadas há mais tempo (LRU, pela data de
+ * modificação, atualizada a cada acerto) são removidas.
+ */
+public class CompilationCache {
+
+    private static final String ENTRY_SUFFIX = ".entry";
+
+    private final Path directory;
+    private final long maxBytes;
+    private final AtomicLong currentBytes = new AtomicLong();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong bytesSaved = new AtomicLong();
+
+    /**
+     * Abre (ou cria) um cache no diretório informado.
+     * @param directory O diretório onde as entradas são gravadas.
+     * @param maxBytes  O tamanho máximo ocupado pelas entradas.
+     */
+    public CompilationCache(Path directory, long maxBytes) throws IOException {
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+        Files.createDirectories(directory);
+        for (Path entry : listEntries()) {
+            currentBytes.addAndGet(sizeOf(entry));
+        }
+    }
+
+    /**
+     * Devolve o resultado em cache para o fonte ou, em caso de falta, compila
+     * com o compilador informado e grava o resultado.
+     * @param compiler O compilador usado nas faltas.
+     * @param source   O código-fonte.
+     * @param options  As opções de compilação (entram na chave).
+     */
+    public CompilationResult compile(Compiler compiler, String source, String options) {
+        byte[] sourceBytes = source.getBytes(StandardCharsets.UTF_8);
+        Path entry = directory.resolve(key(sourceBytes, options) + ENTRY_SUFFIX);
+
+        CompilationResult cached = read(entry);
+        if (cached != null) {
+            hits.incrementAndGet();
+            bytesSaved.addAndGet(sourceBytes.length);
+            return cached;
+        }
+
+        misses.incrementAndGet();
+        CompilationResult result = compiler.compile(source);
+        write(entry, result);
+        return result;
+    }
+
+    /**
+     * Calcula a chave: SHA-256 de versão, opções e bytes do fonte, em hexadecimal.
+     */
+    static String key(byte[] sourceBytes, String options) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update((Compiler.VERSION + '\0' + options + '\0').getBytes(StandardCharsets.UTF_8));
+            byte[] hash = digest.digest(sourceBytes);
+            StringBuilder hex = new StringBuilder(hash.length * 2);
+            for (byte b : hash) {
+                hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 indisponivel nesta JVM.", e);
+        }
+    }
+
+    /**
+     * Lê uma entrada. Formato: a primeira linha é a etapa em que a compilação
+     * parou (DONE em caso de sucesso); a segunda, o número N de erros
+     * registrados, seguida de N linhas "TIPO LINHA mensagem"; as demais são o
+     * código TAM ou a mensagem de erro.
+     * @return O resultado, ou null se a entrada não existe ou está corrompida.
+     */
+    private CompilationResult read(Path entry) {
+        try {
+            List<String> lines = Files.readAllLines(entry, StandardCharsets.UTF_8);
+            if (lines.isEmpty()) {
+                return null;
+            }
+            // Atualiza a data de uso para a política LRU
+            Files.setLastModifiedTime(entry, FileTime.fromMillis(System.currentTimeMillis()));
+
+            CompilationResult.Phase phase = CompilationResult.Phase.valueOf(lines.get(0));
+            int count = Integer.parseInt(lines.get(1));
+            List<Diagnostic> diagnostics = new ArrayList<>(count);
+            for (int i = 2; i < 2 + count; i++) {
+                String[] fields = lines.get(i).split(" ", 3);
+                diagnostics.add(new Diagnostic(Diagnostic.Kind.valueOf(fields[0]), Integer.parseInt(fields[1]), fields[2]));
+            }
+            List<String> body = new ArrayList<>(lines.subList(2 + count, lines.size()));
+            if (phase == CompilationResult.Phase.DONE) {
+                return new CompilationResult(null, body, phase, null, diagnostics);
+            }
+            return new CompilationResult(null, null, phase, String.join("\n", body), diagnostics);
+        } catch (IOException | IllegalArgumentException | IndexOutOfBoundsException e) {
+            // Entrada inexistente ou corrompida: trata como falta
+            return null;
+        }
+    }
+
+    private void write(Path entry, CompilationResult result) {
+        StringBuilder content = new StringBuilder();
+        content.append(result.getPhase().name()).append('\n');
+        content.append(result.getDiagnostics().size()).append('\n');
+        for (Diagnostic diagnostic : result.getDiagnostics()) {
+            content.append(diagnostic.kind.name()).append(' ').append(diagnostic.line).append(' ')
+                    .append(diagnostic.message.replace('\n', ' ')).append('\n');
+        }
+        if (result.isSuccess()) {
+            for (String instruction : result.getObjectCode()) {
+                content.append(instruction).append('\n');
+            }
+        } else {
+            content.append(result.getErrorMessage()).append('\n');
+        }
+        byte[] bytes = content.toString().getBytes(StandardCharsets.UTF_8);
+
+        try {
+            // Grava num arquivo temporário e move, para que leitores concorrentes
+            // nunca vejam uma entrada pela metade
+            Path temp = Files.createTempFile(directory, "tmp", ".part");
+            Files.write(temp, bytes);
+            try {
+                Files.move(temp, entry, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, entry, StandardCopyOption.REPLACE_EXISTING);
+            }
+            if (currentBytes.addAndGet(bytes.length) > maxBytes) {
+                evict();
+            }
+        } catch (IOException e) {
+            // O cache é apenas uma otimização: falhas de gravação não afetam a compilação
+        }
+    }
+
+    /**
+     * Remove as entradas menos recentemente usadas até voltar ao limite de tamanho.
+     */
+    private synchronized void evict() throws IOException {
+        if (currentBytes.get() <= maxBytes) {
+            return;
+        }
+        List<Path> entries = listEntries();
+        entries.sort(Comparator.comparing(CompilationCache::lastModified));
+        long total = 0;
+        for (Path entry : entries) {
+            total += sizeOf(entry);
+        }
+        for (Path entry : entries) {
+            if (total <= maxBytes) {
+                break;
+            }
+            long size = sizeOf(entry);
+            if (Files.deleteIfExists(entry)) {
+                total -= size;
+            }
+        }
+        currentBytes.set(total);
+    }
+
+    private List<Path> listEntries() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(p -> p.getFileName().toString().endsWith(ENTRY_SUFFIX))
+                    .collect(Collectors.toCollection(ArrayList::new));
+        }
+    }
+
+    private static long sizeOf(Path entry) {
+        try {
+            return Files.size(entry);
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    private static FileTime lastModified(Path entry) {
+        try {
+            return Files.getLastModifiedTime(entry);
+        } catch (IOException e) {
+            return FileTime.fromMillis(0);
+        }
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * @return A soma do tamanho dos fontes que não precisaram ser recompilados.
+     */
+    public long getBytesSaved() {
+        return bytesSaved.get();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Cache: %d acerto(s), %d falta(s), %d bytes de fonte nao recompilados, %d bytes em disco",
+                getHits(), getMisses(), getBytesSaved(), currentBytes.get());
+    }
+}
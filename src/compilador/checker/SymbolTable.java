@@ -1,5 +1,7 @@
 package compilador.checker;
 
+import compilador.diagnostics.CompilationError;
+
 import java.util.HashMap;
 import java.util.Map;
 
@@ -20,12 +22,27 @@ public class SymbolTable {
      * @param entry A entrada do identificador a ser adicionada.
      */
     public void add(IdEntry entry) {
-        String name = entry.token.lexeme;
-        if (table.containsKey(name)) {
+        if (!addIfAbsent(entry)) {
             // Regra de escopo: não permitir declarações duplicadas
-            throw new Error("Erro de contexto: Variavel '" + name + "' ja declarada.");
+            throw new CompilationError(duplicateMessage(entry.token.lexeme), entry.token.line);
         }
-        table.put(name, entry);
+    }
+
+    /**
+     * Adiciona uma nova entrada à tabela, se o identificador ainda não foi
+     * declarado; não lança erro.
+     * @param entry A entrada do identificador a ser adicionada.
+     * @return false se o identificador já estava declarado (a tabela não muda).
+     */
+    public boolean addIfAbsent(IdEntry entry) {
+        return table.putIfAbsent(entry.token.lexeme, entry) == null;
+    }
+
+    /**
+     * @return A mensagem do erro de declaração duplicada.
+     */
+    public static String duplicateMessage(String name) {
+        return "Erro de contexto: Variavel '" + name + "' ja declarada.";
     }
 
     /**
@@ -36,4 +53,18 @@ public class SymbolTable {
     public IdEntry find(String name) {
         return table.get(name);
     }
+
+    /**
+     * @return O número de identificadores declarados.
+     */
+    public int size() {
+        return table.size();
+    }
+
+    /**
+     * Remove todas as entradas, para reutilizar a tabela em outra compilação.
+     */
+    public void clear() {
+        table.clear();
+    }
 }
\ No newline at end of file
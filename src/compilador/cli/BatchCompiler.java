@@ -0,0 +1,454 @@
+package compilador.cli;
+
+import compilador.CompilationResult;
+import compilador.Compiler;
+import compilador.cache.CompilationCache;
+import compilador.diagnostics.Diagnostic;
+import compilador.metrics.CompilationMetrics;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Driver de linha de comando (sem interface gráfica) que compila arquivos
+ * ou árvores de diretórios em paralelo.
+ *
+ * Uso: java -cp out compilador.Main [opções] arquivo|diretório...
+ *   --ext .txt    extensão dos fontes procurados nos diretórios (padrão: .txt)
+ *   --no-write    não grava os arquivos .tam
+ *   --cache dir   reutiliza resultados de compilações anteriores guardados em dir
+ *   --cache-size n  tamanho máximo do cache em MB (padrão: 64)
+ *   --fused       verifica e gera o código numa única passagem, sem construir a AST
+ *   --stream      como --fused, mas lendo o fonte e gravando o .tam aos poucos, com
+ *                 memória limitada pelo maior comando (não pode ser usado com --cache)
+ *   --pipeline    como --stream, com a análise léxica, a sintática e a verificação/geração
+ *                 em threads separadas
+ *   --parallel-codegen  gera o código dos comandos do bloco principal em paralelo
+ *   --metrics     mede o tempo, as alocações e as contagens de cada etapa e exibe a
+ *                 soma de todos os arquivos numa tabela (não pode ser usado com --stream
+ *                 nem com --cache)
+ *   --metrics-json arquivo  como --metrics, gravando também as medidas de cada arquivo em JSON
+ *
+ *   --watch       observa um diretório e recompila os arquivos alterados (ver WatchMode)
+ *
+ * Cada fonte gera um arquivo .tam ao seu lado. Ao final é exibido um resumo
+ * por arquivo (OK/ERRO) e a vazão total em arquivos por segundo.
+ */
+public class BatchCompiler {
+
+    private static final String USAGE =
+            "Uso: compilador.Main [--ext .txt] [--no-write] [--cache dir] [--cache-size MB] [--fused | --stream | --pipeline | --parallel-codegen] [--metrics] [--metrics-json arquivo] arquivo|diretorio...";
+
+    private String sourceExtension = ".txt";
+    private boolean writeOutput = true;
+    private Path cacheDirectory;
+    private long cacheMegabytes = 64;
+    private boolean fused = false;
+    private boolean stream = false;
+    private boolean pipeline = false;
+    private boolean parallelCodeGen = false;
+    private boolean metrics = false;
+    private Path metricsJson;
+    private CompilationCache cache;
+    private final List<Path> inputs = new ArrayList<>();
+
+    /**
+     * Resultado da compilação de um arquivo.
+     */
+    private static final class FileOutcome {
+        final Path source;
+        final CompilationResult result;
+        final long elapsedNanos;
+        final String ioError;
+
+        FileOutcome(Path source, CompilationResult result, long elapsedNanos, String ioError) {
+            this.source = source;
+            this.result = result;
+            this.elapsedNanos = elapsedNanos;
+            this.ioError = ioError;
+        }
+
+        boolean passed() {
+            return ioError == null && result.isSuccess();
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (Arrays.asList(args).contains("--watch")) {
+            WatchMode.main(args);
+            return;
+        }
+        System.exit(new BatchCompiler().run(args, System.out));
+    }
+
+    /**
+     * Executa o driver.
+     * @return O código de saída do processo: 0 se todos os arquivos compilaram,
+     *         1 se algum falhou e 2 para uso incorreto.
+     */
+    public int run(String[] args, PrintStream out) {
+        if (!parseArguments(args, out)) {
+            return 2;
+        }
+
+        List<Path> sources;
+        try {
+            sources = collectSources();
+        } catch (IOException e) {
+            out.println("Erro ao listar os arquivos: " + e.getMessage());
+            return 2;
+        }
+        if (sources.isEmpty()) {
+            out.println("Nenhum arquivo-fonte encontrado.");
+            return 2;
+        }
+
+        if (cacheDirectory != null) {
+            try {
+                cache = new CompilationCache(cacheDirectory, cacheMegabytes * 1024 * 1024);
+            } catch (IOException e) {
+                out.println("Erro ao abrir o cache: " + e.getMessage());
+                return 2;
+            }
+        }
+
+        long start = System.nanoTime();
+        List<FileOutcome> outcomes = compileAll(sources);
+        long elapsed = System.nanoTime() - start;
+
+        int failures = printSummary(outcomes, out);
+        out.printf("%d arquivo(s), %d com erro, em %.1f ms (%.1f arquivos/s)%n",
+                outcomes.size(), failures, elapsed / 1e6, outcomes.size() * 1e9 / elapsed);
+        if (cache != null) {
+            out.println(cache);
+        }
+        if (metrics && !printMetrics(outcomes, out)) {
+            return 2;
+        }
+        return failures == 0 ? 0 : 1;
+    }
+
+    private boolean parseArguments(String[] args, PrintStream out) {
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--ext":
+                    if (i + 1 >= args.length) {
+                        out.println("A opcao --ext exige um valor.");
+                        return false;
+                    }
+                    sourceExtension = args[++i];
+                    break;
+                case "--no-write":
+                    writeOutput = false;
+                    break;
+                case "--fused":
+                    fused = true;
+                    break;
+                case "--stream":
+                    stream = true;
+                    break;
+                case "--pipeline":
+                    stream = true;
+                    pipeline = true;
+                    break;
+                case "--parallel-codegen":
+                    parallelCodeGen = true;
+                    break;
+                case "--metrics":
+                    metrics = true;
+                    break;
+                case "--metrics-json":
+                    if (i + 1 >= args.length) {
+                        out.println("A opcao --metrics-json exige um valor.");
+                        return false;
+                    }
+                    metrics = true;
+                    metricsJson = Paths.get(args[++i]);
+                    break;
+                case "--cache":
+                case "--cache-size":
+                    if (i + 1 >= args.length) {
+                        out.println("A opcao " + args[i] + " exige um valor.");
+                        return false;
+                    }
+                    if (args[i].equals("--cache")) {
+                        cacheDirectory = Paths.get(args[++i]);
+                    } else if (!parseCacheSize(args[++i], out)) {
+                        return false;
+                    }
+                    break;
+                default:
+                    if (args[i].startsWith("--")) {
+                        out.println("Opcao desconhecida: " + args[i]);
+                        return false;
+                    }
+                    inputs.add(Paths.get(args[i]));
+                    break;
+            }
+        }
+        if (inputs.isEmpty()) {
+            out.println(USAGE);
+            return false;
+        }
+        if (stream && cacheDirectory != null) {
+            out.println("As opcoes --stream e --pipeline nao podem ser usadas com --cache.");
+            return false;
+        }
+        if (metrics && cacheDirectory != null) {
+            // Os resultados vindos do cache não têm medidas, e a soma ficaria menor
+            out.println("As opcoes --metrics e --metrics-json nao podem ser usadas com --cache.");
+            return false;
+        }
+        if (metrics && stream) {
+            out.println("As opcoes --metrics e --metrics-json nao podem ser usadas com --stream ou --pipeline.");
+            return false;
+        }
+        if (parallelCodeGen && (fused || stream)) {
+            out.println("A opcao --parallel-codegen exige a AST e nao pode ser usada com --fused, --stream ou --pipeline.");
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Lê o valor de --cache-size, em MB, e imprime o uso se for inválido.
+     */
+    private boolean parseCacheSize(String value, PrintStream out) {
+        try {
+            cacheMegabytes = Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            cacheMegabytes = -1;
+        }
+        if (cacheMegabytes < 0 || cacheMegabytes > Long.MAX_VALUE / (1024 * 1024)) {
+            out.println("Tamanho de cache invalido: " + value);
+            out.println(USAGE);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Expande os diretórios recursivamente, em ordem alfabética para que o
+     * resumo seja determinístico.
+     */
+    private List<Path> collectSources() throws IOException {
+        List<Path> sources = new ArrayList<>();
+        for (Path input : inputs) {
+            if (Files.isDirectory(input)) {
+                try (Stream<Path> walk = Files.walk(input)) {
+                    sources.addAll(walk
+                            .filter(Files::isRegularFile)
+                            .filter(p -> p.getFileName().toString().endsWith(sourceExtension))
+                            .sorted()
+                            .collect(Collectors.toList()));
+                }
+            } else {
+                sources.add(input);
+            }
+        }
+        return sources;
+    }
+
+    /**
+     * Compila todos os arquivos num pool work-stealing.
+     */
+    private List<FileOutcome> compileAll(List<Path> sources) {
+        ForkJoinPool pool = new ForkJoinPool();
+        try {
+            List<Future<FileOutcome>> futures = new ArrayList<>(sources.size());
+            for (Path source : sources) {
+                futures.add(pool.submit(() -> compileFile(source)));
+            }
+            List<FileOutcome> outcomes = new ArrayList<>(sources.size());
+            for (Future<FileOutcome> future : futures) {
+                outcomes.add(future.get());
+            }
+            return outcomes;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Compilacao interrompida.", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Falha inesperada na compilacao: " + e.getCause(), e.getCause());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private FileOutcome compileFile(Path source) {
+        long start = System.nanoTime();
+        if (stream) {
+            return compileStreaming(source, start);
+        }
+        try {
+            String sourceCode = new String(Files.readAllBytes(source), StandardCharsets.UTF_8);
+            Compiler compiler = new Compiler(fused, parallelCodeGen, metrics);
+            CompilationResult result = cache != null
+                    ? cache.compile(compiler, sourceCode, cacheOptions())
+                    : compiler.compile(sourceCode);
+            if (result.isSuccess() && writeOutput) {
+                Files.write(outputPath(source),
+                        (String.join("\n", result.getObjectCode()) + "\n").getBytes(StandardCharsets.UTF_8));
+            }
+            return new FileOutcome(source, result, System.nanoTime() - start, null);
+        } catch (IOException e) {
+            return new FileOutcome(source, null, System.nanoTime() - start, "Erro de E/S: " + e.getMessage());
+        }
+    }
+
+    /**
+     * @return As opções que mudam o resultado ou os diagnósticos, para a
+     *         chave do cache: um resultado da passagem fundida não serve para
+     *         uma compilação com AST, nem o contrário.
+     */
+    private String cacheOptions() {
+        return (fused ? "fused" : "ast") + (parallelCodeGen ? ",parallel-codegen" : "");
+    }
+
+    /**
+     * Compila em streaming (ou em pipeline), gravando num arquivo temporário
+     * que só substitui o .tam se a compilação terminar sem erro.
+     */
+    private FileOutcome compileStreaming(Path source, long start) {
+        Path output = outputPath(source);
+        Path temp = output.resolveSibling(output.getFileName() + ".tmp");
+        CompilationResult result = null;
+        try (Reader reader = new InputStreamReader(Files.newInputStream(source), StandardCharsets.UTF_8)) {
+            Compiler compiler = new Compiler(true);
+            if (!writeOutput) {
+                result = compileStream(compiler, reader, Writer.nullWriter());
+            } else {
+                try (Writer writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+                    result = compileStream(compiler, reader, writer);
+                }
+                if (result.isSuccess()) {
+                    Files.move(temp, output, StandardCopyOption.REPLACE_EXISTING);
+                }
+            }
+            return new FileOutcome(source, result, System.nanoTime() - start, null);
+        } catch (IOException e) {
+            return new FileOutcome(source, null, System.nanoTime() - start, "Erro de E/S: " + e.getMessage());
+        } finally {
+            if (writeOutput && (result == null || !result.isSuccess())) {
+                try {
+                    Files.deleteIfExists(temp);
+                } catch (IOException e) {
+                    // O temporário incompleto não afeta o resultado
+                }
+            }
+        }
+    }
+
+    private CompilationResult compileStream(Compiler compiler, Reader reader, Writer writer) throws IOException {
+        return pipeline ? compiler.compilePipelined(reader, writer) : compiler.compile(reader, writer);
+    }
+
+    /**
+     * Troca a extensão do fonte por ".tam" (ou a acrescenta, se não houver).
+     */
+    static Path outputPath(Path source) {
+        String name = source.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        String base = dot > 0 ? name.substring(0, dot) : name;
+        return source.resolveSibling(base + ".tam");
+    }
+
+    private int printSummary(List<FileOutcome> outcomes, PrintStream out) {
+        int failures = 0;
+        for (FileOutcome outcome : outcomes) {
+            String time = String.format("%8.2f ms", outcome.elapsedNanos / 1e6);
+            if (outcome.passed()) {
+                out.println("[OK]   " + time + "  " + outcome.source);
+            } else {
+                failures++;
+                String message = outcome.ioError != null ? outcome.ioError : outcome.result.getErrorMessage();
+                out.println("[ERRO] " + time + "  " + outcome.source + ": " + message);
+            }
+            if (outcome.result != null) {
+                printDiagnostics(outcome.result, out);
+            }
+        }
+        return failures;
+    }
+
+    /**
+     * Exibe a soma das métricas dos arquivos compilados (as que faltarem,
+     * como nos arquivos com erro de E/S, ficam de fora) e, com --metrics-json, grava as de cada arquivo.
+     * @return false se o JSON não pôde ser gravado.
+     */
+    private boolean printMetrics(List<FileOutcome> outcomes, PrintStream out) {
+        CompilationMetrics total = new CompilationMetrics();
+        StringBuilder json = new StringBuilder("{\"files\":[");
+        int measured = 0;
+        for (FileOutcome outcome : outcomes) {
+            CompilationMetrics fileMetrics = outcome.result == null ? null : outcome.result.getMetrics();
+            if (fileMetrics == null) {
+                continue;
+            }
+            total.add(fileMetrics);
+            if (measured++ > 0) {
+                json.append(',');
+            }
+            json.append("{\"source\":\"").append(jsonEscape(outcome.source.toString()))
+                    .append("\",\"metrics\":").append(fileMetrics.toJson()).append('}');
+        }
+        json.append("],\"total\":").append(total.toJson()).append("}\n");
+
+        out.printf("Metricas (%d arquivo(s) compilado(s)):%n", measured);
+        out.print(total.toTable());
+        if (metricsJson != null) {
+            try {
+                Files.write(metricsJson, json.toString().getBytes(StandardCharsets.UTF_8));
+            } catch (IOException e) {
+                out.println("Erro ao gravar as metricas: " + e.getMessage());
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String jsonEscape(String text) {
+        StringBuilder escaped = new StringBuilder(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '"' || c == '\\') {
+                escaped.append('\\').append(c);
+            } else if (c < 0x20) {
+                escaped.append(String.format("\\u%04x", (int) c));
+            } else {
+                escaped.append(c);
+            }
+        }
+        return escaped.toString();
+    }
+
+    /**
+     * Lista os erros do resultado abaixo da linha do arquivo, um por linha,
+     * com a linha do código-fonte. Nada é impresso se o único erro é o que
+     * já aparece na linha do arquivo.
+     */
+    static void printDiagnostics(CompilationResult result, PrintStream out) {
+        List<Diagnostic> diagnostics = result.getDiagnostics();
+        if (diagnostics.size() == 1 && diagnostics.get(0).message.equals(result.getErrorMessage())) {
+            return;
+        }
+        for (Diagnostic diagnostic : diagnostics) {
+            out.println("         " + diagnostic);
+        }
+    }
+}
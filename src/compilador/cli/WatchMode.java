@@ -0,0 +1,243 @@
+package compilador.cli;
+
+import compilador.CompilationResult;
+import compilador.IncrementalCompiler;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Modo de observação: acompanha um diretório com o WatchService e recompila
+ * apenas os fontes alterados, mantendo os arquivos .tam atualizados.
+ *
+ * Salvamentos em rajada (vários eventos para o mesmo arquivo em poucos
+ * milissegundos) são agrupados numa única compilação. Cada arquivo tem o
+ * seu {@link IncrementalCompiler}, que só analisa de novo as linhas
+ * alteradas, e guarda o fonte e o resultado da última compilação: se o texto
+ * não mudou, nada é feito; se o código-objeto não mudou (ex: só comentários
+ * ou espaços), o .tam não é regravado. Os erros léxicos, que não mudam os
+ * tokens, sempre aparecem nos diagnósticos.
+ *
+ * Uso: java -cp out compilador.Main --watch [--ext .txt] [--debounce ms] diretório
+ */
+public class WatchMode {
+
+    /**
+     * Compilador e estado da última compilação de um arquivo.
+     */
+    private static final class FileState {
+        final IncrementalCompiler compiler = new IncrementalCompiler();
+        String source;
+        CompilationResult result;
+    }
+
+    private final Path root;
+    private final String sourceExtension;
+    private final long debounceMillis;
+    private final PrintStream out;
+    private final Map<Path, FileState> states = new HashMap<>();
+    private final Map<WatchKey, Path> watchedDirectories = new HashMap<>();
+
+    public WatchMode(Path root, String sourceExtension, long debounceMillis, PrintStream out) {
+        this.root = root;
+        this.sourceExtension = sourceExtension;
+        this.debounceMillis = debounceMillis;
+        this.out = out;
+    }
+
+    public static void main(String[] args) throws IOException {
+        String extension = ".txt";
+        long debounce = 50;
+        Path root = null;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--watch":
+                    break;
+                case "--ext":
+                case "--debounce":
+                    if (i + 1 >= args.length) {
+                        usage("A opcao " + args[i] + " exige um valor.");
+                    }
+                    if (args[i].equals("--ext")) {
+                        extension = args[++i];
+                        break;
+                    }
+                    try {
+                        debounce = Long.parseLong(args[++i]);
+                    } catch (NumberFormatException e) {
+                        debounce = -1;
+                    }
+                    if (debounce < 0) {
+                        usage("Intervalo de agrupamento invalido: " + args[i]);
+                    }
+                    break;
+                default:
+                    if (args[i].startsWith("--")) {
+                        usage("Opcao desconhecida: " + args[i]);
+                    }
+                    if (root != null) {
+                        usage("Argumento inesperado: " + args[i]);
+                    }
+                    root = Paths.get(args[i]);
+                    break;
+            }
+        }
+        if (root == null || !Files.isDirectory(root)) {
+            usage(null);
+        }
+        new WatchMode(root, extension, debounce, System.out).run();
+    }
+
+    /**
+     * Imprime o erro (se houver) e o uso, e encerra com o código 2.
+     */
+    private static void usage(String error) {
+        if (error != null) {
+            System.out.println(error);
+        }
+        System.out.println("Uso: compilador.Main --watch [--ext .txt] [--debounce ms] diretorio");
+        System.exit(2);
+    }
+
+    /**
+     * Compila todos os fontes uma vez e passa a observar o diretório até a
+     * thread ser interrompida.
+     */
+    public void run() throws IOException {
+        try (WatchService watcher = FileSystems.getDefault().newWatchService()) {
+            registerTree(root, watcher);
+            try (Stream<Path> walk = Files.walk(root)) {
+                walk.filter(this::isSource).sorted().forEach(this::recompile);
+            }
+            out.println("Observando " + root + " (Ctrl+C para sair)...");
+
+            Set<Path> pending = new LinkedHashSet<>();
+            while (!Thread.currentThread().isInterrupted()) {
+                // Bloqueia até o primeiro evento; depois continua coletando enquanto
+                // chegarem eventos dentro da janela de agrupamento
+                WatchKey key = pending.isEmpty()
+                        ? watcher.take()
+                        : watcher.poll(debounceMillis, TimeUnit.MILLISECONDS);
+                if (key == null) {
+                    for (Path changed : pending) {
+                        recompile(changed);
+                    }
+                    pending.clear();
+                    continue;
+                }
+                collectEvents(key, watcher, pending);
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void collectEvents(WatchKey key, WatchService watcher, Set<Path> pending) throws IOException {
+        Path directory = watchedDirectories.get(key);
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW || directory == null) {
+                continue;
+            }
+            Path changed = directory.resolve((Path) event.context());
+            if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE && Files.isDirectory(changed)) {
+                registerTree(changed, watcher);
+                try (Stream<Path> walk = Files.walk(changed)) {
+                    walk.filter(this::isSource).forEach(pending::add);
+                }
+            } else if (isSourceName(changed)) {
+                pending.add(changed);
+            }
+        }
+        if (!key.reset()) {
+            watchedDirectories.remove(key);
+        }
+    }
+
+    private void registerTree(Path start, WatchService watcher) throws IOException {
+        try (Stream<Path> walk = Files.walk(start)) {
+            for (Path directory : (Iterable<Path>) walk.filter(Files::isDirectory)::iterator) {
+                WatchKey key = directory.register(watcher,
+                        StandardWatchEventKinds.ENTRY_CREATE,
+                        StandardWatchEventKinds.ENTRY_MODIFY,
+                        StandardWatchEventKinds.ENTRY_DELETE);
+                watchedDirectories.put(key, directory);
+            }
+        }
+    }
+
+    /**
+     * Recompila um arquivo com o seu compilador incremental.
+     */
+    private void recompile(Path source) {
+        long start = System.nanoTime();
+        String text;
+        try {
+            text = new String(Files.readAllBytes(source), StandardCharsets.UTF_8);
+        } catch (NoSuchFileException e) {
+            states.remove(source);
+            out.println("[REMOVIDO] " + source);
+            return;
+        } catch (IOException e) {
+            out.println("[ERRO] " + source + ": Erro de E/S: " + e.getMessage());
+            return;
+        }
+
+        FileState state = states.computeIfAbsent(source, path -> new FileState());
+        if (text.equals(state.source)) {
+            return; // Evento sem mudança de conteúdo (ex: apenas "touch")
+        }
+        CompilationResult previous = state.result;
+        CompilationResult result = state.compiler.compile(text);
+        state.source = text;
+        state.result = result;
+
+        // O código TAM não depende das linhas: se ele não mudou, o .tam continua valendo
+        boolean unchanged = result.isSuccess() && previous != null && previous.isSuccess()
+                && previous.getObjectCode().equals(result.getObjectCode());
+        try {
+            if (result.isSuccess() && !unchanged) {
+                Files.write(BatchCompiler.outputPath(source),
+                        (String.join("\n", result.getObjectCode()) + "\n").getBytes(StandardCharsets.UTF_8));
+            }
+        } catch (IOException e) {
+            state.result = null; // Regrava o .tam na próxima compilação com sucesso
+            out.println("[ERRO] " + source + ": Erro de E/S: " + e.getMessage());
+            return;
+        }
+
+        String time = String.format("%8.2f ms", (System.nanoTime() - start) / 1e6);
+        if (unchanged) {
+            out.println("[=]    " + time + "  " + source + " (codigo inalterado)");
+        } else if (result.isSuccess()) {
+            out.println("[OK]   " + time + "  " + source);
+        } else {
+            out.println("[ERRO] " + time + "  " + source + ": " + result.getErrorMessage());
+        }
+        BatchCompiler.printDiagnostics(result, out);
+    }
+
+    private boolean isSource(Path path) {
+        return Files.isRegularFile(path) && isSourceName(path);
+    }
+
+    private boolean isSourceName(Path path) {
+        return path.getFileName().toString().endsWith(sourceExtension);
+    }
+}
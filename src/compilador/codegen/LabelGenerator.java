@@ -14,4 +14,18 @@ public class LabelGenerator {
     public String newLabel() {
         return "L" + nextLabel++;
     }
+
+    /**
+     * @return Quantos rótulos já foram gerados.
+     */
+    public int getCount() {
+        return nextLabel;
+    }
+
+    /**
+     * Volta a numerar a partir de L0.
+     */
+    public void reset() {
+        nextLabel = 0;
+    }
 }
\ No newline at end of file
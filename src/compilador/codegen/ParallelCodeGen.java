@@ -0,0 +1,189 @@
+package compilador.codegen;
+
+import compilador.ast.ASTNode;
+import compilador.ast.BeginEndNode;
+import compilador.ast.NodeKind;
+import compilador.ast.NodeRef;
+import compilador.ast.ProgramaNode;
+import compilador.visitor.CodeGenVisitor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Geração de código em paralelo para programas grandes.
+ *
+ * Os comandos do bloco principal são divididos em trechos consecutivos, e
+ * cada trecho é gerado num {@link CodeGenVisitor} próprio, com rótulos
+ * locais a partir de L0. Como os rótulos são criados na ordem do percurso,
+ * o rótulo local Lk de um trecho corresponde ao rótulo global L(base + k),
+ * em que base é o total de rótulos dos trechos anteriores. Depois que todos
+ * os trechos terminam, os rótulos de cada um são realocados (também em
+ * paralelo) e os trechos são concatenados na ordem. O código resultante é
+ * idêntico ao da geração sequencial, qualquer que seja a divisão.
+ *
+ * Programas com poucos comandos, ou um pool sem paralelismo, usam a
+ * geração sequencial diretamente.
+ */
+public class ParallelCodeGen {
+
+    /** Menor quantidade de comandos por trecho. */
+    static final int MIN_CHUNK = 512;
+    /** Trechos por thread do pool, para equilibrar comandos de tamanhos diferentes. */
+    static final int CHUNKS_PER_THREAD = 4;
+
+    private final ForkJoinPool pool;
+
+    public ParallelCodeGen() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    public ParallelCodeGen(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Gera o código de um programa já verificado.
+     * @param root A raiz da AST (ProgramaNode).
+     * @return O código-objeto, igual ao de {@link CodeGenVisitor}.
+     */
+    public List<String> generate(ASTNode root) {
+        ASTNode program = resolve(root);
+        ASTNode block = program.kind == NodeKind.PROGRAMA ? resolve(((ProgramaNode) program).comandoComposto) : null;
+        if (block == null || block.kind != NodeKind.BEGIN_END) {
+            return sequential(root);
+        }
+        List<ASTNode> commands = ((BeginEndNode) block).commands;
+        int chunks = Math.min(commands.size() / MIN_CHUNK, pool.getParallelism() * CHUNKS_PER_THREAD);
+        if (chunks < 2 || pool.getParallelism() < 2) {
+            return sequential(root);
+        }
+
+        Chunk[] parts = new Chunk[chunks];
+        for (int i = 0; i < chunks; i++) {
+            parts[i] = new Chunk(commands, (int) ((long) commands.size() * i / chunks),
+                    (int) ((long) commands.size() * (i + 1) / chunks));
+        }
+        pool.invoke(new Phase(parts, false));
+
+        // Base de cada trecho: soma dos rótulos dos anteriores
+        int base = 0;
+        int size = 1;
+        for (Chunk part : parts) {
+            part.labelBase = base;
+            base += part.labelCount;
+            size += part.code.size();
+        }
+        pool.invoke(new Phase(parts, true));
+
+        List<String> objectCode = new ArrayList<>(size);
+        for (Chunk part : parts) {
+            objectCode.addAll(part.code);
+        }
+        // Instrução final para parar a máquina, como no CodeGenVisitor
+        objectCode.add("HALT");
+        return objectCode;
+    }
+
+    private static List<String> sequential(ASTNode root) {
+        CodeGenVisitor codeGen = new CodeGenVisitor();
+        codeGen.generate(root);
+        return codeGen.getObjectCode();
+    }
+
+    private static ASTNode resolve(ASTNode node) {
+        return node.kind == NodeKind.REF ? ((NodeRef) node).resolve() : node;
+    }
+
+    /**
+     * Troca os rótulos locais de uma instrução pelos globais. Só os rótulos
+     * ("Lk:") e os saltos ("JUMP Lk", "JUMPIF(0) Lk") fazem referência a eles.
+     * Também usado pela recompilação incremental, que guarda o código de
+     * cada comando com rótulos locais.
+     */
+    public static String relocate(String instruction, int labelBase) {
+        if (instruction.charAt(0) == 'J') {
+            int label = instruction.lastIndexOf('L');
+            int local = Integer.parseInt(instruction.substring(label + 1));
+            return instruction.substring(0, label + 1) + (labelBase + local);
+        }
+        if (instruction.charAt(instruction.length() - 1) == ':') {
+            int local = Integer.parseInt(instruction.substring(1, instruction.length() - 1));
+            return "L" + (labelBase + local) + ":";
+        }
+        return instruction;
+    }
+
+    /**
+     * Um trecho de comandos consecutivos do bloco principal. Na primeira fase
+     * gera o código com rótulos locais; na segunda, realoca os rótulos.
+     */
+    private static final class Chunk {
+        private final List<ASTNode> commands;
+        private final int from;
+        private final int to;
+        private List<String> code;
+        private int labelCount;
+        private int labelBase;
+
+        Chunk(List<ASTNode> commands, int from, int to) {
+            this.commands = commands;
+            this.from = from;
+            this.to = to;
+        }
+
+        void generate() {
+            CodeGenVisitor codeGen = new CodeGenVisitor();
+            for (int i = from; i < to; i++) {
+                codeGen.generate(commands.get(i));
+            }
+            code = codeGen.getObjectCode();
+            labelCount = codeGen.getLabelCount();
+        }
+
+        void relocate() {
+            if (labelBase == 0 || labelCount == 0) {
+                return;
+            }
+            for (int i = 0; i < code.size(); i++) {
+                code.set(i, ParallelCodeGen.relocate(code.get(i), labelBase));
+            }
+        }
+    }
+
+    /**
+     * Executa uma fase em todos os trechos, cada um numa tarefa do pool.
+     */
+    private static final class Phase extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final Chunk[] parts;
+        private final boolean relocation;
+
+        Phase(Chunk[] parts, boolean relocation) {
+            this.parts = parts;
+            this.relocation = relocation;
+        }
+
+        @Override
+        protected void compute() {
+            List<RecursiveAction> tasks = new ArrayList<>(parts.length);
+            for (Chunk part : parts) {
+                tasks.add(new RecursiveAction() {
+                    @Override
+                    protected void compute() {
+                        if (relocation) {
+                            part.relocate();
+                        } else {
+                            part.generate();
+                        }
+                    }
+                });
+            }
+            ForkJoinTask.invokeAll(tasks);
+        }
+    }
+}
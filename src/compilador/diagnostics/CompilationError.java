@@ -0,0 +1,29 @@
+package compilador.diagnostics;
+
+/**
+ * Erro de sintaxe ou de contexto lançado no primeiro problema (sem
+ * {@link Diagnostics}), com a linha em que ele foi encontrado, para que quem
+ * o captura registre o {@link Diagnostic} na linha certa.
+ *
+ * Estende Error, como os erros que o Parser e o CheckerVisitor sempre
+ * lançaram, então quem captura Error continua funcionando.
+ */
+public class CompilationError extends Error {
+
+    private static final long serialVersionUID = 1L;
+
+    /** A linha do erro, a partir de 1; 0 se desconhecida. */
+    public final int line;
+
+    public CompilationError(String message, int line) {
+        super(message);
+        this.line = line;
+    }
+
+    /**
+     * @return A linha da exceção, se ela for um CompilationError; 0 caso contrário.
+     */
+    public static int lineOf(Throwable error) {
+        return error instanceof CompilationError ? ((CompilationError) error).line : 0;
+    }
+}
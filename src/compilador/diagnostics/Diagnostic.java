@@ -0,0 +1,31 @@
+package compilador.diagnostics;
+
+/**
+ * Um erro encontrado durante a compilação: a etapa que o encontrou, a linha
+ * (a partir de 1; 0 se desconhecida) e a mensagem.
+ */
+public final class Diagnostic {
+
+    /**
+     * Etapa que encontrou o erro.
+     */
+    public enum Kind { LEXICAL, SYNTAX, CONTEXT, CODEGEN }
+
+    public final Kind kind;
+    public final int line;
+    public final String message;
+
+    public Diagnostic(Kind kind, int line, String message) {
+        this.kind = kind;
+        this.line = line;
+        this.message = message;
+    }
+
+    /**
+     * @return A mensagem precedida da linha, ex: "linha 7: Erro de Contexto: ...".
+     */
+    @Override
+    public String toString() {
+        return line > 0 ? "linha " + line + ": " + message : message;
+    }
+}
@@ -0,0 +1,103 @@
+package compilador.diagnostics;
+
+import compilador.lexer.LexicalErrorListener;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Coleta os erros de uma compilação, na ordem em que são encontrados.
+ *
+ * Com um Diagnostics, o Scanner, o Parser e o CheckerVisitor registram cada
+ * erro aqui e continuam a análise, em vez de lançar uma exceção (ou imprimir
+ * em System.err) no primeiro problema: um programa com vários erros é
+ * diagnosticado numa única compilação. Depois de {@link #getLimit()} erros os
+ * seguintes são contados, mas não guardados, para que um arquivo que nem é
+ * código-fonte não gere uma lista enorme.
+ */
+public final class Diagnostics implements LexicalErrorListener {
+
+    /** Número de erros guardados por padrão. */
+    public static final int DEFAULT_LIMIT = 100;
+
+    private final List<Diagnostic> diagnostics = new ArrayList<>();
+    // Primeiro erro de cada etapa, guardado mesmo depois do limite
+    private final Diagnostic[] firsts = new Diagnostic[Diagnostic.Kind.values().length];
+    private final int limit;
+    private int count;
+
+    public Diagnostics() {
+        this(DEFAULT_LIMIT);
+    }
+
+    /**
+     * @param limit O número máximo de erros guardados.
+     */
+    public Diagnostics(int limit) {
+        this.limit = limit;
+    }
+
+    public void report(Diagnostic.Kind kind, int line, String message) {
+        count++;
+        Diagnostic diagnostic = new Diagnostic(kind, line, message);
+        if (firsts[kind.ordinal()] == null) {
+            firsts[kind.ordinal()] = diagnostic;
+        }
+        if (diagnostics.size() < limit) {
+            diagnostics.add(diagnostic);
+        }
+    }
+
+    /**
+     * Erros do Scanner: o caractere inválido é descartado e a análise
+     * continua, como sempre foi; o erro fica registrado.
+     */
+    @Override
+    public void lexicalError(int offset, int line, String message) {
+        report(Diagnostic.Kind.LEXICAL, line, lexicalMessage(message));
+    }
+
+    /**
+     * @return A mensagem registrada para um erro léxico do Scanner, para quem
+     *         guarda esses erros por conta própria (ex: o IncrementalCompiler).
+     */
+    public static String lexicalMessage(String message) {
+        return "Erro Lexico: " + message;
+    }
+
+    /**
+     * @return Os erros guardados, na ordem em que foram encontrados.
+     */
+    public List<Diagnostic> getDiagnostics() {
+        return Collections.unmodifiableList(diagnostics);
+    }
+
+    /**
+     * @return O primeiro erro da etapa, ou null se não houver.
+     */
+    public Diagnostic first(Diagnostic.Kind kind) {
+        return firsts[kind.ordinal()];
+    }
+
+    /**
+     * @return O número de erros encontrados, inclusive os que passaram do limite.
+     */
+    public int getCount() {
+        return count;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    /**
+     * Esvazia a lista, para reutilizar a instância em outra compilação.
+     */
+    public void clear() {
+        diagnostics.clear();
+        Arrays.fill(firsts, null);
+        count = 0;
+    }
+}
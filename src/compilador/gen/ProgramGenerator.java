@@ -0,0 +1,339 @@
+package compilador.gen;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.Random;
+
+/**
+ * Gera programas da linguagem a partir da gramática, para testar o
+ * compilador em escala: o tamanho, o número de variáveis, o aninhamento de
+ * if/while/begin, a profundidade das expressões e a mistura de operadores
+ * são configuráveis, e a mesma semente gera sempre o mesmo programa.
+ *
+ * Os programas são válidos (tipos corretos, toda variável declarada), a não
+ * ser que {@link #setErrorRate} peça erros: cada comando do bloco principal
+ * recebe então, com essa probabilidade, um erro de sintaxe ou de contexto.
+ *
+ * O texto é escrito aos poucos num Writer, com memória limitada pela
+ * profundidade do aninhamento, então dá para gerar arquivos de vários
+ * gigabytes (ver {@link #setTargetChars}).
+ */
+public class ProgramGenerator {
+
+    /** Tipos de erro inseridos nos programas inválidos, na ordem de sorteio. */
+    private static final String[] ERROR_KINDS = {"sintaxe", "nao declarada", "atribuicao", "condicao"};
+
+    private long seed = 42;
+    private long statements = 1000;
+    private long targetChars = 0;
+    private int variables = 8;
+    private int maxNesting = 3;
+    private int maxExpressionDepth = 3;
+    private int arithmeticWeight = 2;
+    private int relationalWeight = 1;
+    private int logicalWeight = 1;
+    private double errorRate = 0;
+
+    // Estado da geração atual
+    private Random random;
+    private Writer out;
+    private long written;
+    private long errors;
+
+    /**
+     * @param seed A semente: a mesma configuração e semente geram o mesmo texto.
+     */
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+
+    /**
+     * @param statements O número de comandos do bloco principal (cada um pode
+     *        ter outros dentro, conforme o aninhamento).
+     */
+    public void setStatements(long statements) {
+        this.statements = statements;
+    }
+
+    /**
+     * @param targetChars Se maior que zero, gera comandos até o texto ter ao
+     *        menos esse número de caracteres (um byte cada), no lugar de
+     *        {@link #setStatements}.
+     */
+    public void setTargetChars(long targetChars) {
+        this.targetChars = targetChars;
+    }
+
+    /**
+     * @param variables O número de variáveis declaradas (ao menos 2); um terço
+     *        é boolean e o resto integer.
+     */
+    public void setVariables(int variables) {
+        if (variables < 2) {
+            throw new IllegalArgumentException("Sao necessarias ao menos 2 variaveis.");
+        }
+        this.variables = variables;
+    }
+
+    /**
+     * @param maxNesting A profundidade máxima de if/while/begin uns dentro dos
+     *        outros (0: só atribuições).
+     */
+    public void setMaxNesting(int maxNesting) {
+        this.maxNesting = maxNesting;
+    }
+
+    /**
+     * @param maxExpressionDepth A profundidade máxima de operadores numa
+     *        expressão (0: só literais e variáveis).
+     */
+    public void setMaxExpressionDepth(int maxExpressionDepth) {
+        this.maxExpressionDepth = maxExpressionDepth;
+    }
+
+    /**
+     * Pesos relativos dos operadores aritméticos (+ - * /), relacionais
+     * (&lt; &gt; =) e lógicos (and or) nas expressões. Um peso 0 tira a classe
+     * de operadores, exceto onde ela é a única possível para o tipo.
+     */
+    public void setOperatorMix(int arithmetic, int relational, int logical) {
+        if (arithmetic < 0 || relational < 0 || logical < 0 || arithmetic + relational + logical == 0) {
+            throw new IllegalArgumentException("Os pesos dos operadores devem ser positivos ou zero, e nao todos zero.");
+        }
+        this.arithmeticWeight = arithmetic;
+        this.relationalWeight = relational;
+        this.logicalWeight = logical;
+    }
+
+    /**
+     * @param errorRate A probabilidade (0 a 1) de cada comando do bloco
+     *        principal receber um erro.
+     */
+    public void setErrorRate(double errorRate) {
+        this.errorRate = errorRate;
+    }
+
+    /**
+     * Gera o programa no Writer, que não é fechado.
+     * @return O número de erros inseridos (0 se o programa é válido).
+     * @throws IOException Se a escrita falhar.
+     */
+    public long generate(Writer writer) throws IOException {
+        random = new Random(seed);
+        out = writer;
+        written = 0;
+        errors = 0;
+        try {
+            write("program Gerado;\n");
+            for (int i = 0; i < variables; i++) {
+                write(" var " + variable(i) + " : " + (isBoolean(i) ? "boolean" : "integer") + ";\n");
+            }
+            write("begin\n");
+            for (long i = 0; targetChars > 0 ? written < targetChars : i < statements; i++) {
+                if (errorRate > 0 && random.nextDouble() < errorRate) {
+                    invalidStatement();
+                } else {
+                    statement(1, 0);
+                    write(";\n");
+                }
+            }
+            write("end\n");
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            out = null;
+        }
+        return errors;
+    }
+
+    /**
+     * @return O programa gerado, como texto.
+     */
+    public String generate() {
+        StringWriter writer = new StringWriter();
+        try {
+            generate(writer);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // StringWriter não falha
+        }
+        return writer.toString();
+    }
+
+    /**
+     * @return O número de erros inseridos na última geração.
+     */
+    public long getErrorCount() {
+        return errors;
+    }
+
+    // --- COMANDOS ---
+
+    private void statement(int indent, int nesting) {
+        indent(indent);
+        int kind = nesting < maxNesting ? random.nextInt(10) : 0;
+        if (kind < 6) {
+            assignment();
+        } else if (kind < 8) {
+            write("if ");
+            expression(true, 0);
+            write(" then\n");
+            statement(indent + 1, nesting + 1);
+            if (random.nextBoolean()) {
+                write("\n");
+                indent(indent);
+                write("else\n");
+                statement(indent + 1, nesting + 1);
+            }
+        } else if (kind < 9) {
+            write("while ");
+            expression(true, 0);
+            write(" do\n");
+            statement(indent + 1, nesting + 1);
+        } else {
+            write("begin\n");
+            int count = 1 + random.nextInt(3);
+            for (int i = 0; i < count; i++) {
+                statement(indent + 1, nesting + 1);
+                write(";\n");
+            }
+            indent(indent);
+            write("end");
+        }
+    }
+
+    private void assignment() {
+        int target = random.nextInt(variables);
+        write(variable(target) + " := ");
+        expression(isBoolean(target), 0);
+    }
+
+    /**
+     * Um comando do bloco principal com um erro, que o compilador deve
+     * apontar mesmo recuperando-se dos anteriores.
+     */
+    private void invalidStatement() {
+        errors++;
+        indent(1);
+        int target = random.nextInt(variables);
+        switch (ERROR_KINDS[random.nextInt(ERROR_KINDS.length)]) {
+            case "sintaxe":
+                // Falta o operando da direita
+                write(variable(target) + " := " + (isBoolean(target) ? "true and" : "1 +") + ";\n");
+                break;
+            case "nao declarada":
+                write("naoDeclarada" + errors + " := 1;\n");
+                break;
+            case "atribuicao":
+                write(variable(target) + " := ");
+                expression(!isBoolean(target), 0);
+                write(";\n");
+                break;
+            default:
+                write("if ");
+                expression(false, 0);
+                write(" then ");
+                assignment();
+                write(";\n");
+                break;
+        }
+    }
+
+    // --- EXPRESSÕES ---
+
+    /**
+     * Uma expressão do tipo pedido; os operandos de cada operador ficam entre
+     * parênteses, então a precedência não muda o tipo.
+     */
+    private void expression(boolean bool, int depth) {
+        if (depth >= maxExpressionDepth || random.nextInt(3) == 0) {
+            operand(bool);
+            return;
+        }
+        if (!bool) {
+            arithmetic(depth);
+            return;
+        }
+        int total = relationalWeight + logicalWeight;
+        if (total == 0 || random.nextInt(total) < relationalWeight) {
+            // Relacional: compara inteiros (ou booleanos com '=', às vezes)
+            boolean operands = random.nextInt(8) == 0;
+            nested(operands, depth);
+            write(operands ? " = " : pick(" < ", " > ", " = "));
+            nested(operands, depth);
+        } else {
+            nested(true, depth);
+            write(pick(" and ", " or "));
+            nested(true, depth);
+        }
+    }
+
+    private void arithmetic(int depth) {
+        if (arithmeticWeight == 0) {
+            operand(false);
+            return;
+        }
+        nested(false, depth);
+        String operator = pick(" + ", " - ", " * ", " / ");
+        write(operator);
+        if (operator.equals(" / ")) {
+            // Divisor constante e diferente de zero, para que o programa execute
+            write(String.valueOf(1 + random.nextInt(9)));
+        } else {
+            nested(false, depth);
+        }
+    }
+
+    private void nested(boolean bool, int depth) {
+        if (depth + 1 >= maxExpressionDepth || random.nextInt(2) == 0) {
+            operand(bool);
+        } else {
+            write("(");
+            expression(bool, depth + 1);
+            write(")");
+        }
+    }
+
+    private void operand(boolean bool) {
+        // Os booleanos são os índices 2, 5, 8...
+        int booleans = variables / 3;
+        if (random.nextInt(2) == 0 || (bool && booleans == 0)) {
+            write(bool ? (random.nextBoolean() ? "true" : "false") : String.valueOf(random.nextInt(1000)));
+        } else if (bool) {
+            write(variable(3 * random.nextInt(booleans) + 2));
+        } else {
+            int integer = random.nextInt(variables - booleans);
+            write(variable(integer + integer / 2)); // Pula os índices dos booleanos
+        }
+    }
+
+    // --- TEXTO ---
+
+    private static String variable(int index) {
+        return "v" + index;
+    }
+
+    private static boolean isBoolean(int index) {
+        return index % 3 == 2;
+    }
+
+    private String pick(String... options) {
+        return options[random.nextInt(options.length)];
+    }
+
+    private void indent(int level) {
+        for (int i = 0; i < level; i++) {
+            write("  ");
+        }
+    }
+
+    private void write(String text) {
+        try {
+            out.write(text);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        written += text.length();
+    }
+}
@@ -0,0 +1,239 @@
+package compilador.gen;
+
+import compilador.CompilationResult;
+import compilador.Compiler;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Locale;
+
+/**
+ * Linha de comando do {@link ProgramGenerator}: gera um programa sintético
+ * e, opcionalmente, o compila em streaming para conferir o resultado e medir
+ * a vazão e a memória. Repetindo com tamanhos crescentes, obtém-se as curvas
+ * de vazão e de memória em função do tamanho da entrada.
+ *
+ * Uso: java -cp out compilador.gen.WorkloadGenerator [opções]
+ *   --statements n   comandos no bloco principal (padrão: 1000)
+ *   --size n[K|M|G]  gera comandos até o arquivo ter esse tamanho, no lugar de --statements
+ *   --variables n    variáveis declaradas, ao menos 2 (padrão: 8)
+ *   --depth n        aninhamento máximo de if/while/begin (padrão: 3)
+ *   --expr-depth n   profundidade máxima das expressões (padrão: 3)
+ *   --mix a,r,l      pesos dos operadores aritméticos, relacionais e lógicos (padrão: 2,1,1)
+ *   --seed n         semente; a mesma semente gera o mesmo programa (padrão: 42)
+ *   --invalid pct    porcentagem dos comandos com um erro inserido (padrão: 0)
+ *   --out arquivo    grava o programa no arquivo (padrão: saída padrão)
+ *   --verify         compila o arquivo gerado (exige --out) e confere que só falha
+ *                    se houver erros inseridos
+ *   --help           exibe as opções
+ *
+ * Código de saída: 0 em caso de sucesso, 1 se a verificação falhar e 2 para
+ * uso incorreto.
+ */
+public class WorkloadGenerator {
+
+    private static final String USAGE = String.join("\n",
+            "Uso: java -cp out compilador.gen.WorkloadGenerator [opcoes]",
+            "  --statements n   comandos no bloco principal (padrao: 1000)",
+            "  --size n[K|M|G]  gera comandos ate o arquivo ter esse tamanho, no lugar de --statements",
+            "  --variables n    variaveis declaradas, ao menos 2 (padrao: 8)",
+            "  --depth n        aninhamento maximo de if/while/begin (padrao: 3)",
+            "  --expr-depth n   profundidade maxima das expressoes (padrao: 3)",
+            "  --mix a,r,l      pesos dos operadores aritmeticos, relacionais e logicos (padrao: 2,1,1)",
+            "  --seed n         semente; a mesma semente gera o mesmo programa (padrao: 42)",
+            "  --invalid pct    porcentagem dos comandos com um erro inserido (padrao: 0)",
+            "  --out arquivo    grava o programa no arquivo (padrao: saida padrao)",
+            "  --verify         compila o arquivo gerado (exige --out) e confere que so falha",
+            "                   se houver erros inseridos",
+            "  --help           exibe estas opcoes");
+
+    private final ProgramGenerator generator = new ProgramGenerator();
+    private Path outputPath;
+    private boolean verify = false;
+    private boolean help = false;
+
+    public static void main(String[] args) {
+        System.exit(new WorkloadGenerator().run(args, System.out));
+    }
+
+    /**
+     * Executa o gerador.
+     * @return O código de saída do processo (ver a documentação da classe).
+     */
+    public int run(String[] args, PrintStream out) {
+        try {
+            if (!parseArguments(args, out)) {
+                return 2;
+            }
+        } catch (IllegalArgumentException | ArithmeticException e) {
+            // Inclui NumberFormatException; ArithmeticException para tamanhos grandes demais
+            out.println("Valor invalido: " + e.getMessage());
+            return 2;
+        }
+        if (help) {
+            out.println(USAGE);
+            return 0;
+        }
+
+        long errors;
+        long start = System.nanoTime();
+        try {
+            if (outputPath == null) {
+                Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+                errors = generator.generate(writer);
+                writer.flush();
+                return 0;
+            }
+            try (Writer writer = Files.newBufferedWriter(outputPath, StandardCharsets.UTF_8)) {
+                errors = generator.generate(writer);
+            }
+        } catch (IOException e) {
+            out.println("Erro ao gravar o programa: " + e.getMessage());
+            return 2;
+        }
+        long size;
+        try {
+            size = Files.size(outputPath);
+        } catch (IOException e) {
+            out.println("Erro ao ler o programa gerado: " + e.getMessage());
+            return 2;
+        }
+        out.printf(Locale.ROOT, "%s: %d bytes, %d erro(s) inserido(s), gerado em %.1f ms%n",
+                outputPath, size, errors, (System.nanoTime() - start) / 1e6);
+        return verify ? verify(size, errors, out) : 0;
+    }
+
+    /**
+     * Compila o arquivo gerado em streaming (a verificação de contexto do
+     * CheckerVisitor comando a comando, sem guardar a AST) e confere que ele
+     * só falha quando há erros inseridos.
+     */
+    private int verify(long size, long errors, PrintStream out) {
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            pool.resetPeakUsage();
+        }
+        CompilationResult result;
+        long start = System.nanoTime();
+        try (Reader reader = Files.newBufferedReader(outputPath, StandardCharsets.UTF_8)) {
+            result = new Compiler(true).compile(reader, Writer.nullWriter());
+        } catch (IOException e) {
+            out.println("Erro ao ler o programa gerado: " + e.getMessage());
+            return 2;
+        }
+        long elapsed = System.nanoTime() - start;
+        long peakHeap = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                peakHeap += pool.getPeakUsage().getUsed();
+            }
+        }
+        out.printf(Locale.ROOT, "Compilado em %.1f ms (%.1f MB/s), pico de heap %.1f MB: %s%n",
+                elapsed / 1e6, size / 1048576.0 / (elapsed / 1e9), peakHeap / 1048576.0,
+                result.isSuccess() ? "OK" : result.getErrorMessage());
+        if (result.isSuccess() == (errors == 0)) {
+            return 0;
+        }
+        out.println(errors == 0
+                ? "Falha na verificacao: o programa gerado deveria ser valido."
+                : "Falha na verificacao: o programa gerado deveria conter erros.");
+        return 1;
+    }
+
+    private boolean parseArguments(String[] args, PrintStream out) {
+        for (int i = 0; i < args.length; i++) {
+            String option = args[i];
+            if (option.equals("--verify")) {
+                verify = true;
+                continue;
+            }
+            if (option.equals("--help") || option.equals("-h")) {
+                help = true;
+                return true;
+            }
+            if (!option.startsWith("--")) {
+                out.println("Argumento inesperado: " + option);
+                return false;
+            }
+            if (i + 1 >= args.length) {
+                out.println("A opcao " + option + " exige um valor.");
+                return false;
+            }
+            String value = args[++i];
+            switch (option) {
+                case "--statements":
+                    generator.setStatements(Long.parseLong(value));
+                    break;
+                case "--size":
+                    generator.setTargetChars(parseSize(value));
+                    break;
+                case "--variables":
+                    generator.setVariables(Integer.parseInt(value));
+                    break;
+                case "--depth":
+                    generator.setMaxNesting(Integer.parseInt(value));
+                    break;
+                case "--expr-depth":
+                    generator.setMaxExpressionDepth(Integer.parseInt(value));
+                    break;
+                case "--mix": {
+                    String[] weights = value.split(",");
+                    if (weights.length != 3) {
+                        out.println("A opcao --mix exige tres pesos: aritmeticos,relacionais,logicos.");
+                        return false;
+                    }
+                    generator.setOperatorMix(Integer.parseInt(weights[0].trim()),
+                            Integer.parseInt(weights[1].trim()), Integer.parseInt(weights[2].trim()));
+                    break;
+                }
+                case "--seed":
+                    generator.setSeed(Long.parseLong(value));
+                    break;
+                case "--invalid": {
+                    double percent = Double.parseDouble(value);
+                    if (percent < 0 || percent > 100) {
+                        out.println("A opcao --invalid exige uma porcentagem entre 0 e 100.");
+                        return false;
+                    }
+                    generator.setErrorRate(percent / 100);
+                    break;
+                }
+                case "--out":
+                    outputPath = Paths.get(value);
+                    break;
+                default:
+                    out.println("Opcao desconhecida: " + option);
+                    out.println(USAGE);
+                    return false;
+            }
+        }
+        if (verify && outputPath == null) {
+            out.println("A opcao --verify exige --out.");
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * @return O tamanho em bytes, com sufixo opcional K, M ou G (potências de 1024).
+     */
+    static long parseSize(String value) {
+        String digits = value.trim().toUpperCase(Locale.ROOT);
+        long unit = 1;
+        if (digits.endsWith("K") || digits.endsWith("M") || digits.endsWith("G")) {
+            unit = 1L << (10 * ("KMG".indexOf(digits.charAt(digits.length() - 1)) + 1));
+            digits = digits.substring(0, digits.length() - 1);
+        }
+        return Math.multiplyExact(Long.parseLong(digits), unit);
+    }
+}
@@ -0,0 +1,17 @@
+package compilador.lexer;
+
+/**
+ * Recebe os erros léxicos encontrados pelo {@link Scanner}, no lugar da
+ * mensagem impressa em System.err; usado, por exemplo, para marcar os erros
+ * no editor da GUI.
+ */
+public interface LexicalErrorListener {
+
+    /**
+     * @param offset  A posição do caractere inválido, em caracteres desde o
+     *                início do código-fonte.
+     * @param line    A linha do erro.
+     * @param message A descrição do erro.
+     */
+    void lexicalError(int offset, int line, String message);
+}
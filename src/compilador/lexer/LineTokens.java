@@ -0,0 +1,132 @@
+package compilador.lexer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Tokens de uma única linha do código-fonte: trechos (início, fim, tipo) em
+ * ordem, com posições relativas ao início da linha, e os erros léxicos.
+ *
+ * Nenhum token atravessa uma quebra de linha (o comentário "//" termina no
+ * '\n'), então o Scanner está no estado inicial no começo de toda linha e os
+ * tokens de uma linha só dependem dela. Quem guarda os tokens por linha (o
+ * editor da GUI, o servidor LSP) só precisa analisar de novo as linhas que
+ * uma edição tocou.
+ */
+public final class LineTokens {
+
+    /** Tipo dos trechos de comentário; os demais usam o ordinal do TokenType. */
+    public static final int COMMENT = -1;
+
+    private final int[] runs;
+    private final int[] errors;
+    private final String[] messages;
+
+    private LineTokens(int[] runs, int[] errors, String[] messages) {
+        this.runs = runs;
+        this.errors = errors;
+        this.messages = messages;
+    }
+
+    /**
+     * Analisa uma linha.
+     * @param scanner O Scanner a reutilizar; o seu listener de erros é trocado.
+     * @param text O texto da linha (o '\n' final, se houver, é ignorado).
+     */
+    public static LineTokens scan(Scanner scanner, String text) {
+        int[] runs = new int[24];
+        int count = 0;
+        int end = 0;
+        List<int[]> errors = new ArrayList<>();
+        List<String> messages = new ArrayList<>();
+        scanner.setErrorListener((offset, line, message) -> {
+            errors.add(new int[]{offset, offset + 1});
+            messages.add(message);
+        });
+        scanner.reset(text);
+        try {
+            for (Token token = scanner.nextToken(); token.type != TokenType.EOF; token = scanner.nextToken()) {
+                if (count + 3 > runs.length) {
+                    runs = Arrays.copyOf(runs, runs.length * 2);
+                }
+                int start = scanner.getTokenOffset();
+                end = start + token.lexeme.length();
+                runs[count++] = start;
+                runs[count++] = end;
+                runs[count++] = token.type.ordinal();
+            }
+        } catch (NumberFormatException e) {
+            // Literal grande demais: o resto da linha não é analisado
+            errors.add(new int[]{end, text.length()});
+            messages.add("Literal numerico invalido.");
+        }
+        // Um comentário vai até o fim da linha, então só pode estar depois do último token
+        int comment = text.indexOf("//", end);
+        if (comment >= 0) {
+            if (count + 3 > runs.length) {
+                runs = Arrays.copyOf(runs, count + 3);
+            }
+            int commentEnd = text.endsWith("\n") ? text.length() - 1 : text.length();
+            runs[count++] = comment;
+            runs[count++] = commentEnd;
+            runs[count++] = COMMENT;
+        }
+        int[] errorRanges = new int[errors.size() * 2];
+        for (int i = 0; i < errors.size(); i++) {
+            errorRanges[2 * i] = errors.get(i)[0];
+            errorRanges[2 * i + 1] = errors.get(i)[1];
+        }
+        return new LineTokens(Arrays.copyOf(runs, count), errorRanges, messages.toArray(new String[0]));
+    }
+
+    /**
+     * @return O número de trechos (tokens e comentário).
+     */
+    public int size() {
+        return runs.length / 3;
+    }
+
+    public int start(int run) {
+        return runs[3 * run];
+    }
+
+    public int end(int run) {
+        return runs[3 * run + 1];
+    }
+
+    /**
+     * @return O ordinal do TokenType do trecho, ou {@link #COMMENT}.
+     */
+    public int kind(int run) {
+        return runs[3 * run + 2];
+    }
+
+    /**
+     * @return O trecho que contém a coluna (ou termina nela), ou -1.
+     */
+    public int runAt(int column) {
+        for (int run = 0; run < size(); run++) {
+            if (column >= start(run) && column <= end(run)) {
+                return run;
+            }
+        }
+        return -1;
+    }
+
+    public int errorCount() {
+        return messages.length;
+    }
+
+    public int errorStart(int error) {
+        return errors[2 * error];
+    }
+
+    public int errorEnd(int error) {
+        return errors[2 * error + 1];
+    }
+
+    public String errorMessage(int error) {
+        return messages[error];
+    }
+}
@@ -1,5 +1,9 @@
 package compilador.lexer;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -10,16 +14,40 @@ import java.util.Map;
  * A classe Scanner, também conhecida como Analisador Léxico ou Lexer.
  * Sua responsabilidade é converter uma string de código-fonte em uma lista de Tokens.
  * Ela agrupa caracteres em lexemas e os associa a um tipo de token.
+ *
+ * Além da lista completa ({@link #scanTokens()}), o Scanner pode entregar um
+ * token por vez ({@link #nextToken()}) lendo o código-fonte de um Reader, com
+ * um buffer que guarda apenas o trecho ainda não consumido. Assim programas
+ * muito grandes podem ser analisados sem ficarem inteiros na memória.
+ *
+ * Nenhum token (nem comentário) atravessa uma quebra de linha, então o
+ * início de cada linha é um ponto em que a análise pode recomeçar do zero;
+ * o editor da GUI usa isso para analisar de novo apenas as linhas editadas.
  */
 public class Scanner {
 
-    private final String source;
-    private final List<Token> tokens = new ArrayList<>();
+    private static final int BUFFER_SIZE = 8192;
 
-    // Ponteiros para controlar a análise no código-fonte
+    // Caracteres do código-fonte. Lendo de um Reader, contém apenas a janela
+    // a partir do início do lexema atual e é reabastecido sob demanda.
+    private char[] buffer;
+    private int length;
+    private Reader reader; // null quando o código-fonte é uma String
+    private boolean exhausted;
+
+    // Ponteiros para controlar a análise no código-fonte (índices em buffer)
     private int start = 0;   // Início do lexema atual
     private int current = 0; // Caractere sendo analisado
     private int line = 1;    // Linha atual, para reportar erros
+    private int discarded = 0;   // Caracteres já descartados do início do buffer
+    private int tokenOffset = 0; // Posição do último token devolvido
+
+    // Recebe os erros léxicos; se for null, eles são impressos em System.err
+    private LexicalErrorListener errorListener;
+
+    // Token produzido pela última chamada a scanToken (null para espaços e comentários)
+    private Token scanned;
+    private boolean finished;
 
     // Mapa estático para armazenar e consultar palavras-chave da linguagem
     private static final Map<String, TokenType> keywords;
@@ -48,7 +76,81 @@ public class Scanner {
      * @param source O código-fonte completo como uma única String.
      */
     public Scanner(String source) {
-        this.source = source;
+        this.buffer = source.toCharArray();
+        this.length = buffer.length;
+        this.reader = null;
+        this.exhausted = true;
+    }
+
+    /**
+     * Cria um Scanner que lê o código-fonte aos poucos, à medida que os tokens
+     * são pedidos. O Reader não é fechado pelo Scanner.
+     * @param reader A origem do código-fonte.
+     */
+    public Scanner(Reader reader) {
+        this.buffer = new char[BUFFER_SIZE];
+        this.length = 0;
+        this.reader = reader;
+        this.exhausted = false;
+    }
+
+    /**
+     * Prepara o Scanner para analisar outro código-fonte, reaproveitando o
+     * buffer de caracteres quando ele for grande o bastante.
+     * @param source O código-fonte completo como uma única String.
+     */
+    public void reset(String source) {
+        reset(source, 1);
+    }
+
+    /**
+     * Como {@link #reset(String)}, para um trecho que começa na linha
+     * informada (ex: as linhas editadas de um programa maior); os tokens e
+     * as mensagens de erro usam a numeração do programa inteiro.
+     * @param source O trecho do código-fonte, começando no início de uma linha.
+     * @param firstLine O número da linha em que o trecho começa.
+     */
+    public void reset(String source, int firstLine) {
+        int size = source.length();
+        if (buffer.length < size) {
+            buffer = source.toCharArray();
+        } else {
+            source.getChars(0, size, buffer, 0);
+        }
+        length = size;
+        reader = null;
+        exhausted = true;
+        start = 0;
+        current = 0;
+        line = firstLine;
+        discarded = 0;
+        tokenOffset = 0;
+        scanned = null;
+        finished = false;
+    }
+
+    /**
+     * Define quem recebe os erros léxicos, no lugar de System.err.
+     * @param errorListener O destino dos erros, ou null para imprimi-los.
+     */
+    public void setErrorListener(LexicalErrorListener errorListener) {
+        this.errorListener = errorListener;
+    }
+
+    /**
+     * @return A posição, em caracteres desde o início do código-fonte, do
+     *         primeiro caractere do último token devolvido por {@link #nextToken()}.
+     */
+    public int getTokenOffset() {
+        return tokenOffset;
+    }
+
+    /**
+     * @return O tamanho do buffer de caracteres, para quem decide se vale a
+     *         pena guardar o Scanner para reutilização.
+     */
+    public int getBufferCapacity() {
+        return buffer.length;
     }
 
     /**
@@ -56,15 +158,45 @@ public class Scanner {
      * @return Uma lista de tokens extraídos do código-fonte.
      */
     public List<Token> scanTokens() {
-        while (!isAtEnd()) {
+        return scanTokens(new ArrayList<>());
+    }
+
+    /**
+     * Executa a análise léxica acrescentando os tokens a uma lista existente.
+     * @param tokens A lista que recebe os tokens (normalmente vazia).
+     * @return A própria lista.
+     */
+    public List<Token> scanTokens(List<Token> tokens) {
+        Token token;
+        do {
+            token = nextToken();
+            tokens.add(token);
+        } while (token.type != TokenType.EOF);
+        return tokens;
+    }
+
+    /**
+     * Analisa o código-fonte até o próximo token.
+     * @return O próximo token; ao fim do código-fonte, um token EOF (também
+     *         nas chamadas seguintes).
+     */
+    public Token nextToken() {
+        while (!finished && !isAtEnd()) {
             // Inicia um novo lexema no começo de cada iteração
             start = current;
             scanToken();
+            if (scanned != null) {
+                Token token = scanned;
+                scanned = null;
+                tokenOffset = discarded + start;
+                return token;
+            }
         }
 
-        // Adiciona um token final para marcar o fim do arquivo (EOF)
-        tokens.add(new Token(TokenType.EOF, "", null, line));
-        return tokens;
+        // Token final para marcar o fim do arquivo (EOF)
+        finished = true;
+        tokenOffset = discarded + current;
+        return new Token(TokenType.EOF, "", null, line);
     }
 
     /**
@@ -143,7 +275,7 @@ public class Scanner {
             advance();
         }
 
-        String text = source.substring(start, current);
+        String text = lexeme();
         TokenType type = keywords.get(text); // Verifica se o texto é uma palavra-chave
         if (type == null) {
             type = TokenType.ID; // Se não for, é um identificador
@@ -168,21 +300,58 @@ public class Scanner {
                 advance();
             }
             // Adiciona o token como FLOAT_LIT
-            addToken(TokenType.FLOAT_LIT, Double.parseDouble(source.substring(start, current)));
+            addToken(TokenType.FLOAT_LIT, Double.parseDouble(lexeme()));
         } else {
             // Adiciona o token como INT_LIT
-            addToken(TokenType.INT_LIT, Integer.parseInt(source.substring(start, current)));
+            addToken(TokenType.INT_LIT, Integer.parseInt(lexeme()));
         }
     }
 
     // --- Métodos Auxiliares ---
 
     private boolean isAtEnd() {
-        return current >= source.length();
+        return current >= length && !fill();
+    }
+
+    /**
+     * Lê mais caracteres do Reader para o buffer, descartando os que
+     * antecedem o lexema atual.
+     * @return false se não há mais caracteres.
+     */
+    private boolean fill() {
+        if (exhausted) {
+            return false;
+        }
+        if (start > 0) {
+            discarded += start;
+            System.arraycopy(buffer, start, buffer, 0, length - start);
+            length -= start;
+            current -= start;
+            start = 0;
+        }
+        if (length == buffer.length) {
+            // Lexema maior que o buffer
+            buffer = Arrays.copyOf(buffer, buffer.length * 2);
+        }
+        try {
+            int read = reader.read(buffer, length, buffer.length - length);
+            if (read < 0) {
+                exhausted = true;
+                return false;
+            }
+            length += read;
+            return true;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
     }
 
     private char advance() {
-        return source.charAt(current++);
+        return buffer[current++];
+    }
+
+    private String lexeme() {
+        return new String(buffer, start, current - start);
     }
 
     private void addToken(TokenType type) {
@@ -190,13 +359,12 @@ public class Scanner {
     }
 
     private void addToken(TokenType type, Object literal) {
-        String text = source.substring(start, current);
-        tokens.add(new Token(type, text, literal, line));
+        scanned = new Token(type, lexeme(), literal, line);
     }
 
     private boolean match(char expected) {
         if (isAtEnd()) return false;
-        if (source.charAt(current) != expected) return false;
+        if (buffer[current] != expected) return false;
 
         current++;
         return true;
@@ -204,12 +372,14 @@ public class Scanner {
 
     private char peek() {
         if (isAtEnd()) return '\0';
-        return source.charAt(current);
+        return buffer[current];
     }
 
     private char peekNext() {
-        if (current + 1 >= source.length()) return '\0';
-        return source.charAt(current + 1);
+        while (current + 1 >= length) {
+            if (!fill()) return '\0';
+        }
+        return buffer[current + 1];
     }
 
     private boolean isDigit(char c) {
@@ -225,6 +395,10 @@ public class Scanner {
     }
 
     private void error(int line, String message) {
+        if (errorListener != null) {
+            errorListener.lexicalError(discarded + start, line, message);
+            return;
+        }
         // Método simples para reportar erros
         System.err.println("[Linha " + line + "] Erro Léxico: " + message);
     }
@@ -0,0 +1,22 @@
+package compilador.lexer;
+
+/**
+ * Acesso por posição aos tokens de um programa, como usado pelo Parser.
+ * Pode ser uma lista completa (ex: {@code scanner.scanTokens()::get}) ou um
+ * {@link TokenStream}, que guarda apenas uma janela de tokens.
+ */
+public interface TokenSource {
+
+    /**
+     * @param index A posição do token no programa, a partir de 0.
+     * @return O token; depois do último, o token EOF.
+     */
+    Token get(int index);
+
+    /**
+     * Indica que os tokens anteriores a {@code index} não serão mais
+     * consultados e podem ser descartados.
+     */
+    default void release(int index) {
+    }
+}
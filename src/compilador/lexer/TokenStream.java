@@ -0,0 +1,67 @@
+package compilador.lexer;
+
+import java.util.Arrays;
+import java.util.function.Supplier;
+
+/**
+ * Fonte de tokens em streaming: pede os tokens ao {@link Scanner} à medida
+ * que o Parser avança e mantém apenas os que ainda podem ser consultados,
+ * desde a última posição liberada com {@link #release(int)}. A memória usada
+ * depende do maior trecho entre duas liberações, e não do tamanho do programa.
+ *
+ * Os tokens também podem vir de outra origem que os entregue em ordem, como
+ * a fila alimentada por uma thread de análise léxica na compilação em pipeline.
+ */
+public class TokenStream implements TokenSource {
+
+    private final Supplier<Token> scanner;
+    private Token[] window = new Token[256];
+    private int first = 0;  // Posição no programa de window[0]
+    private int count = 0;
+    private Token eof;
+
+    public TokenStream(Scanner scanner) {
+        this(scanner::nextToken);
+    }
+
+    /**
+     * @param scanner Entrega o próximo token a cada chamada, terminando em EOF.
+     *        Não é chamado de novo depois do EOF.
+     */
+    public TokenStream(Supplier<Token> scanner) {
+        this.scanner = scanner;
+    }
+
+    @Override
+    public Token get(int index) {
+        if (index < first) {
+            throw new IllegalStateException("Token " + index + " ja foi descartado (janela a partir de " + first + ").");
+        }
+        while (index >= first + count) {
+            if (eof != null) {
+                return eof;
+            }
+            Token token = scanner.get();
+            if (token.type == TokenType.EOF) {
+                eof = token;
+            }
+            if (count == window.length) {
+                window = Arrays.copyOf(window, count * 2);
+            }
+            window[count++] = token;
+        }
+        return window[index - first];
+    }
+
+    @Override
+    public void release(int index) {
+        int discarded = Math.min(index - first, count);
+        if (discarded <= 0) {
+            return;
+        }
+        System.arraycopy(window, discarded, window, 0, count - discarded);
+        Arrays.fill(window, count - discarded, count, null);
+        count -= discarded;
+        first += discarded;
+    }
+}
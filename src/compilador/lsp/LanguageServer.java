@@ -0,0 +1,692 @@
+package compilador.lsp;
+
+import compilador.CompilationResult;
+import compilador.checker.IdEntry;
+import compilador.diagnostics.Diagnostic;
+import compilador.lexer.LineTokens;
+import compilador.lexer.TokenType;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Servidor LSP (Language Server Protocol) pela entrada e saída padrão, para
+ * integrar o compilador a editores sem depender da GUI.
+ *
+ * Oferece:
+ * - diagnósticos: os erros léxicos de cada linha e o erro de sintaxe ou de
+ *   contexto da compilação, publicados a cada versão do documento;
+ * - hover e "ir para a definição" das variáveis, pela tabela de símbolos;
+ * - tokens semânticos (documento inteiro ou um trecho de linhas), pelo Scanner.
+ *
+ * A sincronização é incremental: o cliente envia só os trechos alterados,
+ * o documento guarda os tokens por linha e cada documento tem o seu
+ * {@link compilador.IncrementalCompiler}, de modo que uma tecla num arquivo
+ * grande não reenvia, não analisa de novo e não recompila o arquivo inteiro.
+ *
+ * As mensagens são lidas numa thread e atendidas, em ordem, numa única
+ * thread de trabalho, dona dos documentos. Um pedido cancelado pelo cliente
+ * ($/cancelRequest) que ainda não começou é respondido com RequestCancelled;
+ * um pedido feito sobre uma versão que já mudou é respondido com
+ * ContentModified, e a compilação de uma versão substituída é descartada
+ * (ou interrompida, se já estiver em andamento). A latência de cada pedido
+ * (total e tempo na fila) é registrada em System.err.
+ *
+ * Uso: java -cp out compilador.lsp.LanguageServer
+ */
+public class LanguageServer {
+
+    // Códigos de erro do JSON-RPC e do LSP
+    private static final int METHOD_NOT_FOUND = -32601;
+    private static final int INVALID_PARAMS = -32602;
+    private static final int INTERNAL_ERROR = -32603;
+    private static final int REQUEST_CANCELLED = -32800;
+    private static final int CONTENT_MODIFIED = -32801;
+
+    private static final int SEVERITY_ERROR = 1;
+    private static final int SYNC_INCREMENTAL = 2;
+
+    // Tipos de token semântico, na ordem da legenda enviada ao cliente
+    private static final List<String> TOKEN_TYPES =
+            Arrays.asList("keyword", "type", "number", "variable", "operator", "comment");
+    private static final int[] TOKEN_TYPE_INDEX = tokenTypeIndex();
+    private static final int COMMENT_TYPE = TOKEN_TYPES.indexOf("comment");
+
+    private final InputStream in;
+    private final OutputStream out;
+    private final ExecutorService worker = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "lsp-worker");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Só na thread de trabalho
+    private final Map<String, SourceDocument> documents = new HashMap<>();
+
+    // Só na thread de leitura, exceto latestVersions (lido pela de trabalho)
+    private final Map<String, Integer> latestVersions = new ConcurrentHashMap<>();
+    private final Map<String, Future<?>> pendingDiagnostics = new HashMap<>();
+    private final Map<Object, Request> pendingRequests = new ConcurrentHashMap<>();
+    private volatile boolean shutdown;
+
+    private final Map<String, Stats> stats = new ConcurrentHashMap<>();
+
+    public LanguageServer(InputStream in, OutputStream out) {
+        this.in = new BufferedInputStream(in);
+        this.out = new BufferedOutputStream(out);
+    }
+
+    public static void main(String[] args) throws IOException {
+        // A saída padrão é o canal do protocolo: nada mais pode escrever nela
+        OutputStream stdout = System.out;
+        System.setOut(System.err);
+        System.exit(new LanguageServer(System.in, stdout).run());
+    }
+
+    /**
+     * Atende as mensagens até "exit" ou até a entrada terminar.
+     * @return O código de saída: 0 se o cliente pediu shutdown antes de sair.
+     */
+    public int run() throws IOException {
+        log("Servidor LSP iniciado");
+        String message;
+        while ((message = readMessage()) != null) {
+            Map<String, Object> json;
+            try {
+                json = map(Json.parse(message));
+            } catch (RuntimeException e) {
+                log("Mensagem invalida: " + e.getMessage());
+                continue;
+            }
+            String method = (String) json.get("method");
+            if (method == null) {
+                continue; // Resposta a um pedido do servidor (não fazemos nenhum)
+            }
+            Map<String, Object> params = json.get("params") instanceof Map ? map(json.get("params")) : new HashMap<>();
+            if (method.equals("exit")) {
+                break;
+            }
+            try {
+                if (!json.containsKey("id")) {
+                    notification(method, params);
+                } else {
+                    request(json.get("id"), method, params);
+                }
+            } catch (RuntimeException e) {
+                log(method + ": parametros invalidos: " + e.getMessage());
+                if (json.containsKey("id")) {
+                    sendError(json.get("id"), INVALID_PARAMS, String.valueOf(e.getMessage()));
+                }
+            }
+        }
+        worker.shutdownNow();
+        return shutdown ? 0 : 1;
+    }
+
+    // --- NOTIFICAÇÕES ---
+
+    private void notification(String method, Map<String, Object> params) {
+        switch (method) {
+            case "textDocument/didOpen": {
+                Map<String, Object> document = map(params.get("textDocument"));
+                String uri = (String) document.get("uri");
+                int version = integer(document.get("version"));
+                String text = (String) document.get("text");
+                latestVersions.put(uri, version);
+                worker.execute(() -> documents.put(uri, new SourceDocument(uri, version, text)));
+                scheduleDiagnostics(uri, version);
+                break;
+            }
+            case "textDocument/didChange": {
+                Map<String, Object> document = map(params.get("textDocument"));
+                String uri = (String) document.get("uri");
+                int version = integer(document.get("version"));
+                List<Object> changes = list(params.get("contentChanges"));
+                latestVersions.put(uri, version);
+                worker.execute(() -> applyChanges(uri, version, changes));
+                scheduleDiagnostics(uri, version);
+                break;
+            }
+            case "textDocument/didClose": {
+                String uri = (String) map(params.get("textDocument")).get("uri");
+                latestVersions.remove(uri);
+                Future<?> pending = pendingDiagnostics.remove(uri);
+                if (pending != null) {
+                    pending.cancel(true);
+                }
+                worker.execute(() -> {
+                    documents.remove(uri);
+                    publishDiagnostics(uri, null, new ArrayList<>());
+                });
+                break;
+            }
+            case "$/cancelRequest": {
+                Request request = pendingRequests.get(params.get("id"));
+                if (request != null && request.claim()) {
+                    pendingRequests.remove(request.id);
+                    sendError(request.id, REQUEST_CANCELLED, "Pedido cancelado.");
+                    record(request, "cancelado");
+                }
+                break;
+            }
+            default:
+                break; // "initialized", "$/setTrace" etc.: nada a fazer
+        }
+    }
+
+    private void applyChanges(String uri, int version, List<Object> changes) {
+        SourceDocument document = documents.get(uri);
+        if (document == null) {
+            return;
+        }
+        for (Object change : changes) {
+            Map<String, Object> edit = map(change);
+            String text = (String) edit.get("text");
+            if (edit.get("range") == null) {
+                document.replaceAll(text);
+            } else {
+                Map<String, Object> range = map(edit.get("range"));
+                Map<String, Object> start = map(range.get("start"));
+                Map<String, Object> end = map(range.get("end"));
+                document.replace(integer(start.get("line")), integer(start.get("character")),
+                        integer(end.get("line")), integer(end.get("character")), text);
+            }
+        }
+        document.version = version;
+    }
+
+    // --- DIAGNÓSTICOS ---
+
+    /**
+     * Agenda a compilação da versão, cancelando a da versão anterior.
+     */
+    private void scheduleDiagnostics(String uri, int version) {
+        Future<?> previous = pendingDiagnostics.put(uri, worker.submit(() -> diagnose(uri, version)));
+        if (previous != null) {
+            previous.cancel(true);
+        }
+    }
+
+    private void diagnose(String uri, int version) {
+        SourceDocument document = documents.get(uri);
+        if (document == null || !isLatest(uri, version)) {
+            return; // Já existe uma versão mais nova na fila
+        }
+        long start = System.nanoTime();
+        CompilationResult result;
+        try {
+            // O listener faz a compilação parar se a thread for interrompida
+            result = document.compiler.compile(document.text(), phase -> { });
+        } catch (CancellationException e) {
+            log(String.format("Diagnosticos de %s (versao %d): cancelados", uri, version));
+            return;
+        }
+
+        List<Object> diagnostics = new ArrayList<>();
+        for (int line = 0; line < document.lineCount(); line++) {
+            LineTokens tokens = document.tokens(line);
+            for (int i = 0; i < tokens.errorCount(); i++) {
+                diagnostics.add(diagnostic(range(line, tokens.errorStart(i), line, tokens.errorEnd(i)),
+                        tokens.errorMessage(i)));
+            }
+        }
+        // Os erros léxicos já vieram dos tokens de cada linha
+        for (Diagnostic error : result.getDiagnostics()) {
+            if (error.kind == Diagnostic.Kind.LEXICAL) {
+                continue;
+            }
+            // Sem linha (ex: um número grande demais), o erro fica na primeira
+            int line = Math.max(0, Math.min(error.line - 1, document.lineCount() - 1));
+            diagnostics.add(diagnostic(range(line, 0, line, document.lineLength(line)), error.message));
+        }
+        if (!isLatest(uri, version)) {
+            return;
+        }
+        publishDiagnostics(uri, version, diagnostics);
+        log(String.format("Diagnosticos de %s (versao %d): %d em %d us",
+                uri, version, diagnostics.size(), (System.nanoTime() - start) / 1000));
+    }
+
+    private static Map<String, Object> diagnostic(Map<String, Object> range, String message) {
+        Map<String, Object> diagnostic = new LinkedHashMap<>();
+        diagnostic.put("range", range);
+        diagnostic.put("severity", SEVERITY_ERROR);
+        diagnostic.put("source", "compilador");
+        diagnostic.put("message", message);
+        return diagnostic;
+    }
+
+    private void publishDiagnostics(String uri, Integer version, List<Object> diagnostics) {
+        Map<String, Object> params = new LinkedHashMap<>();
+        params.put("uri", uri);
+        if (version != null) {
+            params.put("version", version);
+        }
+        params.put("diagnostics", diagnostics);
+        Map<String, Object> message = new LinkedHashMap<>();
+        message.put("jsonrpc", "2.0");
+        message.put("method", "textDocument/publishDiagnostics");
+        message.put("params", params);
+        send(message);
+    }
+
+    private boolean isLatest(String uri, int version) {
+        Integer latest = latestVersions.get(uri);
+        return latest != null && latest == version;
+    }
+
+    // --- PEDIDOS ---
+
+    private void request(Object id, String method, Map<String, Object> params) {
+        switch (method) {
+            case "initialize":
+                sendResult(id, capabilities());
+                return;
+            case "shutdown":
+                // Depois de tudo o que já está na fila
+                worker.execute(() -> {
+                    shutdown = true;
+                    sendResult(id, null);
+                });
+                return;
+            case "textDocument/hover":
+            case "textDocument/definition":
+            case "textDocument/semanticTokens/full":
+            case "textDocument/semanticTokens/range":
+                break;
+            default:
+                sendError(id, METHOD_NOT_FOUND, "Metodo nao suportado: " + method);
+                return;
+        }
+        String uri = (String) map(params.get("textDocument")).get("uri");
+        Request request = new Request(id, method, latestVersions.get(uri));
+        pendingRequests.put(id, request);
+        worker.execute(() -> {
+            if (!request.claim()) {
+                return; // Cancelado pelo cliente antes de começar
+            }
+            pendingRequests.remove(id);
+            request.started = System.nanoTime();
+            SourceDocument document = documents.get(uri);
+            if (document == null || request.version == null || !isLatest(uri, request.version)) {
+                sendError(id, CONTENT_MODIFIED, "Documento alterado ou fechado.");
+                record(request, "descartado");
+                return;
+            }
+            Object result;
+            try {
+                result = answer(method, params, document);
+            } catch (RuntimeException e) {
+                sendError(id, INTERNAL_ERROR, String.valueOf(e.getMessage()));
+                record(request, "erro");
+                return;
+            }
+            sendResult(id, result);
+            record(request, null);
+        });
+    }
+
+    private Object answer(String method, Map<String, Object> params, SourceDocument document) {
+        switch (method) {
+            case "textDocument/hover":
+                return hover(document, map(params.get("position")));
+            case "textDocument/definition":
+                return definition(document, map(params.get("position")));
+            case "textDocument/semanticTokens/full":
+                return semanticTokens(document, 0, document.lineCount() - 1);
+            default: { // semanticTokens/range
+                Map<String, Object> range = map(params.get("range"));
+                return semanticTokens(document, integer(map(range.get("start")).get("line")),
+                        integer(map(range.get("end")).get("line")));
+            }
+        }
+    }
+
+    private static Map<String, Object> capabilities() {
+        Map<String, Object> sync = new LinkedHashMap<>();
+        sync.put("openClose", true);
+        sync.put("change", SYNC_INCREMENTAL);
+
+        Map<String, Object> legend = new LinkedHashMap<>();
+        legend.put("tokenTypes", TOKEN_TYPES);
+        legend.put("tokenModifiers", new ArrayList<>());
+        Map<String, Object> semanticTokens = new LinkedHashMap<>();
+        semanticTokens.put("legend", legend);
+        semanticTokens.put("full", true);
+        semanticTokens.put("range", true);
+
+        Map<String, Object> capabilities = new LinkedHashMap<>();
+        capabilities.put("textDocumentSync", sync);
+        capabilities.put("hoverProvider", true);
+        capabilities.put("definitionProvider", true);
+        capabilities.put("semanticTokensProvider", semanticTokens);
+
+        Map<String, Object> serverInfo = new LinkedHashMap<>();
+        serverInfo.put("name", "compilador-lsp");
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("capabilities", capabilities);
+        result.put("serverInfo", serverInfo);
+        return result;
+    }
+
+    // --- HOVER, DEFINIÇÃO E TOKENS ---
+
+    /**
+     * @return O tipo da variável sob o cursor, pela tabela de símbolos da
+     *         última versão sem erro de sintaxe; null se não houver.
+     */
+    private static Object hover(SourceDocument document, Map<String, Object> position) {
+        int line = integer(position.get("line"));
+        int run = identifierAt(document, line, integer(position.get("character")));
+        if (run < 0) {
+            return null;
+        }
+        LineTokens tokens = document.tokens(line);
+        String name = document.lineText(line).substring(tokens.start(run), tokens.end(run));
+        IdEntry entry = document.compiler.getSymbolTable().find(name);
+        if (entry == null) {
+            return null;
+        }
+        Map<String, Object> contents = new LinkedHashMap<>();
+        contents.put("kind", "plaintext");
+        contents.put("value", "var " + name + " : " + entry.type.name().toLowerCase(Locale.ROOT));
+        Map<String, Object> hover = new LinkedHashMap<>();
+        hover.put("contents", contents);
+        hover.put("range", range(line, tokens.start(run), line, tokens.end(run)));
+        return hover;
+    }
+
+    /**
+     * @return A declaração da variável sob o cursor, ou null se ela não foi
+     *         declarada (ou se a declaração mudou desde a última versão válida).
+     */
+    private static Object definition(SourceDocument document, Map<String, Object> position) {
+        int line = integer(position.get("line"));
+        int run = identifierAt(document, line, integer(position.get("character")));
+        if (run < 0) {
+            return null;
+        }
+        LineTokens tokens = document.tokens(line);
+        String name = document.lineText(line).substring(tokens.start(run), tokens.end(run));
+        IdEntry entry = document.compiler.getSymbolTable().find(name);
+        int declarationLine = entry == null ? -1 : entry.token.line - 1;
+        if (declarationLine < 0 || declarationLine >= document.lineCount()) {
+            return null;
+        }
+        LineTokens declaration = document.tokens(declarationLine);
+        String text = document.lineText(declarationLine);
+        for (int i = 0; i < declaration.size(); i++) {
+            if (declaration.kind(i) == TokenType.ID.ordinal()
+                    && text.substring(declaration.start(i), declaration.end(i)).equals(name)) {
+                Map<String, Object> location = new LinkedHashMap<>();
+                location.put("uri", document.uri);
+                location.put("range", range(declarationLine, declaration.start(i), declarationLine, declaration.end(i)));
+                return location;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return O trecho do identificador na posição, ou -1.
+     */
+    private static int identifierAt(SourceDocument document, int line, int character) {
+        if (line < 0 || line >= document.lineCount()) {
+            return -1;
+        }
+        LineTokens tokens = document.tokens(line);
+        int run = tokens.runAt(character);
+        // Cursor entre dois tokens ("x:=") fica com o identificador
+        if (run >= 0 && tokens.kind(run) != TokenType.ID.ordinal()
+                && run + 1 < tokens.size() && tokens.start(run + 1) == character) {
+            run++;
+        }
+        return run >= 0 && tokens.kind(run) == TokenType.ID.ordinal() ? run : -1;
+    }
+
+    /**
+     * Tokens semânticos das linhas [firstLine, lastLine], codificados como o
+     * LSP pede: (delta de linha, delta de coluna, comprimento, tipo, modificadores).
+     */
+    private static Object semanticTokens(SourceDocument document, int firstLine, int lastLine) {
+        firstLine = Math.max(0, firstLine);
+        lastLine = Math.min(lastLine, document.lineCount() - 1);
+        int[] data = new int[64];
+        int count = 0;
+        int previousLine = 0;
+        int previousStart = 0;
+        for (int line = firstLine; line <= lastLine; line++) {
+            LineTokens tokens = document.tokens(line);
+            for (int i = 0; i < tokens.size(); i++) {
+                int kind = tokens.kind(i);
+                int type = kind == LineTokens.COMMENT ? COMMENT_TYPE : TOKEN_TYPE_INDEX[kind];
+                if (type < 0) {
+                    continue; // Pontuação não é destacada
+                }
+                if (count + 5 > data.length) {
+                    data = Arrays.copyOf(data, data.length * 2);
+                }
+                int start = tokens.start(i);
+                data[count++] = line - previousLine;
+                data[count++] = line == previousLine ? start - previousStart : start;
+                data[count++] = tokens.end(i) - start;
+                data[count++] = type;
+                data[count++] = 0;
+                previousLine = line;
+                previousStart = start;
+            }
+        }
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("data", Arrays.copyOf(data, count));
+        return result;
+    }
+
+    private static int[] tokenTypeIndex() {
+        int[] index = new int[TokenType.values().length];
+        Arrays.fill(index, -1);
+        for (TokenType type : TokenType.values()) {
+            switch (type) {
+                case PROGRAM: case VAR: case BEGIN: case END: case IF: case THEN:
+                case ELSE: case WHILE: case DO: case OR: case AND: case TRUE: case FALSE:
+                    index[type.ordinal()] = TOKEN_TYPES.indexOf("keyword");
+                    break;
+                case INTEGER: case BOOLEAN:
+                    index[type.ordinal()] = TOKEN_TYPES.indexOf("type");
+                    break;
+                case INT_LIT: case FLOAT_LIT:
+                    index[type.ordinal()] = TOKEN_TYPES.indexOf("number");
+                    break;
+                case ID:
+                    index[type.ordinal()] = TOKEN_TYPES.indexOf("variable");
+                    break;
+                case PLUS: case MINUS: case TIMES: case DIV: case LT: case GT: case EQ: case ASSIGN:
+                    index[type.ordinal()] = TOKEN_TYPES.indexOf("operator");
+                    break;
+                default:
+                    break;
+            }
+        }
+        return index;
+    }
+
+    private static Map<String, Object> range(int startLine, int startCharacter, int endLine, int endCharacter) {
+        Map<String, Object> range = new LinkedHashMap<>();
+        range.put("start", position(startLine, startCharacter));
+        range.put("end", position(endLine, endCharacter));
+        return range;
+    }
+
+    private static Map<String, Object> position(int line, int character) {
+        Map<String, Object> position = new LinkedHashMap<>();
+        position.put("line", line);
+        position.put("character", character);
+        return position;
+    }
+
+    // --- LATÊNCIA ---
+
+    /**
+     * Pedido recebido do cliente; é atendido ou cancelado uma única vez.
+     */
+    private static final class Request {
+        final Object id;
+        final String method;
+        final Integer version;          // Versão do documento quando o pedido chegou
+        final long received = System.nanoTime();
+        volatile long started;
+        private final AtomicBoolean claimed = new AtomicBoolean();
+
+        Request(Object id, String method, Integer version) {
+            this.id = id;
+            this.method = method;
+            this.version = version;
+        }
+
+        boolean claim() {
+            return claimed.compareAndSet(false, true);
+        }
+    }
+
+    private static final class Stats {
+        final AtomicLong count = new AtomicLong();
+        final AtomicLong totalMicros = new AtomicLong();
+    }
+
+    /**
+     * Registra a latência do pedido: do recebimento à resposta, e quanto
+     * desse tempo ele esperou na fila. A média só inclui os pedidos atendidos.
+     * @param outcome null se o pedido foi atendido; senão, o motivo de não ter sido.
+     */
+    private void record(Request request, String outcome) {
+        long now = System.nanoTime();
+        long micros = (now - request.received) / 1000;
+        long queued = ((request.started == 0 ? now : request.started) - request.received) / 1000;
+        if (outcome != null) {
+            log(String.format("%s %s: %d us (fila %d us)", request.method, outcome, micros, queued));
+            return;
+        }
+        Stats methodStats = stats.computeIfAbsent(request.method, method -> new Stats());
+        long count = methodStats.count.incrementAndGet();
+        long total = methodStats.totalMicros.addAndGet(micros);
+        log(String.format("%s #%d: %d us (fila %d us, media %d us)", request.method, count, micros, queued, total / count));
+    }
+
+    // --- TRANSPORTE (JSON-RPC com cabeçalho Content-Length) ---
+
+    /**
+     * @return O conteúdo da próxima mensagem, ou null no fim da entrada.
+     */
+    private String readMessage() throws IOException {
+        int length = -1;
+        String header;
+        while ((header = readHeaderLine()) != null && !header.isEmpty()) {
+            int colon = header.indexOf(':');
+            if (colon > 0 && header.substring(0, colon).trim().equalsIgnoreCase("Content-Length")) {
+                length = Integer.parseInt(header.substring(colon + 1).trim());
+            }
+        }
+        if (header == null) {
+            return null;
+        }
+        if (length < 0) {
+            throw new IOException("Mensagem sem Content-Length");
+        }
+        byte[] content = in.readNBytes(length);
+        if (content.length != length) {
+            return null;
+        }
+        return new String(content, StandardCharsets.UTF_8);
+    }
+
+    private String readHeaderLine() throws IOException {
+        ByteArrayOutputStream line = new ByteArrayOutputStream(64);
+        int b;
+        while ((b = in.read()) != -1 && b != '\n') {
+            if (b != '\r') {
+                line.write(b);
+            }
+        }
+        if (b == -1 && line.size() == 0) {
+            return null;
+        }
+        return line.toString(StandardCharsets.US_ASCII);
+    }
+
+    private void sendResult(Object id, Object result) {
+        Map<String, Object> message = new LinkedHashMap<>();
+        message.put("jsonrpc", "2.0");
+        message.put("id", id);
+        message.put("result", result);
+        send(message);
+    }
+
+    private void sendError(Object id, int code, String text) {
+        Map<String, Object> error = new LinkedHashMap<>();
+        error.put("code", code);
+        error.put("message", text);
+        Map<String, Object> message = new LinkedHashMap<>();
+        message.put("jsonrpc", "2.0");
+        message.put("id", id);
+        message.put("error", error);
+        send(message);
+    }
+
+    private synchronized void send(Map<String, Object> message) {
+        byte[] content = Json.write(message).getBytes(StandardCharsets.UTF_8);
+        try {
+            out.write(("Content-Length: " + content.length + "\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+            out.write(content);
+            out.flush();
+        } catch (IOException e) {
+            log("Falha ao enviar resposta: " + e.getMessage());
+        }
+    }
+
+    // --- AUXILIARES ---
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> map(Object value) {
+        if (!(value instanceof Map)) {
+            throw new IllegalArgumentException("Objeto JSON esperado");
+        }
+        return (Map<String, Object>) value;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Object> list(Object value) {
+        if (!(value instanceof List)) {
+            throw new IllegalArgumentException("Array JSON esperado");
+        }
+        return (List<Object>) value;
+    }
+
+    private static int integer(Object value) {
+        if (!(value instanceof Number)) {
+            throw new IllegalArgumentException("Numero esperado");
+        }
+        return ((Number) value).intValue();
+    }
+
+    private static void log(String message) {
+        System.err.println("[lsp] " + message);
+    }
+}
@@ -0,0 +1,162 @@
+package compilador.lsp;
+
+import compilador.IncrementalCompiler;
+import compilador.lexer.LineTokens;
+import compilador.lexer.Scanner;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Documento aberto no editor do cliente: o texto atual, o início de cada
+ * linha, os tokens de cada linha e o compilador incremental do documento.
+ *
+ * As mudanças chegam como trechos (sincronização incremental do LSP), então
+ * uma edição só troca o texto do trecho, desloca o início das linhas
+ * seguintes e descarta os tokens das linhas que tocou, que são analisadas de
+ * novo quando alguém precisa delas (ver {@link LineTokens}).
+ *
+ * As posições do LSP (linha, caractere) contam caracteres UTF-16, como os
+ * índices de String em Java. Usado por uma thread de cada vez.
+ */
+final class SourceDocument {
+
+    final String uri;
+    int version;
+    final IncrementalCompiler compiler = new IncrementalCompiler();
+
+    private final StringBuilder text;
+    private int[] lineStarts = new int[16];
+    private int lineCount;
+    private final List<LineTokens> tokens = new ArrayList<>();
+    private final Scanner scanner = new Scanner("");
+
+    SourceDocument(String uri, int version, String text) {
+        this.uri = uri;
+        this.version = version;
+        this.text = new StringBuilder(text);
+        indexLines();
+    }
+
+    String text() {
+        return text.toString();
+    }
+
+    int lineCount() {
+        return lineCount;
+    }
+
+    /**
+     * Troca todo o texto (mudança sem trecho).
+     */
+    void replaceAll(String newText) {
+        text.setLength(0);
+        text.append(newText);
+        indexLines();
+    }
+
+    /**
+     * Troca o trecho entre as posições (linha, caractere) pelo texto novo.
+     */
+    void replace(int startLine, int startCharacter, int endLine, int endCharacter, String newText) {
+        int from = offset(startLine, startCharacter);
+        int to = Math.max(from, offset(endLine, endCharacter));
+        startLine = lineOf(from);
+        endLine = lineOf(to);
+        text.replace(from, to, newText);
+
+        // Inícios das linhas criadas pelo texto novo
+        int[] added = new int[4];
+        int addedCount = 0;
+        for (int i = newText.indexOf('\n'); i >= 0; i = newText.indexOf('\n', i + 1)) {
+            if (addedCount == added.length) {
+                added = Arrays.copyOf(added, addedCount * 2);
+            }
+            added[addedCount++] = from + i + 1;
+        }
+        int removedCount = endLine - startLine;
+        int delta = newText.length() - (to - from);
+        int newCount = lineCount - removedCount + addedCount;
+        if (newCount > lineStarts.length) {
+            lineStarts = Arrays.copyOf(lineStarts, Math.max(newCount, lineStarts.length * 2));
+        }
+        System.arraycopy(lineStarts, endLine + 1, lineStarts, startLine + 1 + addedCount, lineCount - endLine - 1);
+        System.arraycopy(added, 0, lineStarts, startLine + 1, addedCount);
+        for (int i = startLine + 1 + addedCount; i < newCount; i++) {
+            lineStarts[i] += delta;
+        }
+        lineCount = newCount;
+
+        tokens.subList(startLine + 1, endLine + 1).clear();
+        tokens.addAll(startLine + 1, Collections.nCopies(addedCount, null));
+        tokens.set(startLine, null);
+    }
+
+    private void indexLines() {
+        lineCount = 0;
+        int start = 0;
+        while (true) {
+            if (lineCount == lineStarts.length) {
+                lineStarts = Arrays.copyOf(lineStarts, lineCount * 2);
+            }
+            lineStarts[lineCount++] = start;
+            int end = text.indexOf("\n", start);
+            if (end < 0) {
+                break;
+            }
+            start = end + 1;
+        }
+        tokens.clear();
+        tokens.addAll(Collections.nCopies(lineCount, null));
+    }
+
+    /**
+     * @return A posição no texto, com a linha e o caractere limitados ao documento.
+     */
+    int offset(int line, int character) {
+        if (line < 0) {
+            return 0;
+        }
+        if (line >= lineCount) {
+            return text.length();
+        }
+        return lineStarts[line] + Math.max(0, Math.min(character, lineLength(line)));
+    }
+
+    /**
+     * @return A linha que contém a posição.
+     */
+    int lineOf(int offset) {
+        int line = Arrays.binarySearch(lineStarts, 0, lineCount, offset);
+        return line >= 0 ? line : -line - 2;
+    }
+
+    /**
+     * @return O comprimento da linha, sem o '\n' (nem o '\r' antes dele).
+     */
+    int lineLength(int line) {
+        int end = line + 1 < lineCount ? lineStarts[line + 1] - 1 : text.length();
+        if (end > lineStarts[line] && text.charAt(end - 1) == '\r') {
+            end--;
+        }
+        return end - lineStarts[line];
+    }
+
+    String lineText(int line) {
+        return text.substring(lineStarts[line], lineStarts[line] + lineLength(line));
+    }
+
+    /**
+     * @return Os tokens da linha, analisando-a se necessário.
+     */
+    LineTokens tokens(int line) {
+        LineTokens lineTokens = tokens.get(line);
+        if (lineTokens == null) {
+            lineTokens = LineTokens.scan(scanner, lineText(line));
+            tokens.set(line, lineTokens);
+        }
+        return lineTokens;
+    }
+}
@@ -0,0 +1,269 @@
+package compilador.metrics;
+
+import compilador.ast.ASTNode;
+import compilador.visitor.AstWalker;
+
+import java.lang.management.ManagementFactory;
+import java.util.Locale;
+import java.util.function.LongSupplier;
+
+/**
+ * Métricas das etapas de uma compilação: o tempo de relógio, os bytes
+ * alocados pela thread (pelo ThreadMXBean da JVM, -1 se ela não informar) e
+ * uma contagem do que a etapa produziu (tokens, nós da AST, símbolos,
+ * instruções ou caracteres).
+ *
+ * Cada etapa medida também vira um {@link PhaseEvent} do JDK Flight
+ * Recorder. Quem compila só cria as métricas se elas foram pedidas ou se há
+ * uma gravação do JFR com o evento ligado ({@link #isRecording()}), então
+ * sem isso o custo é o de um teste por compilação.
+ *
+ * As alocações de outras threads (ex: a geração de código em paralelo) não
+ * entram na conta. Usado por uma thread de cada vez.
+ */
+public final class CompilationMetrics {
+
+    /**
+     * Etapas medidas, na ordem do pipeline.
+     */
+    public enum Phase {
+        SCANNER("Scanner.scanTokens", "tokens"),
+        PARSER("Parser.parse", "nos"),
+        CHECKER("CheckerVisitor", "simbolos"),
+        CODEGEN("CodeGenVisitor", "instrucoes"),
+        PRINTER("ASTPrinter", "caracteres");
+
+        /** O nome da etapa nas tabelas, no JSON e nos eventos do JFR. */
+        public final String label;
+        /** O que a contagem da etapa conta. */
+        public final String unit;
+
+        Phase(String label, String unit) {
+            this.label = label;
+            this.unit = unit;
+        }
+    }
+
+    private static final int PHASES = Phase.values().length;
+
+    private final long[] wallNanos = new long[PHASES];
+    private final long[] allocatedBytes = new long[PHASES];
+    private final long[] counts = new long[PHASES];
+    private final int[] runs = new int[PHASES];
+
+    // Etapa em andamento
+    private PhaseEvent event;
+    private long startNanos;
+    private long startBytes;
+
+    /**
+     * @return true se alguma gravação do JFR em andamento registra as etapas.
+     */
+    public static boolean isRecording() {
+        return PhaseEvent.recording();
+    }
+
+    /**
+     * @return O total de bytes alocados pela thread atual até agora, ou -1 se
+     *         a JVM não informa. A diferença entre duas leituras é o que a
+     *         thread alocou no intervalo.
+     */
+    public static long allocatedBytes() {
+        return Allocation.current();
+    }
+
+    /**
+     * Começa a medir uma etapa, que termina no próximo {@link #end}.
+     */
+    public void begin(Phase phase) {
+        event = new PhaseEvent();
+        event.begin();
+        startBytes = Allocation.current();
+        startNanos = System.nanoTime();
+    }
+
+    /**
+     * Termina a etapa começada por {@link #begin}, somando-a às anteriores da
+     * mesma etapa.
+     * @param count O que a etapa produziu (ver {@link Phase#unit}).
+     */
+    public void end(Phase phase, long count) {
+        end(phase, () -> count);
+    }
+
+    /**
+     * Como {@link #end(Phase, long)}, com a contagem calculada depois de
+     * parar o relógio (ex: percorrendo a AST), para não entrar no tempo.
+     */
+    public void end(Phase phase, LongSupplier counter) {
+        long nanos = System.nanoTime() - startNanos;
+        long bytes = startBytes < 0 ? -1 : Allocation.current() - startBytes;
+        long count = counter.getAsLong();
+        int i = phase.ordinal();
+        wallNanos[i] += nanos;
+        allocatedBytes[i] = bytes < 0 || allocatedBytes[i] < 0 ? -1 : allocatedBytes[i] + bytes;
+        counts[i] += count;
+        runs[i]++;
+
+        event.end();
+        if (event.shouldCommit()) {
+            event.phase = phase.label;
+            event.allocatedBytes = bytes;
+            event.count = count;
+            event.unit = phase.unit;
+            event.commit();
+        }
+        event = null;
+    }
+
+    /**
+     * Soma as métricas de outra compilação a estas (ex: o total de um lote).
+     */
+    public void add(CompilationMetrics other) {
+        for (int i = 0; i < PHASES; i++) {
+            if (other.runs[i] == 0) {
+                continue;
+            }
+            wallNanos[i] += other.wallNanos[i];
+            allocatedBytes[i] = allocatedBytes[i] < 0 || other.allocatedBytes[i] < 0
+                    ? -1
+                    : allocatedBytes[i] + other.allocatedBytes[i];
+            counts[i] += other.counts[i];
+            runs[i] += other.runs[i];
+        }
+    }
+
+    /**
+     * @return Quantas vezes a etapa foi medida (0 se ela não foi executada).
+     */
+    public int getRuns(Phase phase) {
+        return runs[phase.ordinal()];
+    }
+
+    public long getWallNanos(Phase phase) {
+        return wallNanos[phase.ordinal()];
+    }
+
+    /**
+     * @return Os bytes alocados pela thread na etapa, ou -1 se a JVM não informa.
+     */
+    public long getAllocatedBytes(Phase phase) {
+        return allocatedBytes[phase.ordinal()];
+    }
+
+    public long getCount(Phase phase) {
+        return counts[phase.ordinal()];
+    }
+
+    /**
+     * @return Uma tabela com uma linha por etapa executada e o total, ex:
+     *         "Parser.parse        12.41 ms     3.2 MB   1520 nos".
+     */
+    public String toTable() {
+        StringBuilder table = new StringBuilder();
+        table.append(String.format(Locale.ROOT, "%-20s %12s %12s %20s\n", "Etapa", "Tempo", "Alocado", "Contagem"));
+        long totalNanos = 0;
+        long totalBytes = 0;
+        for (Phase phase : Phase.values()) {
+            int i = phase.ordinal();
+            if (runs[i] == 0) {
+                continue;
+            }
+            table.append(String.format(Locale.ROOT, "%-20s %9.2f ms %12s %20s\n", phase.label, wallNanos[i] / 1e6,
+                    bytes(allocatedBytes[i]), counts[i] + " " + phase.unit));
+            totalNanos += wallNanos[i];
+            totalBytes = totalBytes < 0 || allocatedBytes[i] < 0 ? -1 : totalBytes + allocatedBytes[i];
+        }
+        table.append(String.format(Locale.ROOT, "%-20s %9.2f ms %12s\n", "Total", totalNanos / 1e6, bytes(totalBytes)));
+        return table.toString();
+    }
+
+    private static String bytes(long bytes) {
+        if (bytes < 0) {
+            return "?";
+        }
+        if (bytes < 1024 * 1024) {
+            return String.format(Locale.ROOT, "%.1f KB", bytes / 1024.0);
+        }
+        return String.format(Locale.ROOT, "%.1f MB", bytes / (1024.0 * 1024));
+    }
+
+    /**
+     * @return As etapas executadas em JSON, ex:
+     *         {"phases":[{"phase":"Scanner.scanTokens","runs":1,"wallNanos":81234,
+     *         "allocatedBytes":40960,"count":512,"unit":"tokens"},...]}
+     */
+    public String toJson() {
+        StringBuilder json = new StringBuilder("{\"phases\":[");
+        boolean first = true;
+        for (Phase phase : Phase.values()) {
+            int i = phase.ordinal();
+            if (runs[i] == 0) {
+                continue;
+            }
+            if (!first) {
+                json.append(',');
+            }
+            first = false;
+            json.append("{\"phase\":\"").append(phase.label)
+                    .append("\",\"runs\":").append(runs[i])
+                    .append(",\"wallNanos\":").append(wallNanos[i])
+                    .append(",\"allocatedBytes\":").append(allocatedBytes[i])
+                    .append(",\"count\":").append(counts[i])
+                    .append(",\"unit\":\"").append(phase.unit).append("\"}");
+        }
+        return json.append("]}").toString();
+    }
+
+    @Override
+    public String toString() {
+        return toTable();
+    }
+
+    /**
+     * @return O número de nós da AST (a contagem da etapa do Parser).
+     */
+    public static long countNodes(ASTNode root) {
+        if (root == null) {
+            return 0;
+        }
+        long nodes = 0;
+        AstWalker walker = new AstWalker(root);
+        for (int event = walker.next(); event != AstWalker.DONE; event = walker.next()) {
+            if (event == AstWalker.ENTER) {
+                nodes++;
+            }
+        }
+        return nodes;
+    }
+
+    /**
+     * Leitura dos bytes alocados pela thread atual. Fica numa classe à parte
+     * para que o ThreadMXBean só seja carregado quando alguém mede.
+     */
+    private static final class Allocation {
+        private static final com.sun.management.ThreadMXBean THREADS = threads();
+
+        private static com.sun.management.ThreadMXBean threads() {
+            java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+            if (!(bean instanceof com.sun.management.ThreadMXBean)) {
+                return null;
+            }
+            com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) bean;
+            if (!threads.isThreadAllocatedMemorySupported()) {
+                return null;
+            }
+            if (!threads.isThreadAllocatedMemoryEnabled()) {
+                threads.setThreadAllocatedMemoryEnabled(true);
+            }
+            return threads;
+        }
+
+        /**
+         * @return O total alocado pela thread atual até agora, ou -1.
+         */
+        static long current() {
+            return THREADS == null ? -1 : THREADS.getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package compilador.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Evento do JDK Flight Recorder com uma etapa da compilação: a duração (do
+ * próprio evento), os bytes alocados pela thread e a contagem da etapa.
+ * Gravado, por exemplo, com:
+ * <pre>
+ * java -XX:StartFlightRecording=filename=compilador.jfr -cp out compilador.Main casos_de_teste
+ * jfr print --events compilador.Phase compilador.jfr
+ * </pre>
+ */
+@Name("compilador.Phase")
+@Label("Etapa de Compilacao")
+@Category("Compilador")
+@StackTrace(false)
+@Description("Uma etapa do pipeline de compilacao: Scanner, Parser, CheckerVisitor, CodeGenVisitor ou ASTPrinter")
+final class PhaseEvent extends Event {
+
+    @Label("Etapa")
+    String phase;
+
+    @Label("Bytes Alocados")
+    @DataAmount
+    long allocatedBytes;
+
+    @Label("Contagem")
+    @Description("Tokens, nos, simbolos, instrucoes ou caracteres, conforme a etapa")
+    long count;
+
+    @Label("Unidade")
+    String unit;
+
+    /**
+     * @return true se alguma gravação do JFR em andamento registra este evento.
+     */
+    static boolean recording() {
+        return new PhaseEvent().isEnabled();
+    }
+}
@@ -0,0 +1,119 @@
+package compilador.parser;
+
+import compilador.ast.*;
+import compilador.lexer.Token;
+import compilador.lexer.TokenSource;
+import compilador.visitor.CheckAndGenVisitor;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.List;
+
+/**
+ * Verifica e gera o código do programa diretamente a partir das reduções do
+ * Parser, com o {@link CheckAndGenVisitor}. Cada declaração é registrada
+ * assim que reduzida e cada comando do bloco principal é verificado, gerado e
+ * descartado logo em seguida, então a AST do programa inteiro nunca existe:
+ * o nó devolvido por {@link #program} tem o bloco principal vazio.
+ *
+ * Como nas passagens separadas, um erro de sintaxe tem prioridade sobre um
+ * erro de contexto: ao encontrar um erro de contexto o builder para de
+ * verificar e gerar, mas o Parser continua até o fim do programa. O erro de
+ * contexto fica disponível em {@link #getContextError()}.
+ *
+ * Com um Writer de saída, as instruções de cada comando são escritas (uma
+ * por linha) assim que geradas e descartadas, e a memória usada passa a
+ * depender apenas do maior comando. Nesse caso, se houver erro de contexto, a
+ * saída já escrita fica incompleta e deve ser descartada por quem chamou.
+ *
+ * Uso: {@code parser.parse(new CheckAndGenBuilder(parser.getTokens()))}.
+ */
+public class CheckAndGenBuilder extends TreeBuilder {
+
+    private final CheckAndGenVisitor visitor = new CheckAndGenVisitor();
+    private final Writer output;
+    private Error contextError;
+
+    public CheckAndGenBuilder(List<Token> tokens) {
+        super(tokens);
+        this.output = null;
+    }
+
+    /**
+     * @param tokens A fonte de tokens do Parser.
+     * @param output Destino das instruções, escritas à medida que são geradas.
+     */
+    public CheckAndGenBuilder(TokenSource tokens, Writer output) {
+        super(tokens);
+        this.output = output;
+    }
+
+    @Override
+    public ASTNode varDecl(int identifier, int type) {
+        ASTNode decl = super.varDecl(identifier, type);
+        process(decl);
+        return decl;
+    }
+
+    @Override
+    public ASTNode topLevelStatement(ASTNode statement) {
+        process(statement);
+        return null;
+    }
+
+    @Override
+    public ASTNode program(List<ASTNode> declarations, ASTNode compoundStatement) {
+        if (contextError == null) {
+            visitor.endProgram();
+            drain();
+        }
+        return super.program(declarations, compoundStatement);
+    }
+
+    private void process(ASTNode node) {
+        if (contextError != null) {
+            return;
+        }
+        try {
+            visitor.run(node);
+        } catch (Error e) {
+            contextError = e;
+            return;
+        }
+        drain();
+    }
+
+    /**
+     * Escreve e descarta as instruções já geradas, se houver um Writer de saída.
+     */
+    private void drain() {
+        if (output == null) {
+            return;
+        }
+        List<String> code = visitor.getObjectCode();
+        try {
+            for (String instruction : code) {
+                output.write(instruction);
+                output.write('\n');
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        code.clear();
+    }
+
+    /**
+     * @return O primeiro erro de contexto encontrado, ou null.
+     */
+    public Error getContextError() {
+        return contextError;
+    }
+
+    /**
+     * @return O código gerado e ainda não escrito; vazio se houve erro de contexto.
+     */
+    public List<String> getObjectCode() {
+        return visitor.getObjectCode();
+    }
+}
@@ -0,0 +1,126 @@
+package compilador.parser;
+
+import compilador.ast.FlatAst;
+import compilador.lexer.Token;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Constrói a AST plana ({@link FlatAst}) a partir das reduções do Parser.
+ * Cada nó é identificado pelo seu índice nos vetores.
+ */
+public class FlatAstBuilder implements NodeBuilder<Integer> {
+
+    private final List<Token> tokens;
+    private byte[] kinds = new byte[64];
+    private int[] a = new int[64];
+    private int[] b = new int[64];
+    private int[] lists = new int[64];
+    private int size = 0;
+    private int listSize = 0;
+
+    public FlatAstBuilder(List<Token> tokens) {
+        this.tokens = tokens;
+    }
+
+    /**
+     * Finaliza a construção, ajustando os vetores ao tamanho usado.
+     * @param root O índice do nó raiz, que deve ser o último nó reduzido.
+     */
+    public FlatAst build(int root) {
+        if (root != size - 1) {
+            throw new IllegalStateException("A raiz deve ser o ultimo no reduzido.");
+        }
+        return new FlatAst(tokens, Arrays.copyOf(kinds, size), Arrays.copyOf(a, size),
+                Arrays.copyOf(b, size), Arrays.copyOf(lists, listSize), size);
+    }
+
+    /**
+     * Acrescenta um nó. O último filho de cada nó não é armazenado: por
+     * construção, é sempre o nó adicionado imediatamente antes.
+     */
+    private int add(byte kind, int first, int second, Integer lastChild) {
+        if (lastChild != null && lastChild != size - 1) {
+            throw new IllegalStateException("O ultimo filho deve ser o no reduzido imediatamente antes.");
+        }
+        if (size == kinds.length) {
+            int capacity = size * 2;
+            kinds = Arrays.copyOf(kinds, capacity);
+            a = Arrays.copyOf(a, capacity);
+            b = Arrays.copyOf(b, capacity);
+        }
+        kinds[size] = kind;
+        a[size] = first;
+        b[size] = second;
+        return size++;
+    }
+
+    /**
+     * Copia os índices de uma lista de filhos para o vetor compartilhado.
+     * @return A posição inicial da lista.
+     */
+    private int addList(List<Integer> children) {
+        while (listSize + children.size() > lists.length) {
+            lists = Arrays.copyOf(lists, lists.length * 2);
+        }
+        int start = listSize;
+        for (Integer child : children) {
+            lists[listSize++] = child;
+        }
+        return start;
+    }
+
+    @Override
+    public Integer program(List<Integer> declarations, Integer compoundStatement) {
+        return add(FlatAst.PROGRAM, addList(declarations), declarations.size(), compoundStatement);
+    }
+
+    @Override
+    public Integer varDecl(int identifier, int type) {
+        return add(FlatAst.VAR_DECL, identifier, type, null);
+    }
+
+    @Override
+    public Integer beginEnd(List<Integer> commands) {
+        return add(FlatAst.BEGIN_END, addList(commands), commands.size(), null);
+    }
+
+    @Override
+    public Integer assign(int variable, Integer expression) {
+        return add(FlatAst.ASSIGN, variable, -1, expression);
+    }
+
+    @Override
+    public Integer ifNode(Integer condition, Integer thenBranch, Integer elseBranch) {
+        if (elseBranch == null) {
+            return add(FlatAst.IF, condition, -1, thenBranch);
+        }
+        return add(FlatAst.IF, condition, thenBranch, elseBranch);
+    }
+
+    @Override
+    public Integer whileNode(Integer condition, Integer body) {
+        return add(FlatAst.WHILE, condition, -1, body);
+    }
+
+    @Override
+    public Integer binaryOp(Integer left, int operator, Integer right) {
+        return add(FlatAst.BINARY_OP, operator, left, right);
+    }
+
+    @Override
+    public Integer intLit(int value) {
+        return add(FlatAst.INT_LIT, value, -1, null);
+    }
+
+    @Override
+    public Integer booleanLit(int value) {
+        return add(FlatAst.BOOLEAN_LIT, value, -1, null);
+    }
+
+    @Override
+    public Integer variableUse(int identifier) {
+        return add(FlatAst.VARIABLE_USE, identifier, -1, null);
+    }
+}
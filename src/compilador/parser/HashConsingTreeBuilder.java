@@ -0,0 +1,149 @@
+package compilador.parser;
+
+import compilador.ast.*;
+import compilador.lexer.Token;
+import compilador.lexer.TokenType;
+import compilador.visitor.CheckerVisitor;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Fábrica de nós com compartilhamento estrutural (hash-consing) das expressões.
+ *
+ * Subárvores estruturalmente iguais de IntLitNode, BooleanLitNode,
+ * VariableUseNode e BinaryOpNode passam a ser uma única instância imutável,
+ * reaproveitada em todas as ocorrências (ex: "a + 1" repetido milhares de vezes
+ * num programa gerado). Os nós de comando continuam únicos.
+ *
+ * Um nó compartilhado guarda o token da sua primeira ocorrência, que é também
+ * a primeira a ser visitada pelas passagens seguintes, então o primeiro erro
+ * continua apontando para a linha correta. As linhas de todas as ocorrências
+ * ficam numa tabela à parte, consultada por {@link #linesOf(ASTNode)}; com a
+ * fábrica informada em {@link CheckerVisitor#setOccurrenceLines}, a verificação
+ * com diagnostics registra o erro de cada ocorrência na sua própria linha.
+ *
+ * Uso: {@code parser.parse(new HashConsingTreeBuilder(parser.getTokens()))}.
+ */
+public class HashConsingTreeBuilder extends TreeBuilder {
+
+    /**
+     * Chave estrutural. Como os filhos já são canônicos, basta compará-los por identidade.
+     */
+    private static final class Key {
+        final TokenType kind;
+        final String lexeme;
+        final ASTNode left;
+        final ASTNode right;
+
+        Key(TokenType kind, String lexeme, ASTNode left, ASTNode right) {
+            this.kind = kind;
+            this.lexeme = lexeme;
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) return false;
+            Key other = (Key) o;
+            return kind == other.kind && lexeme.equals(other.lexeme)
+                    && left == other.left && right == other.right;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(kind, lexeme, System.identityHashCode(left), System.identityHashCode(right));
+        }
+    }
+
+    private final Map<Key, ASTNode> canonical = new HashMap<>();
+    private final Map<ASTNode, int[]> occurrences = new IdentityHashMap<>();
+    private long requested = 0;
+
+    public HashConsingTreeBuilder(List<Token> tokens) {
+        super(tokens);
+    }
+
+    @Override
+    public ASTNode binaryOp(ASTNode left, int operator, ASTNode right) {
+        Token op = tokens.get(operator);
+        return intern(new Key(op.type, op.lexeme, left, right), op, () -> new BinaryOpNode(left, op, right));
+    }
+
+    @Override
+    public ASTNode intLit(int value) {
+        Token token = tokens.get(value);
+        return intern(new Key(TokenType.INT_LIT, token.lexeme, null, null), token, () -> new IntLitNode(token));
+    }
+
+    @Override
+    public ASTNode booleanLit(int value) {
+        Token token = tokens.get(value);
+        return intern(new Key(token.type, token.lexeme, null, null), token, () -> new BooleanLitNode(token));
+    }
+
+    @Override
+    public ASTNode variableUse(int identifier) {
+        Token token = tokens.get(identifier);
+        return intern(new Key(TokenType.ID, token.lexeme, null, null), token, () -> new VariableUseNode(token));
+    }
+
+    private interface NodeSupplier {
+        ASTNode create();
+    }
+
+    /**
+     * Devolve a instância canônica para a chave, criando-a na primeira
+     * ocorrência, e registra a linha desta ocorrência.
+     */
+    private ASTNode intern(Key key, Token position, NodeSupplier supplier) {
+        requested++;
+        ASTNode node = canonical.get(key);
+        if (node == null) {
+            node = supplier.create();
+            canonical.put(key, node);
+        }
+        recordLine(node, position.line);
+        return node;
+    }
+
+    private void recordLine(ASTNode node, int line) {
+        // int[0] guarda a quantidade de linhas registradas; as linhas vêm a seguir
+        int[] lines = occurrences.get(node);
+        if (lines == null) {
+            lines = new int[2];
+        } else if (lines[0] + 1 == lines.length) {
+            lines = Arrays.copyOf(lines, lines.length * 2);
+        }
+        lines[++lines[0]] = line;
+        occurrences.put(node, lines);
+    }
+
+    /**
+     * @return As linhas de todas as ocorrências de um nó de expressão, em ordem
+     *         de análise; vazio se o nó não foi criado por esta fábrica.
+     */
+    public int[] linesOf(ASTNode node) {
+        int[] lines = occurrences.get(node);
+        return lines == null ? new int[0] : Arrays.copyOfRange(lines, 1, lines[0] + 1);
+    }
+
+    /**
+     * @return Quantos nós de expressão o Parser pediu.
+     */
+    public long getRequestedNodes() {
+        return requested;
+    }
+
+    /**
+     * @return Quantas instâncias distintas de fato existem.
+     */
+    public int getUniqueNodes() {
+        return canonical.size();
+    }
+}
@@ -0,0 +1,38 @@
+package compilador.parser;
+
+import java.util.List;
+
+/**
+ * Fábrica usada pelo Parser para construir a representação do programa.
+ * Cada método corresponde a uma redução da gramática; os tokens são passados
+ * como índices na lista de tokens do Parser.
+ *
+ * Permite que a mesma gramática produza a AST de objetos tradicional
+ * ({@link TreeBuilder}) ou outras representações, como a AST plana em vetores
+ * ({@link FlatAstBuilder}).
+ *
+ * @param <N> O tipo que representa um nó na representação construída.
+ */
+public interface NodeBuilder<N> {
+    N program(List<N> declarations, N compoundStatement);
+    N varDecl(int identifier, int type);
+    N beginEnd(List<N> commands);
+    N assign(int variable, N expression);
+    N ifNode(N condition, N thenBranch, N elseBranch);
+    N whileNode(N condition, N body);
+    N binaryOp(N left, int operator, N right);
+    N intLit(int value);
+    N booleanLit(int value);
+    N variableUse(int identifier);
+
+    /**
+     * Chamado quando um comando do bloco principal do programa (begin ... end
+     * mais externo) acaba de ser reduzido, antes de ser acrescentado à lista
+     * do bloco. Permite processar o programa comando a comando.
+     * @return O nó a guardar na lista do bloco principal, ou null para
+     *         descartá-lo (o bloco principal chega então incompleto a beginEnd).
+     */
+    default N topLevelStatement(N statement) {
+        return statement;
+    }
+}
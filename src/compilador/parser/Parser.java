@@ -1,30 +1,109 @@
 package compilador.parser;
 
 import compilador.ast.*;
+import compilador.diagnostics.CompilationError;
+import compilador.diagnostics.Diagnostic;
+import compilador.diagnostics.Diagnostics;
 import compilador.lexer.*;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 /**
- * Parser (Analisador Sintático) que implementa o método descendente recursivo.
+ * Parser (Analisador Sintático) para a gramática LL(1) da linguagem.
  * Ele consome uma lista de tokens do Scanner e constrói uma Árvore Sintática Abstrata (AST).
+ *
+ * A análise não é recursiva: comandos aninhados (begin, if, while) são
+ * controlados por uma pilha explícita de quadros e as expressões usam
+ * precedência de operadores com pilhas de operandos e operadores. Assim a
+ * profundidade de aninhamento é limitada apenas pelo heap, e não pela pilha
+ * de chamadas da JVM.
+ *
+ * Por padrão, o primeiro erro de sintaxe interrompe a análise com uma
+ * exceção. Com {@link #setDiagnostics}, cada erro é registrado e a análise se
+ * recupera em "modo pânico": descarta o comando ou a declaração com erro
+ * (até o próximo ';' ou o 'end' do bloco) e continua, de modo que todos os
+ * erros saem numa única análise. A árvore construída nesse modo, se houver
+ * erros, está incompleta e não deve ser usada.
  */
 public class Parser {
-    private final List<Token> tokens;
+    private TokenSource tokens;
+    private List<Token> tokenList; // null quando os tokens vêm em streaming
     private int current = 0;
     private Token currentToken;
 
+    // Pilhas de trabalho da análise de expressões, reaproveitadas entre
+    // expressões e entre análises (expression() nunca é reentrante)
+    private final ArrayList<Object> operandStack = new ArrayList<>();
+    private int[] operatorStack = new int[16];
+
+    // Com diagnostics, os erros são registrados em vez de lançados. Em
+    // pânico, nenhum token é consumido e nenhum erro novo é registrado até a
+    // recuperação num ponto de sincronização. Depois de um erro no EOF, os
+    // seguintes no EOF (ex: falta o 'begin' de um arquivo vazio) não são
+    // registrados: são consequência do primeiro.
+    private Diagnostics diagnostics;
+    private boolean panic;
+    private boolean eofReported;
+
     public Parser(Scanner scanner) {
-        this.tokens = scanner.scanTokens();
+        this(scanner.scanTokens());
+    }
+
+    /**
+     * Cria um parser sobre uma lista de tokens já produzida pelo Scanner.
+     * @param tokens Os tokens, terminados por um token EOF.
+     */
+    public Parser(List<Token> tokens) {
+        this.tokens = tokens::get;
+        this.tokenList = tokens;
+        this.currentToken = tokens.get(current);
+    }
+
+    /**
+     * Cria um parser que consulta os tokens sob demanda (ex: um
+     * {@link TokenStream}). O parser libera os tokens já consumidos ao fim de
+     * cada declaração e de cada comando do bloco principal.
+     * @param tokens A fonte dos tokens, terminados por um token EOF.
+     */
+    public Parser(TokenSource tokens) {
+        this.tokens = tokens;
+        this.tokenList = null;
+        this.currentToken = tokens.get(current);
+    }
+
+    /**
+     * Prepara o parser para analisar outra lista de tokens, reaproveitando
+     * as suas estruturas internas.
+     * @param tokens Os tokens, terminados por um token EOF.
+     */
+    public void reset(List<Token> tokens) {
+        this.tokens = tokens::get;
+        this.tokenList = tokens;
+        this.current = 0;
         this.currentToken = tokens.get(current);
+        this.panic = false;
+        this.eofReported = false;
+        operandStack.clear();
+    }
+
+    /**
+     * Liga a recuperação de erros: os erros de sintaxe passam a ser
+     * registrados em diagnostics, e a análise continua depois de cada um.
+     * @param diagnostics O destino dos erros, ou null para lançar o primeiro
+     *                    (o comportamento padrão).
+     */
+    public void setDiagnostics(Diagnostics diagnostics) {
+        this.diagnostics = diagnostics;
     }
 
     /**
-     * Avança para o próximo token na lista.
+     * Avança para o próximo token, sem passar do EOF.
      * @return O novo token atual.
      */
     private Token advance() {
-        if (current < tokens.size() - 1) {
+        if (currentToken.type != TokenType.EOF) {
             current++;
         }
         currentToken = tokens.get(current);
@@ -36,175 +115,562 @@ public class Parser {
      * @return A raiz da AST construída.
      */
     public ASTNode parse() {
-        return program();
+        return parse(new TreeBuilder(tokens));
+    }
+
+    /**
+     * Analisa o programa construindo a AST plana, codificada em vetores
+     * de inteiros, em vez de um objeto por nó.
+     * @return A AST plana do programa.
+     */
+    public FlatAst parseFlat() {
+        if (tokenList == null) {
+            throw new IllegalStateException("A AST plana exige a lista completa de tokens.");
+        }
+        FlatAstBuilder builder = new FlatAstBuilder(tokenList);
+        return builder.build(parse(builder));
+    }
+
+    /**
+     * Analisa o programa usando a fábrica de nós informada.
+     * @param builder A fábrica que constrói cada nó a partir das reduções da gramática.
+     * @return A raiz da representação construída.
+     */
+    public <N> N parse(NodeBuilder<N> builder) {
+        return new Grammar<>(builder).program();
+    }
+
+    /**
+     * Analisa um trecho do bloco principal do programa: uma sequência de
+     * comandos, cada um seguido de ';', até o EOF ou até um END no lugar de
+     * um comando. Usado pela recompilação incremental, que analisa de novo
+     * apenas os comandos editados; cada comando passa por
+     * {@link NodeBuilder#topLevelStatement}, como na análise do programa.
+     * @param builder A fábrica de nós.
+     * @return Os comandos, na ordem. Use {@link #getPosition()} para saber
+     *         se a análise parou no EOF ou num END.
+     */
+    public <N> List<N> parseStatements(NodeBuilder<N> builder) {
+        return new Grammar<>(builder).statements();
+    }
+
+    /**
+     * Analisa uma sequência de declarações "var", como a do início do
+     * programa, parando no primeiro token que não é VAR.
+     * @param builder A fábrica de nós.
+     * @return As declarações, na ordem.
+     */
+    public <N> List<N> parseDeclarations(NodeBuilder<N> builder) {
+        return new Grammar<>(builder).declarations();
+    }
+
+    /**
+     * @return O índice do token atual. Durante uma redução, é o token logo
+     *         depois do último consumido; em caso de erro, o token em que a
+     *         análise parou.
+     */
+    public int getPosition() {
+        return current;
+    }
+
+    /**
+     * @return A lista de tokens analisada por este parser, ou null se ele foi
+     *         criado sobre um TokenSource.
+     */
+    public List<Token> getTokens() {
+        return tokenList;
+    }
+
+    /**
+     * @return A fonte de tokens deste parser, para os builders que
+     *         resolvem os índices recebidos nas reduções.
+     */
+    public TokenSource getTokenSource() {
+        return tokens;
     }
 
     /**
      * Verifica se o token atual corresponde ao tipo esperado e avança.
      * @param expected O tipo de token esperado.
-     * @throws Error se o token atual não corresponder ao esperado.
+     * @throws CompilationError se o token atual não corresponder ao esperado.
      */
     private void match(TokenType expected) {
+        if (panic) {
+            return;
+        }
         if (currentToken.type == expected) {
             advance();
         } else {
-            throw new Error("Syntax Error: expected " + expected +
-                    " but found " + currentToken.type + " at line " + currentToken.line);
+            String message = "Syntax Error: expected " + expected +
+                    " but found " + currentToken.type + " at line " + currentToken.line;
+            if (diagnostics == null) {
+                throw new CompilationError(message, currentToken.line);
+            }
+            error(message);
         }
     }
 
-    // --- Métodos de Parsing (um para cada regra da gramática LL(1)) ---
+    /**
+     * Registra um erro de sintaxe no token atual e entra em pânico.
+     */
+    private void error(String message) {
+        if (panic) {
+            return;
+        }
+        panic = true;
+        if (currentToken.type == TokenType.EOF) {
+            if (eofReported) {
+                return;
+            }
+            eofReported = true;
+        }
+        diagnostics.report(Diagnostic.Kind.SYNTAX, currentToken.line, message);
+    }
+
+    /**
+     * Recuperação: descarta tokens até o ';' que termina o comando atual
+     * (consumindo-o), até o 'end' do bloco que o contém ou até o EOF. Blocos
+     * begin/end dentro do trecho descartado são pulados inteiros.
+     */
+    private void skipStatement() {
+        int depth = 0;
+        while (currentToken.type != TokenType.EOF) {
+            TokenType type = currentToken.type;
+            if (type == TokenType.END) {
+                if (depth == 0) {
+                    return;
+                }
+                depth--;
+            } else if (type == TokenType.BEGIN) {
+                depth++;
+            } else if (type == TokenType.SEMICOLON && depth == 0) {
+                advance();
+                return;
+            }
+            advance();
+        }
+    }
+
+    /**
+     * Recuperação nas declarações: descarta tokens até depois do próximo ';'
+     * ou até o início da próxima declaração ou do bloco principal.
+     */
+    private void skipDeclaration() {
+        while (currentToken.type != TokenType.EOF && currentToken.type != TokenType.VAR
+                && currentToken.type != TokenType.BEGIN) {
+            boolean semicolon = currentToken.type == TokenType.SEMICOLON;
+            advance();
+            if (semicolon) {
+                return;
+            }
+        }
+    }
 
-    private ProgramaNode program() {
-        match(TokenType.PROGRAM);
-        match(TokenType.ID); // O nome do programa não é armazenado na AST por enquanto
-        match(TokenType.SEMICOLON);
+    /**
+     * Regras da gramática LL(1). Fica numa classe interna genérica para que a
+     * mesma gramática construa qualquer representação, conforme o NodeBuilder.
+     */
+    private final class Grammar<N> {
+        private final NodeBuilder<N> builder;
 
-        List<ASTNode> decls = declarations();
-        ASTNode compStmt = compoundStatement();
+        Grammar(NodeBuilder<N> builder) {
+            this.builder = builder;
+        }
 
-        // A gramática pode ter um ponto final aqui
-        // match(TokenType.DOT);
+        // --- Métodos de Parsing (um para cada regra da gramática LL(1)) ---
 
-        return new ProgramaNode(decls, compStmt);
-    }
+        private N program() {
+            match(TokenType.PROGRAM);
+            match(TokenType.ID); // O nome do programa não é armazenado na AST por enquanto
+            match(TokenType.SEMICOLON);
+            if (panic) {
+                skipDeclaration();
+                panic = false;
+            }
 
-    private List<ASTNode> declarations() {
-        List<ASTNode> decls = new ArrayList<>();
-        while (currentToken.type == TokenType.VAR) {
-            decls.add(variableDeclaration());
+            List<N> decls = declarations();
+            N compStmt = compoundStatement();
+
+            // A gramática pode ter um ponto final aqui
+            // match(TokenType.DOT);
+
+            return builder.program(decls, compStmt);
         }
-        return decls;
-    }
 
-    private VarDeclNode variableDeclaration() {
-        match(TokenType.VAR);
-        Token id = currentToken;
-        match(TokenType.ID);
-        match(TokenType.COLON);
-        Token type = currentToken;
-        // Assume que o tipo pode ser qualquer token (ex: INTEGER, BOOLEAN) e avança
-        advance();
-        match(TokenType.SEMICOLON);
-        return new VarDeclNode(id, type);
-    }
+        private List<N> declarations() {
+            List<N> decls = new ArrayList<>();
+            while (currentToken.type == TokenType.VAR) {
+                N decl = variableDeclaration();
+                if (panic) {
+                    skipDeclaration();
+                    panic = false;
+                    continue;
+                }
+                decls.add(decl);
+                tokens.release(current);
+            }
+            return decls;
+        }
 
-    private ASTNode compoundStatement() {
-        match(TokenType.BEGIN);
-        List<ASTNode> stmts = statementList();
-        match(TokenType.END);
-        return new BeginEndNode(stmts);
-    }
+        private List<N> statements() {
+            List<N> commands = new ArrayList<>();
+            while (currentToken.type != TokenType.EOF && currentToken.type != TokenType.END) {
+                N statement = statement(false);
+                if (panic) {
+                    skipStatement();
+                    panic = false;
+                    continue;
+                }
+                N command = builder.topLevelStatement(statement);
+                if (command != null) {
+                    commands.add(command);
+                }
+                match(TokenType.SEMICOLON);
+                if (panic) {
+                    skipStatement();
+                    panic = false;
+                }
+            }
+            return commands;
+        }
 
-    private List<ASTNode> statementList() {
-        List<ASTNode> stmts = new ArrayList<>();
-        while (currentToken.type != TokenType.END && currentToken.type != TokenType.EOF) {
-            stmts.add(statement());
-            // Após cada comando na lista, exige um ponto-e-vírgula como separador
+        private N variableDeclaration() {
+            match(TokenType.VAR);
+            int id = current;
+            match(TokenType.ID);
+            match(TokenType.COLON);
+            int type = current;
+            // Assume que o tipo pode ser qualquer token (ex: INTEGER, BOOLEAN) e avança
+            if (!panic) {
+                advance();
+            }
             match(TokenType.SEMICOLON);
+            return panic ? null : builder.varDecl(id, type);
         }
-        return stmts;
-    }
 
-    private ASTNode statement() {
-        switch (currentToken.type) {
-            case ID:
-                return assignment();
-            case IF:
-                return conditional();
-            case WHILE:
-                return iterative();
-            case BEGIN:
-                return compoundStatement();
-            default:
-                throw new RuntimeException("Unexpected statement starting with: " + currentToken.lexeme);
+        private N compoundStatement() {
+            if (currentToken.type != TokenType.BEGIN) {
+                match(TokenType.BEGIN); // Lança ou registra o erro de sintaxe
+                // Recuperação: o bloco principal começa no próximo 'begin', se houver
+                while (currentToken.type != TokenType.BEGIN && currentToken.type != TokenType.EOF) {
+                    advance();
+                }
+                if (currentToken.type == TokenType.EOF) {
+                    return null;
+                }
+                panic = false;
+            }
+            return statement(true);
         }
-    }
 
-    private AssignNode assignment() {
-        Token variable = currentToken;
-        match(TokenType.ID);
-        match(TokenType.ASSIGN);
-        ASTNode expr = expression();
-        return new AssignNode(variable, expr);
-    }
+        /**
+         * Comando pendente na pilha: aguarda a conclusão de um comando aninhado.
+         */
+        private final class Frame {
+            final TokenType kind;   // BEGIN, IF ou WHILE
+            final N condition;
+            final List<N> commands;
+            N thenBranch;
+            boolean inElse;
 
-    private IfNode conditional() {
-        match(TokenType.IF);
-        ASTNode condition = expression();
-        match(TokenType.THEN);
-        ASTNode thenBranch = statement();
-        ASTNode elseBranch = null;
-        if (currentToken.type == TokenType.ELSE) {
-            match(TokenType.ELSE);
-            elseBranch = statement();
+            Frame(TokenType kind, N condition, List<N> commands) {
+                this.kind = kind;
+                this.condition = condition;
+                this.commands = commands;
+            }
         }
-        return new IfNode(condition, thenBranch, elseBranch);
-    }
 
-    private WhileNode iterative() {
-        match(TokenType.WHILE);
-        ASTNode condition = expression();
-        match(TokenType.DO);
-        ASTNode body = statement();
-        return new WhileNode(condition, body);
-    }
+        /**
+         * Analisa um comando completo, incluindo todos os comandos aninhados.
+         *
+         * statement  -> assignment | conditional | iterative | compound
+         * compound   -> BEGIN (statement SEMICOLON)* END
+         * conditional-> IF expression THEN statement [ELSE statement]
+         * iterative  -> WHILE expression DO statement
+         *
+         * @param mainBlock Se o comando é o bloco principal do programa, cujos
+         *                  comandos passam por {@link NodeBuilder#topLevelStatement}.
+         */
+        private N statement(boolean mainBlock) {
+            ArrayDeque<Frame> pending = new ArrayDeque<>();
+            while (true) {
+                // 1. Lê o início de um comando: ou ele termina aqui (atribuição,
+                //    bloco vazio) ou abre um quadro e passa ao comando aninhado
+                N completed;
+                switch (currentToken.type) {
+                    case ID:
+                        completed = assignment();
+                        break;
+                    case IF:
+                        match(TokenType.IF);
+                        N ifCondition = expression();
+                        match(TokenType.THEN);
+                        if (!panic) {
+                            pending.push(new Frame(TokenType.IF, ifCondition, null));
+                            continue;
+                        }
+                        completed = null;
+                        break;
+                    case WHILE:
+                        match(TokenType.WHILE);
+                        N whileCondition = expression();
+                        match(TokenType.DO);
+                        if (!panic) {
+                            pending.push(new Frame(TokenType.WHILE, whileCondition, null));
+                            continue;
+                        }
+                        completed = null;
+                        break;
+                    case BEGIN:
+                        match(TokenType.BEGIN);
+                        if (currentToken.type != TokenType.END && currentToken.type != TokenType.EOF) {
+                            pending.push(new Frame(TokenType.BEGIN, null, new ArrayList<>()));
+                            continue;
+                        }
+                        match(TokenType.END);
+                        completed = panic ? null : builder.beginEnd(new ArrayList<>());
+                        break;
+                    default:
+                        String message = "Unexpected statement starting with: " + currentToken.lexeme;
+                        if (diagnostics == null) {
+                            throw new CompilationError(message, currentToken.line);
+                        }
+                        error(message);
+                        completed = null;
+                        break;
+                }
+                if (panic) {
+                    completed = recover(pending);
+                    if (completed == null) {
+                        if (panic) {
+                            return null; // Sem como continuar (EOF)
+                        }
+                        continue; // Próximo comando do mesmo bloco
+                    }
+                }
 
-    // --- Métodos de Parsing para Expressões ---
+                // 2. Entrega o comando concluído aos quadros pendentes, fechando
+                //    todos os que também ficam completos com ele
+                boolean nested = false;
+                while (!nested && !pending.isEmpty()) {
+                    Frame frame = pending.peek();
+                    switch (frame.kind) {
+                        case IF:
+                            if (!frame.inElse && currentToken.type == TokenType.ELSE) {
+                                match(TokenType.ELSE);
+                                frame.thenBranch = completed;
+                                frame.inElse = true;
+                                nested = true;
+                            } else {
+                                pending.pop();
+                                completed = frame.inElse
+                                        ? builder.ifNode(frame.condition, frame.thenBranch, completed)
+                                        : builder.ifNode(frame.condition, completed, null);
+                            }
+                            break;
+                        case WHILE:
+                            pending.pop();
+                            completed = builder.whileNode(frame.condition, completed);
+                            break;
+                        default: // BEGIN
+                            // Com mainBlock, o quadro do fundo da pilha é o bloco principal
+                            if (mainBlock && pending.size() == 1) {
+                                completed = builder.topLevelStatement(completed);
+                                tokens.release(current);
+                            }
+                            if (completed != null) {
+                                frame.commands.add(completed);
+                            }
+                            // Após cada comando na lista, exige um ponto-e-vírgula como separador
+                            match(TokenType.SEMICOLON);
+                            if (!panic && currentToken.type != TokenType.END && currentToken.type != TokenType.EOF) {
+                                nested = true;
+                            } else {
+                                match(TokenType.END);
+                                if (!panic) {
+                                    pending.pop();
+                                    completed = builder.beginEnd(frame.commands);
+                                }
+                            }
+                            if (panic) {
+                                completed = recover(pending);
+                                if (completed == null) {
+                                    if (panic) {
+                                        return null;
+                                    }
+                                    nested = true;
+                                }
+                            }
+                            break;
+                    }
+                }
+                if (!nested) {
+                    return completed;
+                }
+            }
+        }
 
-    private ASTNode expression() {
-        ASTNode left = simpleExpression();
-        while (currentToken.type == TokenType.LT || currentToken.type == TokenType.GT || currentToken.type == TokenType.EQ) {
-            Token op = currentToken;
-            match(op.type);
-            ASTNode right = simpleExpression();
-            left = new BinaryOpNode(left, op, right);
+        /**
+         * Recuperação de um erro dentro de statement(): descarta os comandos
+         * incompletos até o bloco begin mais interno e, nele, os tokens até o
+         * fim do comando com erro.
+         * @return O bloco, se a recuperação chegou ao seu 'end' (ele é
+         *         concluído só com os comandos corretos). Null se a análise
+         *         continua no próximo comando do bloco ou, com o pânico ainda
+         *         ligado, se não há bloco aberto ou se o EOF foi atingido.
+         */
+        private N recover(ArrayDeque<Frame> pending) {
+            while (!pending.isEmpty() && pending.peek().kind != TokenType.BEGIN) {
+                pending.pop();
+            }
+            if (pending.isEmpty()) {
+                return null; // Quem chamou statement() se recupera
+            }
+            skipStatement();
+            if (currentToken.type == TokenType.EOF) {
+                return null;
+            }
+            panic = false;
+            if (currentToken.type != TokenType.END) {
+                return null;
+            }
+            match(TokenType.END);
+            return builder.beginEnd(pending.pop().commands);
         }
-        return left;
-    }
 
-    private ASTNode simpleExpression() {
-        ASTNode left = term();
-        while (currentToken.type == TokenType.PLUS || currentToken.type == TokenType.OR || currentToken.type == TokenType.MINUS) {
-            Token op = currentToken;
-            match(op.type);
-            ASTNode right = term();
-            left = new BinaryOpNode(left, op, right);
+        private N assignment() {
+            int variable = current;
+            match(TokenType.ID);
+            match(TokenType.ASSIGN);
+            N expr = expression();
+            return panic ? null : builder.assign(variable, expr);
         }
-        return left;
-    }
 
-    private ASTNode term() {
-        ASTNode left = factor();
-        while (currentToken.type == TokenType.TIMES || currentToken.type == TokenType.DIV || currentToken.type == TokenType.AND) {
-            Token op = currentToken;
-            match(op.type);
-            ASTNode right = factor();
-            left = new BinaryOpNode(left, op, right);
+        // --- Métodos de Parsing para Expressões ---
+
+        /**
+         * Analisa uma expressão por precedência de operadores, com pilhas explícitas.
+         * Todos os operadores são binários e associativos à esquerda:
+         *   nível 1 (expression):       <  >  =
+         *   nível 2 (simpleExpression): +  -  or
+         *   nível 3 (term):             *  /  and
+         * Parênteses ficam na pilha de operadores como marcadores (-1).
+         */
+        private N expression() {
+            if (panic) {
+                return null;
+            }
+            // Vistas tipadas das pilhas de trabalho do Parser
+            @SuppressWarnings("unchecked")
+            List<N> operands = (List<N>) (List<?>) operandStack;
+            operands.clear();
+            int[] operators = operatorStack;
+            int operatorCount = 0;
+            int openParens = 0;
+
+            while (true) {
+                // Espera um operando (factor), possivelmente precedido de '('
+                while (currentToken.type == TokenType.LPAREN) {
+                    match(TokenType.LPAREN);
+                    if (operatorCount == operators.length) {
+                        operators = Arrays.copyOf(operators, operatorCount * 2);
+                        operatorStack = operators;
+                    }
+                    operators[operatorCount++] = -1;
+                    openParens++;
+                }
+                operands.add(factor());
+                if (panic) {
+                    operands.clear();
+                    return null;
+                }
+
+                // Depois de um operando: fecha parênteses ou lê um operador
+                while (true) {
+                    int precedence = precedence(currentToken.type);
+                    if (precedence > 0) {
+                        while (operatorCount > 0 && operators[operatorCount - 1] >= 0
+                                && precedence(tokens.get(operators[operatorCount - 1]).type) >= precedence) {
+                            reduce(operands, operators[--operatorCount]);
+                        }
+                        if (operatorCount == operators.length) {
+                            operators = Arrays.copyOf(operators, operatorCount * 2);
+                            operatorStack = operators;
+                        }
+                        operators[operatorCount++] = current;
+                        match(currentToken.type);
+                        break; // próximo operando
+                    }
+
+                    if (openParens == 0) {
+                        // Fim da expressão
+                        while (operatorCount > 0) {
+                            reduce(operands, operators[--operatorCount]);
+                        }
+                        N result = operands.get(0);
+                        operands.clear();
+                        return result;
+                    }
+
+                    // Dentro de parênteses: só ')' pode encerrar a subexpressão
+                    while (operators[operatorCount - 1] >= 0) {
+                        reduce(operands, operators[--operatorCount]);
+                    }
+                    match(TokenType.RPAREN);
+                    if (panic) {
+                        operands.clear();
+                        return null;
+                    }
+                    operatorCount--; // Remove o marcador '('
+                    openParens--;
+                }
+            }
+        }
+
+        private void reduce(List<N> operands, int operator) {
+            N right = operands.remove(operands.size() - 1);
+            N left = operands.remove(operands.size() - 1);
+            operands.add(builder.binaryOp(left, operator, right));
+        }
+
+        private N factor() {
+            Token token = currentToken;
+            int index = current;
+            if (token.type == TokenType.INT_LIT) {
+                match(TokenType.INT_LIT);
+                return builder.intLit(index);
+            } else if (token.type == TokenType.TRUE) {
+                match(TokenType.TRUE);
+                return builder.booleanLit(index);
+            } else if (token.type == TokenType.FALSE) {
+                match(TokenType.FALSE);
+                return builder.booleanLit(index);
+            } else if (token.type == TokenType.ID) {
+                match(TokenType.ID);
+                return builder.variableUse(index);
+            }
+            String message = "Unexpected factor: " + token.lexeme;
+            if (diagnostics == null) {
+                throw new CompilationError(message, token.line);
+            }
+            error(message);
+            return null;
         }
-        return left;
     }
 
-    private ASTNode factor() {
-        Token token = currentToken;
-        if (token.type == TokenType.INT_LIT) {
-            match(TokenType.INT_LIT);
-            return new IntLitNode(token);
-        } else if (token.type == TokenType.TRUE) {
-            match(TokenType.TRUE);
-            return new BooleanLitNode(token);
-        } else if (token.type == TokenType.FALSE) {
-            match(TokenType.FALSE);
-            return new BooleanLitNode(token);
-        } else if (token.type == TokenType.ID) {
-            match(TokenType.ID);
-            return new VariableUseNode(token);
-        } else if (token.type == TokenType.LPAREN) {
-            match(TokenType.LPAREN);
-            ASTNode node = expression();
-            match(TokenType.RPAREN);
-            return node;
+    /**
+     * @return O nível de precedência de um operador binário, ou 0 se o token não é operador.
+     */
+    private static int precedence(TokenType type) {
+        switch (type) {
+            case LT: case GT: case EQ:
+                return 1;
+            case PLUS: case MINUS: case OR:
+                return 2;
+            case TIMES: case DIV: case AND:
+                return 3;
+            default:
+                return 0;
         }
-        throw new RuntimeException("Unexpected factor: " + token.lexeme);
     }
-}
\ No newline at end of file
+}
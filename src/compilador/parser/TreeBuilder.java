@@ -0,0 +1,76 @@
+package compilador.parser;
+
+import compilador.ast.*;
+import compilador.lexer.Token;
+import compilador.lexer.TokenSource;
+
+import java.util.List;
+
+/**
+ * Constrói a AST tradicional, com um objeto por nó.
+ */
+public class TreeBuilder implements NodeBuilder<ASTNode> {
+
+    protected final TokenSource tokens;
+
+    public TreeBuilder(List<Token> tokens) {
+        this(tokens::get);
+    }
+
+    /**
+     * @param tokens A fonte de tokens do Parser (ver {@link Parser#getTokenSource()}).
+     */
+    public TreeBuilder(TokenSource tokens) {
+        this.tokens = tokens;
+    }
+
+    @Override
+    public ASTNode program(List<ASTNode> declarations, ASTNode compoundStatement) {
+        return new ProgramaNode(declarations, compoundStatement);
+    }
+
+    @Override
+    public ASTNode varDecl(int identifier, int type) {
+        return new VarDeclNode(tokens.get(identifier), tokens.get(type));
+    }
+
+    @Override
+    public ASTNode beginEnd(List<ASTNode> commands) {
+        return new BeginEndNode(commands);
+    }
+
+    @Override
+    public ASTNode assign(int variable, ASTNode expression) {
+        return new AssignNode(tokens.get(variable), expression);
+    }
+
+    @Override
+    public ASTNode ifNode(ASTNode condition, ASTNode thenBranch, ASTNode elseBranch) {
+        return new IfNode(condition, thenBranch, elseBranch);
+    }
+
+    @Override
+    public ASTNode whileNode(ASTNode condition, ASTNode body) {
+        return new WhileNode(condition, body);
+    }
+
+    @Override
+    public ASTNode binaryOp(ASTNode left, int operator, ASTNode right) {
+        return new BinaryOpNode(left, tokens.get(operator), right);
+    }
+
+    @Override
+    public ASTNode intLit(int value) {
+        return new IntLitNode(tokens.get(value));
+    }
+
+    @Override
+    public ASTNode booleanLit(int value) {
+        return new BooleanLitNode(tokens.get(value));
+    }
+
+    @Override
+    public ASTNode variableUse(int identifier) {
+        return new VariableUseNode(tokens.get(identifier));
+    }
+}
@@ -0,0 +1,137 @@
+package compilador.server;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Cliente mínimo do CompileServer. Mantém uma única conexão aberta e envia
+ * um pedido por arquivo.
+ *
+ * Uso: java -cp out compilador.server.CompileClient [--port 7878] [--path] arquivo...
+ *   --path   envia o caminho absoluto em vez do conteúdo (o servidor lê o arquivo)
+ */
+public class CompileClient implements Closeable {
+
+    /**
+     * Resposta do servidor a um pedido de compilação.
+     */
+    public static final class Response {
+        public final boolean success;
+        public final long serverMicros;
+        public final List<String> lines;
+
+        Response(boolean success, long serverMicros, List<String> lines) {
+            this.success = success;
+            this.serverMicros = serverMicros;
+            this.lines = lines;
+        }
+    }
+
+    private static final String USAGE =
+            "Uso: java -cp out compilador.server.CompileClient [--port 7878] [--path] arquivo...";
+
+    private final Socket socket;
+    private final InputStream in;
+    private final OutputStream out;
+
+    public CompileClient(int port) throws IOException {
+        this.socket = new Socket(InetAddress.getLoopbackAddress(), port);
+        this.in = new BufferedInputStream(socket.getInputStream());
+        this.out = new BufferedOutputStream(socket.getOutputStream());
+    }
+
+    /**
+     * Envia um código-fonte para compilação.
+     */
+    public Response compileSource(String source) throws IOException {
+        byte[] bytes = source.getBytes(StandardCharsets.UTF_8);
+        out.write((Protocol.SOURCE + " " + bytes.length + "\n").getBytes(StandardCharsets.UTF_8));
+        out.write(bytes);
+        out.flush();
+        return readResponse();
+    }
+
+    /**
+     * Pede ao servidor que compile um arquivo do seu próprio sistema de arquivos.
+     */
+    public Response compilePath(Path path) throws IOException {
+        out.write((Protocol.PATH + " " + path.toAbsolutePath() + "\n").getBytes(StandardCharsets.UTF_8));
+        out.flush();
+        return readResponse();
+    }
+
+    private Response readResponse() throws IOException {
+        String header = Protocol.readLine(in);
+        if (header == null) {
+            throw new IOException("O servidor encerrou a conexao.");
+        }
+        String[] parts = header.split(" ");
+        if (parts.length != 3) {
+            throw new IOException("Resposta invalida do servidor: " + header);
+        }
+        int count = Integer.parseInt(parts[2]);
+        List<String> lines = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            lines.add(Protocol.readLine(in));
+        }
+        return new Response(parts[0].equals(Protocol.OK), Long.parseLong(parts[1]), lines);
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            out.write((Protocol.QUIT + "\n").getBytes(StandardCharsets.UTF_8));
+            out.flush();
+        } finally {
+            socket.close();
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        int port = Protocol.DEFAULT_PORT;
+        boolean sendPath = false;
+        List<Path> files = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--port": port = Protocol.intOption(args, i++, 0, 65535, USAGE); break;
+                case "--path": sendPath = true; break;
+                default: files.add(Paths.get(args[i])); break;
+            }
+        }
+        if (files.isEmpty()) {
+            System.err.println(USAGE);
+            System.exit(2);
+        }
+
+        boolean allPassed = true;
+        try (CompileClient client = new CompileClient(port)) {
+            for (Path file : files) {
+                long start = System.nanoTime();
+                Response response = sendPath
+                        ? client.compilePath(file)
+                        : client.compileSource(new String(Files.readAllBytes(file), StandardCharsets.UTF_8));
+                long roundTrip = (System.nanoTime() - start) / 1000;
+
+                System.out.println("== " + file + " [" + (response.success ? "OK" : "ERRO") + ", servidor "
+                        + response.serverMicros + " us, ida e volta " + roundTrip + " us]");
+                for (String line : response.lines) {
+                    System.out.println(line);
+                }
+                allPassed &= response.success;
+            }
+        }
+        System.exit(allPassed ? 0 : 1);
+    }
+}
@@ -0,0 +1,225 @@
+package compilador.server;
+
+import compilador.CompilationResult;
+import compilador.Compiler;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Servidor de compilação persistente. Mantém uma JVM aquecida para que
+ * chamadas repetidas do compilador (ex: num build) não paguem a cada vez a
+ * inicialização da JVM e o JIT frio do Scanner, Parser e visitors.
+ *
+ * Escuta apenas na interface de loopback (localhost). O protocolo está
+ * descrito em {@link Protocol}.
+ *
+ * Uso: java -cp out compilador.server.CompileServer [--port 7878] [--threads N] [--no-warmup]
+ */
+public class CompileServer {
+
+    // Programa usado para aquecer o JIT antes de aceitar conexões
+    private static final String WARMUP_PROGRAM =
+            "program Aquecimento;\n" +
+            " var a : integer;\n" +
+            " var b : boolean;\n" +
+            "begin\n" +
+            "  a := 10;\n" +
+            "  b := (a > 5) and true;\n" +
+            "  while b = true do\n" +
+            "  begin\n" +
+            "    if a > 0 then a := a - 1 else b := false;\n" +
+            "    a := (a + 1) * 2 / 2 - 1;\n" +
+            "  end;\n" +
+            "end";
+
+    private static final String USAGE =
+            "Uso: java -cp out compilador.server.CompileServer [--port 7878] [--threads N] [--no-warmup]";
+
+    private final int port;
+    private final int threads;
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong totalMicros = new AtomicLong();
+
+    public CompileServer(int port, int threads) {
+        this.port = port;
+        this.threads = threads;
+    }
+
+    public static void main(String[] args) throws IOException {
+        int port = Protocol.DEFAULT_PORT;
+        int threads = Runtime.getRuntime().availableProcessors();
+        boolean warmup = true;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--port":    port = Protocol.intOption(args, i++, 0, 65535, USAGE); break;
+                case "--threads": threads = Protocol.intOption(args, i++, 1, 1024, USAGE); break;
+                case "--no-warmup": warmup = false; break;
+                default:
+                    System.err.println("Opcao desconhecida: " + args[i]);
+                    System.err.println(USAGE);
+                    System.exit(2);
+            }
+        }
+
+        CompileServer server = new CompileServer(port, threads);
+        if (warmup) {
+            server.warmUp(2000);
+        }
+        server.serve();
+    }
+
+    /**
+     * Compila repetidamente um programa de exemplo para que o JIT otimize
+     * o pipeline antes do primeiro pedido real.
+     */
+    public void warmUp(int iterations) {
+        long start = System.nanoTime();
+        Compiler compiler = new Compiler();
+        for (int i = 0; i < iterations; i++) {
+            compiler.compile(WARMUP_PROGRAM);
+        }
+        log(String.format("Aquecimento: %d compilacoes em %.1f ms", iterations, (System.nanoTime() - start) / 1e6));
+    }
+
+    /**
+     * Aceita conexões indefinidamente, atendendo cada uma numa thread do pool.
+     */
+    public void serve() throws IOException {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try (ServerSocket serverSocket = new ServerSocket(port, 50, InetAddress.getLoopbackAddress())) {
+            log("Servidor de compilacao escutando em " + serverSocket.getLocalSocketAddress());
+            while (!Thread.currentThread().isInterrupted()) {
+                Socket socket = serverSocket.accept();
+                pool.execute(() -> handle(socket));
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Atende todos os pedidos de uma conexão até QUIT ou até o cliente desconectar.
+     */
+    private void handle(Socket socket) {
+        try (Socket s = socket;
+             InputStream in = new BufferedInputStream(s.getInputStream());
+             OutputStream out = new BufferedOutputStream(s.getOutputStream())) {
+            Compiler compiler = new Compiler();
+            String header;
+            while ((header = Protocol.readLine(in)) != null) {
+                if (header.equals(Protocol.QUIT)) {
+                    break;
+                }
+                long start = System.nanoTime();
+                List<String> body;
+                boolean success;
+                boolean framingLost = false;
+                try {
+                    CompilationResult result = compiler.compile(readSource(header, in));
+                    success = result.isSuccess();
+                    body = success ? result.getObjectCode() : Collections.singletonList(result.getErrorMessage());
+                } catch (InvalidLengthException e) {
+                    // O corpo não foi lido, então não há como achar o próximo pedido
+                    success = false;
+                    framingLost = true;
+                    body = Collections.singletonList("Pedido invalido: " + e.getMessage());
+                } catch (IOException | IllegalArgumentException e) {
+                    success = false;
+                    body = Collections.singletonList("Pedido invalido: " + e.getMessage());
+                }
+                long micros = (System.nanoTime() - start) / 1000;
+                writeResponse(out, success, micros, body);
+
+                long count = requests.incrementAndGet();
+                long total = totalMicros.addAndGet(micros);
+                log(String.format("Pedido #%d: %s em %d us (media %d us)",
+                        count, success ? Protocol.OK : Protocol.ERROR, micros, total / count));
+                if (framingLost) {
+                    break;
+                }
+            }
+        } catch (IOException e) {
+            log("Conexao encerrada com erro: " + e.getMessage());
+        }
+    }
+
+    private static String readSource(String header, InputStream in) throws IOException {
+        if (header.startsWith(Protocol.SOURCE + " ")) {
+            int length = parseLength(header.substring(Protocol.SOURCE.length() + 1).trim());
+            byte[] bytes = in.readNBytes(length);
+            if (bytes.length != length) {
+                throw new IOException("Fonte truncado: esperados " + length + " bytes, recebidos " + bytes.length);
+            }
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+        if (header.startsWith(Protocol.PATH + " ")) {
+            String path = header.substring(Protocol.PATH.length() + 1);
+            return new String(Files.readAllBytes(Paths.get(path)), StandardCharsets.UTF_8);
+        }
+        throw new IllegalArgumentException("Comando desconhecido: " + header);
+    }
+
+    /**
+     * @return O tamanho declarado num pedido SOURCE.
+     * @throws InvalidLengthException Se ele não for um número entre 0 e
+     *         {@link Protocol#MAX_SOURCE_BYTES}.
+     */
+    private static int parseLength(String value) throws InvalidLengthException {
+        long length;
+        try {
+            length = Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            throw new InvalidLengthException("Tamanho invalido: " + value);
+        }
+        if (length < 0 || length > Protocol.MAX_SOURCE_BYTES) {
+            throw new InvalidLengthException("Tamanho " + value + " fora do limite de 0 a "
+                    + Protocol.MAX_SOURCE_BYTES + " bytes");
+        }
+        return (int) length;
+    }
+
+    private static void writeResponse(OutputStream out, boolean success, long micros, List<String> lines) throws IOException {
+        StringBuilder response = new StringBuilder();
+        response.append(success ? Protocol.OK : Protocol.ERROR)
+                .append(' ').append(micros)
+                .append(' ').append(lines.size()).append('\n');
+        for (String line : lines) {
+            // Mensagens de erro nunca devem quebrar o enquadramento por linhas
+            response.append(line.replace('\n', ' ')).append('\n');
+        }
+        out.write(response.toString().getBytes(StandardCharsets.UTF_8));
+        out.flush();
+    }
+
+    private static void log(String message) {
+        System.err.println("[compile-server] " + message);
+    }
+
+    /**
+     * Tamanho de SOURCE inválido ou grande demais: o corpo não é lido e a
+     * conexão é encerrada depois da resposta.
+     */
+    private static final class InvalidLengthException extends IOException {
+
+        private static final long serialVersionUID = 1L;
+
+        InvalidLengthException(String message) {
+            super(message);
+        }
+    }
+}
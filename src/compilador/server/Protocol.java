@@ -0,0 +1,79 @@
+package compilador.server;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Protocolo textual (UTF-8, orientado a linhas) entre CompileServer e CompileClient.
+ * Uma mesma conexão pode transportar vários pedidos, um após o outro.
+ *
+ * Pedidos:
+ *   SOURCE <n>\n<n bytes de código-fonte>   compila o texto enviado (n até
+ *                                           {@link #MAX_SOURCE_BYTES}; acima
+ *                                           disso, ERROR e a conexão é fechada)
+ *   PATH <caminho>\n                         compila um arquivo visível pelo servidor
+ *   QUIT\n                                   encerra a conexão
+ *
+ * Resposta:
+ *   OK <microssegundos> <k>\n                seguida de k linhas de código TAM
+ *   ERROR <microssegundos> <k>\n             seguida de k linhas de diagnóstico
+ */
+final class Protocol {
+
+    static final int DEFAULT_PORT = 7878;
+
+    /** Maior fonte aceito num pedido SOURCE, para que um tamanho absurdo não esgote a memória. */
+    static final int MAX_SOURCE_BYTES = 64 * 1024 * 1024;
+
+    static final String SOURCE = "SOURCE";
+    static final String PATH = "PATH";
+    static final String QUIT = "QUIT";
+    static final String OK = "OK";
+    static final String ERROR = "ERROR";
+
+    private Protocol() {
+    }
+
+    /**
+     * Lê uma linha terminada em '\n' (o '\r' final, se houver, é descartado).
+     * @return A linha lida, ou null se a conexão foi fechada antes de qualquer byte.
+     */
+    static String readLine(InputStream in) throws IOException {
+        ByteArrayOutputStream line = new ByteArrayOutputStream(64);
+        int b;
+        while ((b = in.read()) != -1 && b != '\n') {
+            line.write(b);
+        }
+        if (b == -1 && line.size() == 0) {
+            return null;
+        }
+        String text = line.toString(StandardCharsets.UTF_8);
+        return text.endsWith("\r") ? text.substring(0, text.length() - 1) : text;
+    }
+
+    /**
+     * Lê o valor inteiro da opção args[i] (em args[i + 1]) da linha de comando
+     * do servidor ou do cliente. Se ele faltar, não for um número ou estiver
+     * fora do intervalo, imprime o erro e o uso e encerra com o código 2.
+     */
+    static int intOption(String[] args, int i, int min, int max, String usage) {
+        if (i + 1 >= args.length) {
+            System.err.println("A opcao " + args[i] + " exige um valor.");
+        } else {
+            try {
+                int value = Integer.parseInt(args[i + 1]);
+                if (value >= min && value <= max) {
+                    return value;
+                }
+                System.err.println("A opcao " + args[i] + " exige um valor entre " + min + " e " + max + ".");
+            } catch (NumberFormatException e) {
+                System.err.println("Valor invalido para " + args[i] + ": " + args[i + 1]);
+            }
+        }
+        System.err.println(usage);
+        System.exit(2);
+        return 0; // Não alcançado
+    }
+}
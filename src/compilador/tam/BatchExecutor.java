@@ -0,0 +1,135 @@
+package compilador.tam;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Executa muitos programas TAM concorrentemente, cada um em sua própria thread
+ * virtual e com seu próprio orçamento de instruções e limite de pilha.
+ *
+ * Threads virtuais só existem a partir do Java 21; em JDKs mais antigos o
+ * executor recai para um pool fixo com uma thread por processador. Com
+ * threads virtuais, a TamMachine cede a thread nos saltos para trás; no pool
+ * fixo, onde Thread.yield() não dá a vez às tarefas na fila, a execução é
+ * pausada nesses pontos e o restante volta ao fim da fila. Nos dois casos um
+ * laço infinito não impede que os demais programas do lote avancem.
+ */
+public class BatchExecutor {
+
+    /**
+     * Executa o lote aplicando os mesmos limites (mas um orçamento independente)
+     * a cada programa.
+     */
+    public BatchReport runAll(List<TamProgram> programs, ExecutionLimits limits) {
+        List<ExecutionLimits> perProgram = new ArrayList<>(programs.size());
+        for (int i = 0; i < programs.size(); i++) {
+            perProgram.add(limits);
+        }
+        return runAll(programs, perProgram);
+    }
+
+    /**
+     * Executa o lote com limites individuais.
+     * @param programs Os programas a executar.
+     * @param limits   Os limites de cada programa, na mesma ordem.
+     * @return O relatório com os resultados e as estatísticas do lote.
+     */
+    public BatchReport runAll(List<TamProgram> programs, List<ExecutionLimits> limits) {
+        if (programs.size() != limits.size()) {
+            throw new IllegalArgumentException("Cada programa precisa de exatamente um conjunto de limites.");
+        }
+
+        int count = programs.size();
+        long[] latencies = new long[count];
+        List<CompletableFuture<ExecutionResult>> futures = new ArrayList<>(count);
+
+        ExecutorService executor = newVirtualThreadExecutor();
+        boolean requeue = executor == null;
+        if (requeue) {
+            executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+        }
+        long batchStart = System.nanoTime();
+        try {
+            for (int i = 0; i < count; i++) {
+                Run run = new Run(i, new TamMachine(limits.get(i)), programs.get(i), executor, requeue, latencies);
+                futures.add(run.future);
+                executor.execute(run);
+            }
+
+            List<ExecutionResult> results = new ArrayList<>(count);
+            for (Future<ExecutionResult> future : futures) {
+                results.add(future.get());
+            }
+            return new BatchReport(results, latencies, System.nanoTime() - batchStart);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Execucao do lote interrompida.", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Falha ao executar o lote: " + e.getCause(), e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * A execução de um programa do lote. No pool fixo, cada tarefa executa
+     * uma fatia (até o ponto de preempção da TamMachine) e, se o programa não
+     * terminou, submete-se de novo, indo para o fim da fila.
+     */
+    private static final class Run implements Runnable {
+        final CompletableFuture<ExecutionResult> future = new CompletableFuture<>();
+        private final int index;
+        private final TamMachine machine;
+        private final TamMachine.Execution execution;
+        private final ExecutorService executor;
+        private final boolean requeue;
+        private final long[] latencies;
+        private final long submitted = System.nanoTime();
+
+        Run(int index, TamMachine machine, TamProgram program, ExecutorService executor, boolean requeue,
+            long[] latencies) {
+            this.index = index;
+            this.machine = machine;
+            this.execution = new TamMachine.Execution(program, machine.getLimits());
+            this.executor = executor;
+            this.requeue = requeue;
+            this.latencies = latencies;
+        }
+
+        @Override
+        public void run() {
+            try {
+                ExecutionResult result = requeue ? machine.resume(execution) : machine.execute(execution.program);
+                if (result == null) {
+                    executor.execute(this);
+                    return;
+                }
+                latencies[index] = System.nanoTime() - submitted;
+                future.complete(result);
+            } catch (RuntimeException | Error e) {
+                // Inclui a RejectedExecutionException de um lote já encerrado
+                future.completeExceptionally(e);
+            }
+        }
+    }
+
+    /**
+     * Cria um executor de threads virtuais quando o JDK oferece suporte
+     * (consultado por reflexão para manter a compatibilidade com Java 11).
+     * @return O executor, ou null se o JDK não tem threads virtuais.
+     */
+    private static ExecutorService newVirtualThreadExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+}
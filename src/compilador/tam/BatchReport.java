@@ -0,0 +1,73 @@
+package compilador.tam;
+
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Estatísticas agregadas de um lote executado pelo BatchExecutor:
+ * vazão (programas por segundo) e percentis de latência.
+ */
+public final class BatchReport {
+
+    private final List<ExecutionResult> results;
+    private final long[] sortedLatencies;
+    private final long wallNanos;
+
+    BatchReport(List<ExecutionResult> results, long[] latencies, long wallNanos) {
+        this.results = results;
+        this.sortedLatencies = latencies.clone();
+        Arrays.sort(this.sortedLatencies);
+        this.wallNanos = wallNanos;
+    }
+
+    /**
+     * @return Os resultados individuais, na mesma ordem dos programas submetidos.
+     */
+    public List<ExecutionResult> getResults() {
+        return results;
+    }
+
+    public long getWallNanos() {
+        return wallNanos;
+    }
+
+    /**
+     * @return Programas executados por segundo de tempo de parede.
+     */
+    public double throughput() {
+        return wallNanos == 0 ? 0 : results.size() * 1e9 / wallNanos;
+    }
+
+    /**
+     * Calcula um percentil da latência (tempo desde a submissão até o término).
+     * @param percentile Valor entre 0 e 100 (ex: 99 para p99).
+     * @return A latência em nanossegundos.
+     */
+    public long latencyPercentile(double percentile) {
+        if (sortedLatencies.length == 0) return 0;
+        int index = (int) Math.ceil(percentile / 100.0 * sortedLatencies.length) - 1;
+        return sortedLatencies[Math.max(0, Math.min(index, sortedLatencies.length - 1))];
+    }
+
+    /**
+     * @return Quantos programas terminaram com cada status.
+     */
+    public Map<ExecutionResult.Status, Integer> countByStatus() {
+        Map<ExecutionResult.Status, Integer> counts = new EnumMap<>(ExecutionResult.Status.class);
+        for (ExecutionResult result : results) {
+            counts.merge(result.status, 1, Integer::sum);
+        }
+        return counts;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d programas em %.1f ms (%.0f programas/s) | latencia p50=%.3f ms p90=%.3f ms p99=%.3f ms max=%.3f ms | %s",
+                results.size(), wallNanos / 1e6, throughput(),
+                latencyPercentile(50) / 1e6, latencyPercentile(90) / 1e6,
+                latencyPercentile(99) / 1e6, latencyPercentile(100) / 1e6,
+                countByStatus());
+    }
+}
@@ -0,0 +1,39 @@
+package compilador.tam;
+
+/**
+ * Limites impostos a uma execução da TamMachine.
+ * Cada execução recebe seu próprio orçamento, de forma que um programa
+ * com laço infinito (ex: "while true do ...") termine sozinho sem
+ * monopolizar a thread em que roda.
+ */
+public final class ExecutionLimits {
+
+    /** Número máximo de instruções executadas antes de abortar. */
+    public final long instructionBudget;
+
+    /** Profundidade máxima da pilha de operandos. */
+    public final int stackLimit;
+
+    /**
+     * Quantos saltos para trás (fim de um laço while) acontecem entre duas
+     * cessões voluntárias da thread. Zero desativa a cessão.
+     */
+    public final int yieldInterval;
+
+    public ExecutionLimits(long instructionBudget, int stackLimit, int yieldInterval) {
+        if (instructionBudget <= 0 || stackLimit <= 0 || yieldInterval < 0) {
+            throw new IllegalArgumentException("Limites de execucao invalidos.");
+        }
+        this.instructionBudget = instructionBudget;
+        this.stackLimit = stackLimit;
+        this.yieldInterval = yieldInterval;
+    }
+
+    /**
+     * @return Limites padrão: 10 milhões de instruções, pilha de 1024 posições
+     *         e cessão da thread a cada 1024 iterações de laço.
+     */
+    public static ExecutionLimits defaults() {
+        return new ExecutionLimits(10_000_000L, 1024, 1024);
+    }
+}
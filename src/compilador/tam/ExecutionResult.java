@@ -0,0 +1,61 @@
+package compilador.tam;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Resultado de uma execução da TamMachine: como ela terminou, quantas
+ * instruções foram executadas, quanto tempo levou e o valor final das variáveis.
+ */
+public final class ExecutionResult {
+
+    /**
+     * Formas possíveis de término de uma execução.
+     */
+    public enum Status {
+        HALTED,             // Chegou à instrução HALT
+        BUDGET_EXCEEDED,    // Esgotou o orçamento de instruções
+        STACK_OVERFLOW,     // Ultrapassou o limite da pilha
+        STACK_UNDERFLOW,    // Desempilhou de uma pilha vazia
+        DIVISION_BY_ZERO,   // DIV com divisor 0
+        INTERRUPTED         // A thread foi interrompida durante uma cessão
+    }
+
+    public final Status status;
+    public final long instructionsExecuted;
+    public final long elapsedNanos;
+    private final String[] variableNames;
+    private final int[] variableValues;
+
+    ExecutionResult(Status status, long instructionsExecuted, long elapsedNanos,
+                    String[] variableNames, int[] variableValues) {
+        this.status = status;
+        this.instructionsExecuted = instructionsExecuted;
+        this.elapsedNanos = elapsedNanos;
+        this.variableNames = variableNames;
+        this.variableValues = variableValues;
+    }
+
+    /**
+     * @return true se o programa terminou normalmente (HALT).
+     */
+    public boolean isHalted() {
+        return status == Status.HALTED;
+    }
+
+    /**
+     * @return O valor final de cada variável, na ordem em que aparecem no código.
+     */
+    public Map<String, Integer> getVariables() {
+        Map<String, Integer> values = new LinkedHashMap<>();
+        for (int i = 0; i < variableNames.length; i++) {
+            values.put(variableNames[i], variableValues[i]);
+        }
+        return values;
+    }
+
+    @Override
+    public String toString() {
+        return status + " apos " + instructionsExecuted + " instrucoes " + getVariables();
+    }
+}
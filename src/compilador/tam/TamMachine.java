@@ -0,0 +1,183 @@
+package compilador.tam;
+
+/**
+ * Interpretador da TAM (Triangle Abstract Machine) para o subconjunto de
+ * instruções emitido pelo CodeGenVisitor.
+ *
+ * Cada chamada a {@link #execute(TamProgram)} usa apenas estado local, então
+ * uma mesma instância pode ser compartilhada por várias threads. A preempção
+ * é cooperativa: nos saltos para trás (o "JUMP" emitido no fim de um while)
+ * a máquina verifica o orçamento e, periodicamente, cede a thread com
+ * Thread.yield(), o que numa thread virtual libera a carrier thread. Numa
+ * thread de plataforma o yield não dá a vez às tarefas na fila do pool; por
+ * isso o BatchExecutor usa {@link #resume}, que pausa a execução nesse ponto
+ * para que ela volte ao fim da fila.
+ */
+public class TamMachine {
+
+    private final ExecutionLimits limits;
+
+    public TamMachine(ExecutionLimits limits) {
+        this.limits = limits;
+    }
+
+    ExecutionLimits getLimits() {
+        return limits;
+    }
+
+    /**
+     * Estado de uma execução entre duas fatias de {@link #resume}.
+     */
+    static final class Execution {
+        final TamProgram program;
+        final int[] memory;
+        final int[] stack;
+        long executed;
+        long elapsedNanos;
+        int sp;
+        int pc;
+
+        Execution(TamProgram program, ExecutionLimits limits) {
+            this.program = program;
+            this.memory = new int[program.variables.length];
+            this.stack = new int[limits.stackLimit];
+        }
+    }
+
+    /**
+     * Executa o programa até HALT ou até violar algum dos limites.
+     * @param program O programa montado.
+     * @return O resultado da execução.
+     */
+    public ExecutionResult execute(TamProgram program) {
+        return run(new Execution(program, limits), false);
+    }
+
+    /**
+     * Executa uma fatia do programa: para, em vez de ceder a thread, no
+     * ponto de preempção (a cada yieldInterval saltos para trás).
+     * @param execution O estado da execução, criado para este programa e
+     *        atualizado a cada fatia.
+     * @return O resultado, ou null se a execução parou no ponto de preempção
+     *         e deve ser retomada com outra chamada.
+     */
+    ExecutionResult resume(Execution execution) {
+        return run(execution, true);
+    }
+
+    private ExecutionResult run(Execution execution, boolean pause) {
+        final TamProgram program = execution.program;
+        final int[] opcodes = program.opcodes;
+        final int[] operands = program.operands;
+        final int[] memory = execution.memory;
+        final int[] stack = execution.stack;
+        final long budget = limits.instructionBudget;
+        final int yieldInterval = limits.yieldInterval;
+
+        long startTime = System.nanoTime();
+        long executed = execution.executed;
+        int backJumps = 0;
+        int sp = execution.sp;
+        int pc = execution.pc;
+        ExecutionResult.Status status = ExecutionResult.Status.HALTED;
+
+        run:
+        while (pc < opcodes.length) {
+            if (executed == budget) {
+                status = ExecutionResult.Status.BUDGET_EXCEEDED;
+                break;
+            }
+            executed++;
+
+            int opcode = opcodes[pc];
+            int operand = operands[pc];
+            pc++;
+
+            switch (opcode) {
+                case TamProgram.LOADL:
+                case TamProgram.LOAD:
+                    if (sp == stack.length) {
+                        status = ExecutionResult.Status.STACK_OVERFLOW;
+                        break run;
+                    }
+                    stack[sp++] = opcode == TamProgram.LOADL ? operand : memory[operand];
+                    break;
+
+                case TamProgram.STORE:
+                    if (sp == 0) {
+                        status = ExecutionResult.Status.STACK_UNDERFLOW;
+                        break run;
+                    }
+                    memory[operand] = stack[--sp];
+                    break;
+
+                case TamProgram.JUMP:
+                    if (operand < pc) {
+                        // Salto para trás: ponto de preempção cooperativa
+                        if (yieldInterval > 0 && ++backJumps == yieldInterval) {
+                            backJumps = 0;
+                            if (pause && !Thread.currentThread().isInterrupted()) {
+                                execution.executed = executed;
+                                execution.sp = sp;
+                                execution.pc = operand;
+                                execution.elapsedNanos += System.nanoTime() - startTime;
+                                return null;
+                            }
+                            Thread.yield();
+                            if (Thread.currentThread().isInterrupted()) {
+                                status = ExecutionResult.Status.INTERRUPTED;
+                                break run;
+                            }
+                        }
+                    }
+                    pc = operand;
+                    break;
+
+                case TamProgram.JUMPIF0:
+                    if (sp == 0) {
+                        status = ExecutionResult.Status.STACK_UNDERFLOW;
+                        break run;
+                    }
+                    if (stack[--sp] == 0) {
+                        pc = operand;
+                    }
+                    break;
+
+                case TamProgram.HALT:
+                    break run;
+
+                default:
+                    // Operações binárias: consomem dois valores e empilham o resultado
+                    if (sp < 2) {
+                        status = ExecutionResult.Status.STACK_UNDERFLOW;
+                        break run;
+                    }
+                    int right = stack[--sp];
+                    int left = stack[sp - 1];
+                    int value;
+                    switch (opcode) {
+                        case TamProgram.ADD:  value = left + right; break;
+                        case TamProgram.SUB:  value = left - right; break;
+                        case TamProgram.MULT: value = left * right; break;
+                        case TamProgram.DIV:
+                            if (right == 0) {
+                                status = ExecutionResult.Status.DIVISION_BY_ZERO;
+                                break run;
+                            }
+                            value = left / right;
+                            break;
+                        case TamProgram.AND:  value = (left != 0 && right != 0) ? 1 : 0; break;
+                        case TamProgram.OR:   value = (left != 0 || right != 0) ? 1 : 0; break;
+                        case TamProgram.EQ:   value = left == right ? 1 : 0; break;
+                        case TamProgram.LT:   value = left < right ? 1 : 0; break;
+                        default:              value = left > right ? 1 : 0; break; // GT
+                    }
+                    stack[sp - 1] = value;
+                    break;
+            }
+        }
+
+        execution.elapsedNanos += System.nanoTime() - startTime;
+        return new ExecutionResult(status, executed, execution.elapsedNanos, program.variables, memory);
+    }
+}
@@ -0,0 +1,150 @@
+package compilador.tam;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Programa TAM já montado, pronto para ser executado pela TamMachine.
+ * Converte a lista de instruções textuais produzida pelo CodeGenVisitor
+ * em vetores de opcodes e operandos: rótulos são resolvidos para endereços
+ * e variáveis recebem índices fixos, de modo que a execução não precise
+ * comparar strings.
+ */
+public final class TamProgram {
+
+    // Opcodes internos da máquina
+    static final int LOADL = 0;
+    static final int LOAD = 1;
+    static final int STORE = 2;
+    static final int ADD = 3;
+    static final int SUB = 4;
+    static final int MULT = 5;
+    static final int DIV = 6;
+    static final int AND = 7;
+    static final int OR = 8;
+    static final int EQ = 9;
+    static final int LT = 10;
+    static final int GT = 11;
+    static final int JUMP = 12;
+    static final int JUMPIF0 = 13;
+    static final int HALT = 14;
+
+    final int[] opcodes;
+    final int[] operands;
+    final String[] variables;
+
+    private TamProgram(int[] opcodes, int[] operands, String[] variables) {
+        this.opcodes = opcodes;
+        this.operands = operands;
+        this.variables = variables;
+    }
+
+    /**
+     * Monta um programa a partir do código-objeto gerado pelo CodeGenVisitor.
+     * @param objectCode A lista de instruções TAM, incluindo as linhas de rótulo ("L0:").
+     * @return O programa montado.
+     * @throws IllegalArgumentException se alguma instrução não for reconhecida
+     *         ou se um salto referenciar um rótulo inexistente.
+     */
+    public static TamProgram assemble(List<String> objectCode) {
+        // 1ª passagem: descobre o endereço de cada rótulo
+        Map<String, Integer> labels = new HashMap<>();
+        int address = 0;
+        for (String line : objectCode) {
+            String instruction = line.trim();
+            if (instruction.isEmpty()) continue;
+            if (instruction.endsWith(":")) {
+                labels.put(instruction.substring(0, instruction.length() - 1), address);
+            } else {
+                address++;
+            }
+        }
+
+        // 2ª passagem: traduz cada instrução para opcode + operando
+        int[] opcodes = new int[address];
+        int[] operands = new int[address];
+        Map<String, Integer> slots = new HashMap<>();
+        List<String> variables = new ArrayList<>();
+        int pc = 0;
+        for (String line : objectCode) {
+            String instruction = line.trim();
+            if (instruction.isEmpty() || instruction.endsWith(":")) continue;
+
+            int space = instruction.indexOf(' ');
+            String mnemonic = space < 0 ? instruction : instruction.substring(0, space);
+            String argument = space < 0 ? null : instruction.substring(space + 1).trim();
+
+            switch (mnemonic) {
+                case "LOADL":
+                    opcodes[pc] = LOADL;
+                    operands[pc] = parseLiteral(argument, instruction);
+                    break;
+                case "LOAD":
+                case "STORE":
+                    opcodes[pc] = mnemonic.equals("LOAD") ? LOAD : STORE;
+                    Integer slot = slots.get(requireArgument(argument, instruction));
+                    if (slot == null) {
+                        slot = variables.size();
+                        slots.put(argument, slot);
+                        variables.add(argument);
+                    }
+                    operands[pc] = slot;
+                    break;
+                case "JUMP":
+                case "JUMPIF(0)":
+                    opcodes[pc] = mnemonic.equals("JUMP") ? JUMP : JUMPIF0;
+                    Integer target = labels.get(requireArgument(argument, instruction));
+                    if (target == null) {
+                        throw new IllegalArgumentException("Rotulo nao definido: " + argument);
+                    }
+                    operands[pc] = target;
+                    break;
+                case "ADD":  opcodes[pc] = ADD; break;
+                case "SUB":  opcodes[pc] = SUB; break;
+                case "MULT": opcodes[pc] = MULT; break;
+                case "DIV":  opcodes[pc] = DIV; break;
+                case "AND":  opcodes[pc] = AND; break;
+                case "OR":   opcodes[pc] = OR; break;
+                case "EQ":   opcodes[pc] = EQ; break;
+                case "LT":   opcodes[pc] = LT; break;
+                case "GT":   opcodes[pc] = GT; break;
+                case "HALT": opcodes[pc] = HALT; break;
+                default:
+                    throw new IllegalArgumentException("Instrucao TAM desconhecida: " + instruction);
+            }
+            pc++;
+        }
+        return new TamProgram(opcodes, operands, variables.toArray(new String[0]));
+    }
+
+    private static String requireArgument(String argument, String instruction) {
+        if (argument == null || argument.isEmpty()) {
+            throw new IllegalArgumentException("Instrucao sem operando: " + instruction);
+        }
+        return argument;
+    }
+
+    private static int parseLiteral(String argument, String instruction) {
+        try {
+            return Integer.parseInt(requireArgument(argument, instruction));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Literal invalido: " + instruction);
+        }
+    }
+
+    /**
+     * @return O número de instruções executáveis (rótulos não contam).
+     */
+    public int size() {
+        return opcodes.length;
+    }
+
+    /**
+     * @return Os nomes das variáveis, na ordem dos índices usados pela máquina.
+     */
+    public List<String> getVariables() {
+        return List.of(variables);
+    }
+}
@@ -2,142 +2,255 @@ package compilador.visitor;
 
 import compilador.ast.*;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
 /**
  * Implementação do padrão Visitor para criar uma representação textual
  * e indentada da Árvore Sintática Abstrata (AST).
  * Esta classe é usada para visualizar a estrutura do programa após a análise sintática,
  * cumprindo o requisito da Etapa 3 do projeto.
+ *
+ * Todos os nós escrevem diretamente num único Appendable, usando um buffer de
+ * indentação compartilhado, de modo que o custo é linear no tamanho da árvore.
+ * Criado com {@link #ASTPrinter(Appendable)}, o printer escreve no destino
+ * informado (ex: um Writer) e os métodos de visita retornam null. Criado sem
+ * argumentos, o nó visitado a partir de fora retorna o texto completo da sua subárvore.
+ * O percurso é feito pelo {@link AstWalker}, sem recursão.
  */
 public class ASTPrinter implements Visitor<String> {
 
+    private static final String INDENT_UNIT = "  ";
+
     private int indentLevel = 0;
+    private final StringBuilder indentBuffer = new StringBuilder();
+
+    // Destino fixo (modo streaming) ou null para acumular e retornar uma String
+    private final Appendable sink;
+    private Appendable out;
+
+    private final TreeWriter writer = new TreeWriter();
+
+    public ASTPrinter() {
+        this.sink = null;
+    }
 
     /**
-     * Gera uma string com espaços para a indentação atual.
+     * Cria um printer em modo streaming.
+     * @param sink O destino da impressão (StringBuilder, Writer, etc.).
      */
-    private String indent() {
-        return "  ".repeat(indentLevel);
+    public ASTPrinter(Appendable sink) {
+        this.sink = sink;
+        this.out = sink;
     }
 
-    @Override
-    public String visitProgramaNode(ProgramaNode node) {
-        StringBuilder sb = new StringBuilder();
-        sb.append(indent()).append("ProgramaNode\n");
-
-        indentLevel++;
-        sb.append(indent()).append("Declaracoes:\n");
-        indentLevel++;
-        for (ASTNode decl : node.declaracoes) {
-            sb.append(decl.accept(this));
+    /**
+     * Imprime a árvore inteira no destino informado.
+     */
+    public static void print(ASTNode root, Appendable sink) {
+        root.accept(new ASTPrinter(sink));
+    }
+
+    /**
+     * Inicia a visita de um nó. Sem destino fixo, a visita mais externa cria o
+     * buffer onde toda a subárvore será escrita.
+     * @return true se este nó é a raiz da impressão em modo String.
+     */
+    private boolean begin() {
+        if (out == null) {
+            out = new StringBuilder();
+            return true;
         }
-        indentLevel--;
+        return false;
+    }
 
-        sb.append(indent()).append("Comando Composto:\n");
-        indentLevel++;
-        sb.append(node.comandoComposto.accept(this));
-        indentLevel--;
-        indentLevel--;
+    /**
+     * Finaliza a visita de um nó.
+     * @return O texto acumulado se o nó é a raiz da impressão em modo String; null caso contrário.
+     */
+    private String end(boolean root) {
+        if (!root) {
+            return null;
+        }
+        String text = out.toString();
+        out = sink;
+        return text;
+    }
+
+    /**
+     * Escreve a indentação atual seguida do texto e de uma quebra de linha.
+     */
+    private void line(String text) {
+        try {
+            int width = indentLevel * INDENT_UNIT.length();
+            while (indentBuffer.length() < width) {
+                indentBuffer.append(INDENT_UNIT);
+            }
+            out.append(indentBuffer, 0, width).append(text).append('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
 
-        return sb.toString();
+    @Override
+    public String visitProgramaNode(ProgramaNode node) {
+        return print(node);
     }
 
     @Override
     public String visitVarDeclNode(VarDeclNode node) {
-        return indent() + "VarDeclNode: " + node.identifier.lexeme + " : " + node.type.lexeme + "\n";
+        return print(node);
     }
 
     @Override
     public String visitBeginEndNode(BeginEndNode node) {
-        StringBuilder sb = new StringBuilder();
-        sb.append(indent()).append("BeginEndNode\n");
-
-        indentLevel++;
-        for (ASTNode cmd : node.commands) {
-            sb.append(cmd.accept(this));
-        }
-        indentLevel--;
-
-        return sb.toString();
+        return print(node);
     }
 
     @Override
     public String visitAssignNode(AssignNode node) {
-        StringBuilder sb = new StringBuilder();
-        sb.append(indent()).append("AssignNode: ").append(node.variable.lexeme).append("\n");
-
-        indentLevel++;
-        sb.append(indent()).append("Expression:\n");
-        sb.append(node.expression.accept(this));
-        indentLevel--;
-
-        return sb.toString();
+        return print(node);
     }
 
     @Override
     public String visitIfNode(IfNode node) {
-        StringBuilder sb = new StringBuilder();
-        sb.append(indent()).append("IfNode\n");
-
-        indentLevel++;
-        sb.append(indent()).append("Condition:\n");
-        sb.append(node.condition.accept(this));
-
-        sb.append(indent()).append("Then Branch:\n");
-        sb.append(node.thenBranch.accept(this));
-
-        if (node.elseBranch != null) {
-            sb.append(indent()).append("Else Branch:\n");
-            sb.append(node.elseBranch.accept(this));
-        }
-        indentLevel--;
-
-        return sb.toString();
+        return print(node);
     }
 
     @Override
     public String visitWhileNode(WhileNode node) {
-        StringBuilder sb = new StringBuilder();
-        sb.append(indent()).append("WhileNode\n");
-
-        indentLevel++;
-        sb.append(indent()).append("Condition:\n");
-        sb.append(node.condition.accept(this));
-
-        sb.append(indent()).append("Do:\n");
-        sb.append(node.body.accept(this));
-        indentLevel--;
-
-        return sb.toString();
+        return print(node);
     }
 
     @Override
     public String visitBinaryOpNode(BinaryOpNode node) {
-        StringBuilder sb = new StringBuilder();
-        sb.append(indent()).append("BinaryOpNode: '").append(node.operator.lexeme).append("'\n");
-
-        indentLevel++;
-        sb.append(indent()).append("Left:\n");
-        sb.append(node.left.accept(this));
-
-        sb.append(indent()).append("Right:\n");
-        sb.append(node.right.accept(this));
-        indentLevel--;
-
-        return sb.toString();
+        return print(node);
     }
 
     @Override
     public String visitIntLitNode(IntLitNode node) {
-        return indent() + "IntLitNode: " + node.value.lexeme + "\n";
+        return print(node);
     }
 
     @Override
     public String visitBooleanLitNode(BooleanLitNode node) {
-        return indent() + "BooleanLitNode: " + node.value.lexeme + "\n";
+        return print(node);
     }
 
     @Override
     public String visitVariableUseNode(VariableUseNode node) {
-        return indent() + "VariableUseNode: " + node.identifier.lexeme + "\n";
+        return print(node);
+    }
+
+    private String print(ASTNode node) {
+        boolean root = begin();
+        AstWalker.walk(node, writer);
+        return end(root);
+    }
+
+    // --- IMPRESSÃO DURANTE O PERCURSO ---
+
+    /**
+     * Escreve o cabeçalho de cada nó ao entrar, os rótulos das seções
+     * ("Then Branch:", "Right:", ...) antes do filho correspondente e desfaz a
+     * indentação ao sair.
+     */
+    private final class TreeWriter implements WalkListener {
+
+        @Override
+        public boolean enter(ASTNode node) {
+            switch (node.kind) {
+                case PROGRAMA:
+                    line("ProgramaNode");
+                    indentLevel++;
+                    line("Declaracoes:");
+                    indentLevel++;
+                    break;
+                case VAR_DECL: {
+                    VarDeclNode decl = (VarDeclNode) node;
+                    line("VarDeclNode: " + decl.identifier.lexeme + " : " + decl.type.lexeme);
+                    break;
+                }
+                case BEGIN_END:
+                    line("BeginEndNode");
+                    indentLevel++;
+                    break;
+                case ASSIGN:
+                    line("AssignNode: " + ((AssignNode) node).variable.lexeme);
+                    indentLevel++;
+                    line("Expression:");
+                    break;
+                case IF:
+                    line("IfNode");
+                    indentLevel++;
+                    line("Condition:");
+                    break;
+                case WHILE:
+                    line("WhileNode");
+                    indentLevel++;
+                    line("Condition:");
+                    break;
+                case BINARY_OP:
+                    line("BinaryOpNode: '" + ((BinaryOpNode) node).operator.lexeme + "'");
+                    indentLevel++;
+                    line("Left:");
+                    break;
+                case INT_LIT:
+                    line("IntLitNode: " + ((IntLitNode) node).value.lexeme);
+                    break;
+                case BOOLEAN_LIT:
+                    line("BooleanLitNode: " + ((BooleanLitNode) node).value.lexeme);
+                    break;
+                case VARIABLE_USE:
+                    line("VariableUseNode: " + ((VariableUseNode) node).identifier.lexeme);
+                    break;
+                default:
+                    break;
+            }
+            return true;
+        }
+
+        @Override
+        public void beforeChild(ASTNode node, int index) {
+            switch (node.kind) {
+                case PROGRAMA:
+                    if (index == ((ProgramaNode) node).declaracoes.size()) {
+                        indentLevel--;
+                        line("Comando Composto:");
+                        indentLevel++;
+                    }
+                    break;
+                case IF:
+                    if (index == 1) line("Then Branch:");
+                    else if (index == 2) line("Else Branch:");
+                    break;
+                case WHILE:
+                    if (index == 1) line("Do:");
+                    break;
+                case BINARY_OP:
+                    if (index == 1) line("Right:");
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        @Override
+        public void exit(ASTNode node) {
+            switch (node.kind) {
+                case PROGRAMA:
+                    indentLevel -= 2;
+                    break;
+                case BEGIN_END:
+                case ASSIGN:
+                case IF:
+                case WHILE:
+                case BINARY_OP:
+                    indentLevel--;
+                    break;
+                default:
+                    break;
+            }
+        }
     }
-}
\ No newline at end of file
+}
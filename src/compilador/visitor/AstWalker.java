@@ -0,0 +1,178 @@
+package compilador.visitor;
+
+import compilador.ast.*;
+
+import java.util.Arrays;
+
+/**
+ * Percorre a AST em profundidade usando uma pilha explícita, em vez de
+ * recursão por accept. Assim a profundidade da árvore (blocos, ifs e
+ * parênteses aninhados) é limitada apenas pelo heap.
+ *
+ * Pode ser usado de duas formas:
+ * <ul>
+ *   <li>como cursor: o chamador pede um evento por vez com {@link #next()} e
+ *       despacha com um switch em {@link ASTNode#kind}. É o que fazem as
+ *       passagens centrais (CheckerVisitor, CodeGenVisitor) para as
+ *       subárvores mais profundas que {@link #RECURSION_LIMIT};</li>
+ *   <li>com {@link #walk(ASTNode, WalkListener)}, que entrega os eventos a um
+ *       {@link WalkListener} (ex: ASTPrinter).</li>
+ * </ul>
+ */
+public final class AstWalker {
+
+    /** Entrada num nó, antes dos filhos. */
+    public static final int ENTER = 0;
+    /** Imediatamente antes do filho de posição {@link #childIndex()}. */
+    public static final int BEFORE_CHILD = 1;
+    /** Saída de um nó, depois de todos os filhos. */
+    public static final int EXIT = 2;
+    /** Fim do percurso. */
+    public static final int DONE = -1;
+
+    /**
+     * Profundidade até a qual as passagens podem percorrer a árvore por
+     * recursão comum, que é bem mais barata por nó. Abaixo disso, cada
+     * subárvore é entregue a um AstWalker. O valor cabe com folga na pilha
+     * padrão de qualquer thread da JVM, mesmo quando a passagem é chamada de
+     * dentro do Parser (modo --fused) e os quadros compilados ficam maiores
+     * por causa do inlining.
+     */
+    public static final int RECURSION_LIMIT = 256;
+
+    // Nós abertos e, para cada um, a posição do próximo filho (-1: ainda não entrou)
+    private ASTNode[] nodes = new ASTNode[64];
+    private int[] nextChild = new int[64];
+    private int depth = 0;
+
+    private ASTNode current;
+    private int currentIndex;
+
+    public AstWalker(ASTNode root) {
+        push(root);
+    }
+
+    /**
+     * Percorre a subárvore enviando os eventos ao listener.
+     */
+    public static void walk(ASTNode root, WalkListener listener) {
+        AstWalker walker = new AstWalker(root);
+        for (int event = walker.next(); event != DONE; event = walker.next()) {
+            switch (event) {
+                case ENTER:
+                    if (!listener.enter(walker.node())) {
+                        walker.skipChildren();
+                    }
+                    break;
+                case BEFORE_CHILD:
+                    listener.beforeChild(walker.node(), walker.childIndex());
+                    break;
+                default:
+                    listener.exit(walker.node());
+                    break;
+            }
+        }
+    }
+
+    /**
+     * Avança o percurso.
+     * @return ENTER, BEFORE_CHILD, EXIT ou DONE.
+     */
+    public int next() {
+        if (depth == 0) {
+            current = null;
+            return DONE;
+        }
+        int top = depth - 1;
+        ASTNode node = nodes[top];
+        int index = nextChild[top];
+        current = node;
+        if (index < 0) {
+            nextChild[top] = 0;
+            return ENTER;
+        }
+        ASTNode child = childAt(node, index);
+        if (child != null) {
+            nextChild[top] = index + 1;
+            currentIndex = index;
+            push(child);
+            return BEFORE_CHILD;
+        }
+        // A referência em nodes[top] é sobrescrita no próximo push; a árvore
+        // continua viva de qualquer forma enquanto o percurso existir.
+        depth--;
+        return EXIT;
+    }
+
+    private void push(ASTNode node) {
+        if (depth == nodes.length) {
+            nodes = Arrays.copyOf(nodes, depth * 2);
+            nextChild = Arrays.copyOf(nextChild, depth * 2);
+        }
+        nodes[depth] = node.kind == NodeKind.REF ? ((NodeRef) node).resolve() : node;
+        nextChild[depth] = -1;
+        depth++;
+    }
+
+    /**
+     * @return O nó do último evento.
+     */
+    public ASTNode node() {
+        return current;
+    }
+
+    /**
+     * @return A posição do filho, no evento BEFORE_CHILD.
+     */
+    public int childIndex() {
+        return currentIndex;
+    }
+
+    /**
+     * Logo após um ENTER, descarta os filhos do nó. O EXIT desse nó não é gerado.
+     */
+    public void skipChildren() {
+        depth--;
+    }
+
+    /**
+     * @return O filho de posição index (ainda não resolvido, se for uma
+     *         {@link NodeRef}), ou null se o nó não tem mais filhos.
+     */
+    public static ASTNode childAt(ASTNode node, int index) {
+        switch (node.kind) {
+            case BINARY_OP: {
+                BinaryOpNode op = (BinaryOpNode) node;
+                return index == 0 ? op.left : index == 1 ? op.right : null;
+            }
+            case ASSIGN:
+                return index == 0 ? ((AssignNode) node).expression : null;
+            case BEGIN_END: {
+                BeginEndNode block = (BeginEndNode) node;
+                return index < block.commands.size() ? block.commands.get(index) : null;
+            }
+            case IF: {
+                IfNode ifNode = (IfNode) node;
+                switch (index) {
+                    case 0: return ifNode.condition;
+                    case 1: return ifNode.thenBranch;
+                    case 2: return ifNode.elseBranch;
+                    default: return null;
+                }
+            }
+            case WHILE: {
+                WhileNode loop = (WhileNode) node;
+                return index == 0 ? loop.condition : index == 1 ? loop.body : null;
+            }
+            case PROGRAMA: {
+                ProgramaNode program = (ProgramaNode) node;
+                int declarations = program.declaracoes.size();
+                if (index < declarations) return program.declaracoes.get(index);
+                return index == declarations ? program.comandoComposto : null;
+            }
+            default:
+                // Folhas: literais, uso de variável e declarações
+                return null;
+        }
+    }
+}
@@ -0,0 +1,208 @@
+package compilador.visitor;
+
+import compilador.ast.*;
+import compilador.checker.IdEntry;
+import compilador.checker.SymbolTable;
+import compilador.lexer.TokenType;
+
+import java.util.List;
+
+/**
+ * Análise de contexto e geração de código numa única passagem pela AST.
+ *
+ * Cada nó é verificado e, em seguida, tem o seu código emitido, sem uma
+ * segunda visita à árvore. As regras e as mensagens de erro são as do
+ * {@link CheckerVisitor} e as instruções são as do {@link CodeGenVisitor}
+ * (os rótulos são criados na mesma ordem), então o resultado é idêntico ao
+ * das duas passagens separadas. Se algum erro de contexto for encontrado, o
+ * código gerado até ali é descartado e o erro é lançado.
+ *
+ * Também pode ser alimentado comando a comando, à medida que o Parser os
+ * reduz (ver {@link compilador.parser.CheckAndGenBuilder}), sem que a AST do
+ * programa inteiro exista.
+ */
+public class CheckAndGenVisitor implements Visitor<TokenType> {
+
+    private final CheckerVisitor checker = new CheckerVisitor();
+    private final CodeGenVisitor codeGen = new CodeGenVisitor();
+
+    /**
+     * @return O código gerado até agora; vazio se houve erro.
+     */
+    public List<String> getObjectCode() {
+        return codeGen.getObjectCode();
+    }
+
+    public SymbolTable getSymbolTable() {
+        return checker.getSymbolTable();
+    }
+
+    /**
+     * Verifica e gera o código de um nó (programa, declaração ou comando).
+     * @return O tipo do nó, se ele for uma expressão; null caso contrário.
+     * @throws Error com a mensagem do CheckerVisitor, se houver erro de contexto.
+     */
+    public TokenType run(ASTNode node) {
+        try {
+            return visit(node, 0);
+        } catch (Error | RuntimeException e) {
+            codeGen.getObjectCode().clear();
+            throw e;
+        }
+    }
+
+    /**
+     * Emite a instrução final do programa. Usado quando o programa é
+     * processado comando a comando, sem um ProgramaNode completo.
+     */
+    public void endProgram() {
+        codeGen.emit("HALT");
+    }
+
+    // --- MÉTODOS DE VISITA ---
+    // Mantidos por compatibilidade com a API Visitor.
+
+    @Override
+    public TokenType visitProgramaNode(ProgramaNode node) {
+        return run(node);
+    }
+
+    @Override
+    public TokenType visitAssignNode(AssignNode node) {
+        return run(node);
+    }
+
+    @Override
+    public TokenType visitIfNode(IfNode node) {
+        return run(node);
+    }
+
+    @Override
+    public TokenType visitBinaryOpNode(BinaryOpNode node) {
+        return run(node);
+    }
+
+    @Override
+    public TokenType visitIntLitNode(IntLitNode node) {
+        return run(node);
+    }
+
+    @Override
+    public TokenType visitVarDeclNode(VarDeclNode node) {
+        return run(node);
+    }
+
+    @Override
+    public TokenType visitBeginEndNode(BeginEndNode node) {
+        return run(node);
+    }
+
+    @Override
+    public TokenType visitWhileNode(WhileNode node) {
+        return run(node);
+    }
+
+    @Override
+    public TokenType visitBooleanLitNode(BooleanLitNode node) {
+        return run(node);
+    }
+
+    @Override
+    public TokenType visitVariableUseNode(VariableUseNode node) {
+        return run(node);
+    }
+
+    // --- PASSAGEM ÚNICA ---
+
+    /**
+     * Percorre por recursão até {@link AstWalker#RECURSION_LIMIT}. Subárvores
+     * mais profundas são raras; para elas, as duas passagens iterativas são
+     * aplicadas só àquela subárvore, o que produz o mesmo resultado. Não se
+     * usa check/generate ali: eles recomeçariam a recursão do zero e a pilha
+     * chegaria ao dobro do limite.
+     */
+    private TokenType visit(ASTNode node, int depth) {
+        if (depth == AstWalker.RECURSION_LIMIT) {
+            TokenType type = checker.walk(node);
+            codeGen.walk(node);
+            return type;
+        }
+        int next = depth + 1;
+        switch (node.kind) {
+            case BINARY_OP: {
+                BinaryOpNode op = (BinaryOpNode) node;
+                TokenType leftType = visit(op.left, next);
+                TokenType rightType = visit(op.right, next);
+                TokenType type = checker.exitBinaryOp(op, leftType, rightType);
+                codeGen.emitOperator(op.operator.type);
+                return type;
+            }
+            case INT_LIT:
+                codeGen.emitLoad(node);
+                return TokenType.INTEGER;
+            case BOOLEAN_LIT:
+                codeGen.emitLoad(node);
+                return TokenType.BOOLEAN;
+            case VARIABLE_USE: {
+                TokenType type = checker.checkVariableUse((VariableUseNode) node);
+                codeGen.emitLoad(node);
+                return type;
+            }
+            case ASSIGN: {
+                AssignNode assign = (AssignNode) node;
+                IdEntry entry = checker.checkDeclared(assign);
+                checker.checkAssign(assign, entry, visit(assign.expression, next));
+                codeGen.emit("STORE " + assign.variable.lexeme);
+                return null;
+            }
+            case IF: {
+                IfNode ifNode = (IfNode) node;
+                String elseLabel = codeGen.newLabel();
+                String endIfLabel = codeGen.newLabel();
+                checker.checkCondition(ifNode, visit(ifNode.condition, next));
+                codeGen.emit("JUMPIF(0) " + elseLabel);
+                visit(ifNode.thenBranch, next);
+                codeGen.emit("JUMP " + endIfLabel);
+                codeGen.emit(elseLabel + ":");
+                if (ifNode.elseBranch != null) {
+                    visit(ifNode.elseBranch, next);
+                }
+                codeGen.emit(endIfLabel + ":");
+                return null;
+            }
+            case WHILE: {
+                WhileNode loop = (WhileNode) node;
+                String startLabel = codeGen.newLabel();
+                String endLabel = codeGen.newLabel();
+                codeGen.emit(startLabel + ":");
+                checker.checkCondition(loop, visit(loop.condition, next));
+                codeGen.emit("JUMPIF(0) " + endLabel);
+                visit(loop.body, next);
+                codeGen.emit("JUMP " + startLabel);
+                codeGen.emit(endLabel + ":");
+                return null;
+            }
+            case BEGIN_END:
+                for (ASTNode cmd : ((BeginEndNode) node).commands) {
+                    visit(cmd, next);
+                }
+                return null;
+            case PROGRAMA: {
+                ProgramaNode program = (ProgramaNode) node;
+                for (ASTNode decl : program.declaracoes) {
+                    visit(decl, next);
+                }
+                visit(program.comandoComposto, next);
+                endProgram();
+                return null;
+            }
+            case VAR_DECL:
+                checker.declare((VarDeclNode) node);
+                return null;
+            case REF:
+                return visit(((NodeRef) node).resolve(), depth);
+            default:
+                return null;
+        }
+    }
+}
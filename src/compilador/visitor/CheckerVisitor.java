@@ -3,7 +3,15 @@ package compilador.visitor;
 import compilador.ast.*;
 import compilador.checker.IdEntry;
 import compilador.checker.SymbolTable;
+import compilador.diagnostics.CompilationError;
+import compilador.diagnostics.Diagnostic;
+import compilador.diagnostics.Diagnostics;
 import compilador.lexer.TokenType;
+import compilador.parser.HashConsingTreeBuilder;
+
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.Map;
 
 /**
  * Implementação do padrão Visitor para realizar a Análise de Contexto (escopo e tipos).
@@ -12,13 +20,48 @@ import compilador.lexer.TokenType;
  * 2. Regras de Tipos: Garante que as operações, atribuições e condições usem tipos compatíveis.
  *
  * O método `accept` para este visitor retorna o `TokenType` de uma expressão, ou `null` para comandos e declarações.
+ * O percurso é recursivo até {@link AstWalker#RECURSION_LIMIT} níveis e, a
+ * partir daí, continua com a pilha explícita do {@link AstWalker}, então o
+ * aninhamento não é limitado pela pilha da JVM. O despacho é um switch em
+ * {@link ASTNode#kind}, sem chamadas accept/visit.
+ *
+ * Por padrão, o primeiro erro interrompe a verificação com um Error. Com
+ * {@link #setDiagnostics}, cada erro é registrado e a verificação continua:
+ * uma expressão com erro ainda tem o tipo do seu operador (ex: INTEGER para
+ * '+') e uma variável não declarada tem tipo desconhecido (null), que não
+ * gera novos erros nas expressões e comandos que a contêm.
  */
 public class CheckerVisitor implements Visitor<TokenType> {
 
     private final SymbolTable symbolTable;
 
+    // Tipos já calculados de expressões binárias (null se a memorização estiver desligada)
+    private final Map<ASTNode, TokenType> expressionTypes;
+
+    // Destino dos erros, ou null para lançar o primeiro
+    private Diagnostics diagnostics;
+
+    // Linhas das ocorrências dos nós compartilhados (null sem hash-consing) e
+    // quantas ocorrências de cada nó já foram visitadas
+    private HashConsingTreeBuilder occurrences;
+    private final Map<ASTNode, int[]> visitedOccurrences = new IdentityHashMap<>();
+
     public CheckerVisitor() {
+        this(false);
+    }
+
+    /**
+     * @param memoizeExpressions Se true, o tipo de cada BinaryOpNode é calculado
+     *        uma única vez por instância. Vale a pena quando a AST tem subárvores
+     *        compartilhadas (ver HashConsingTreeBuilder): como há um único escopo
+     *        global, o tipo de uma expressão não depende de onde ela aparece.
+     *        Com {@link #setDiagnostics}, a memorização fica desligada: cada
+     *        ocorrência de uma expressão com erro precisa ser verificada de
+     *        novo para que o erro seja registrado em todas elas.
+     */
+    public CheckerVisitor(boolean memoizeExpressions) {
         this.symbolTable = new SymbolTable();
+        this.expressionTypes = memoizeExpressions ? new IdentityHashMap<>() : null;
     }
 
     /**
@@ -29,100 +72,396 @@ public class CheckerVisitor implements Visitor<TokenType> {
         return this.symbolTable;
     }
 
+    /**
+     * Faz a verificação registrar todos os erros em diagnostics e continuar,
+     * em vez de lançar o primeiro.
+     * @param diagnostics O destino dos erros, ou null para o comportamento padrão.
+     */
+    public void setDiagnostics(Diagnostics diagnostics) {
+        this.diagnostics = diagnostics;
+    }
+
+    /**
+     * Informa a fábrica que construiu a AST com subárvores compartilhadas,
+     * para que cada erro numa expressão aponte a linha da ocorrência visitada
+     * (ver {@link HashConsingTreeBuilder#linesOf}), e não a da primeira, cujo
+     * token o nó compartilhado guarda.
+     * @param builder A fábrica da AST verificada, ou null se ela não compartilha nós.
+     */
+    public void setOccurrenceLines(HashConsingTreeBuilder builder) {
+        this.occurrences = builder;
+        visitedOccurrences.clear();
+    }
+
+    /**
+     * Esvazia a tabela de símbolos (e os tipos memorizados), para verificar
+     * outro programa com a mesma instância.
+     */
+    public void reset() {
+        symbolTable.clear();
+        visitedOccurrences.clear();
+        if (expressionTypes != null) {
+            expressionTypes.clear();
+        }
+    }
+
     // --- MÉTODOS DE VISITA ---
+    // Mantidos por compatibilidade com a API Visitor: cada visita apenas
+    // dispara o laço de verificação a partir do nó.
 
     @Override
     public TokenType visitProgramaNode(ProgramaNode node) {
-        // 1. Visita todas as declarações para popular a tabela de símbolos
-        for (ASTNode decl : node.declaracoes) {
-            decl.accept(this);
-        }
-        // 2. Visita o corpo principal do programa para checar os comandos
-        node.comandoComposto.accept(this);
-        return null;
+        return check(node);
     }
 
     @Override
     public TokenType visitVarDeclNode(VarDeclNode node) {
-        IdEntry entry = new IdEntry(node.identifier, node.type.type);
-        symbolTable.add(entry);
-        return null;
+        return check(node);
     }
 
     @Override
     public TokenType visitBeginEndNode(BeginEndNode node) {
-        // Visita cada comando dentro do bloco begin-end
-        for (ASTNode cmd : node.commands) {
-            cmd.accept(this);
-        }
-        return null;
+        return check(node);
     }
 
     @Override
     public TokenType visitAssignNode(AssignNode node) {
+        return check(node);
+    }
+
+    @Override
+    public TokenType visitIfNode(IfNode node) {
+        return check(node);
+    }
+
+    @Override
+    public TokenType visitWhileNode(WhileNode node) {
+        return check(node);
+    }
+
+    @Override
+    public TokenType visitBinaryOpNode(BinaryOpNode node) {
+        return check(node);
+    }
+
+    @Override
+    public TokenType visitIntLitNode(IntLitNode node) {
+        return check(node);
+    }
+
+    @Override
+    public TokenType visitBooleanLitNode(BooleanLitNode node) {
+        return check(node);
+    }
+
+    @Override
+    public TokenType visitVariableUseNode(VariableUseNode node) {
+        return check(node);
+    }
+
+    /**
+     * Verifica a subárvore, despachando cada nó por switch no seu tipo. As
+     * verificações acontecem na mesma ordem da versão recursiva original,
+     * então o primeiro erro reportado é o mesmo.
+     * @return O tipo da subárvore, se ela for uma expressão; null caso contrário.
+     */
+    public TokenType check(ASTNode root) {
+        return visit(root, 0);
+    }
+
+    /**
+     * Percorre por recursão até {@link AstWalker#RECURSION_LIMIT}; abaixo
+     * disso, continua com a pilha explícita do AstWalker. Os dois caminhos
+     * aplicam as mesmas regras (métodos auxiliares abaixo), na mesma ordem.
+     */
+    private TokenType visit(ASTNode node, int depth) {
+        if (depth == AstWalker.RECURSION_LIMIT) {
+            return walk(node);
+        }
+        int next = depth + 1;
+        switch (node.kind) {
+            case BINARY_OP: {
+                BinaryOpNode op = (BinaryOpNode) node;
+                TokenType known = knownType(op);
+                if (known != null) {
+                    return known;
+                }
+                countOccurrence(op);
+                TokenType leftType = visit(op.left, next);
+                TokenType rightType = visit(op.right, next);
+                return exitBinaryOp(op, leftType, rightType);
+            }
+            case INT_LIT:
+                countOccurrence(node);
+                return TokenType.INTEGER;
+            case BOOLEAN_LIT:
+                countOccurrence(node);
+                return TokenType.BOOLEAN;
+            case VARIABLE_USE:
+                countOccurrence(node);
+                return checkVariableUse((VariableUseNode) node);
+            case ASSIGN: {
+                AssignNode assign = (AssignNode) node;
+                IdEntry entry = checkDeclared(assign);
+                checkAssign(assign, entry, visit(assign.expression, next));
+                return null;
+            }
+            case IF: {
+                IfNode ifNode = (IfNode) node;
+                checkCondition(ifNode, visit(ifNode.condition, next));
+                visit(ifNode.thenBranch, next);
+                if (ifNode.elseBranch != null) {
+                    visit(ifNode.elseBranch, next);
+                }
+                return null;
+            }
+            case WHILE: {
+                WhileNode loop = (WhileNode) node;
+                checkCondition(loop, visit(loop.condition, next));
+                visit(loop.body, next);
+                return null;
+            }
+            case BEGIN_END:
+                for (ASTNode cmd : ((BeginEndNode) node).commands) {
+                    visit(cmd, next);
+                }
+                return null;
+            case PROGRAMA: {
+                ProgramaNode program = (ProgramaNode) node;
+                for (ASTNode decl : program.declaracoes) {
+                    visit(decl, next);
+                }
+                visit(program.comandoComposto, next);
+                return null;
+            }
+            case VAR_DECL:
+                declare((VarDeclNode) node);
+                return null;
+            case REF:
+                return visit(((NodeRef) node).resolve(), depth);
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Versão iterativa de {@link #visit}: cada expressão, ao sair, deixa o seu
+     * tipo numa pilha, de onde quem a contém o consome.
+     */
+    TokenType walk(ASTNode root) {
+        TokenType[] types = new TokenType[16];
+        int count = 0;
+        AstWalker walker = new AstWalker(root);
+        for (int event = walker.next(); event != AstWalker.DONE; event = walker.next()) {
+            ASTNode node = walker.node();
+            TokenType type = null;
+            boolean expression = false; // Se type é o tipo de uma expressão (pode ser null)
+            if (event == AstWalker.ENTER) {
+                if (node.kind == NodeKind.ASSIGN) {
+                    checkDeclared((AssignNode) node);
+                } else if (node.kind == NodeKind.BINARY_OP) {
+                    type = knownType((BinaryOpNode) node);
+                    if (type != null) {
+                        walker.skipChildren();
+                        expression = true;
+                    } else {
+                        countOccurrence(node);
+                    }
+                } else if (node.kind == NodeKind.INT_LIT || node.kind == NodeKind.BOOLEAN_LIT
+                        || node.kind == NodeKind.VARIABLE_USE) {
+                    countOccurrence(node);
+                }
+            } else if (event == AstWalker.BEFORE_CHILD) {
+                // A condição de IF/WHILE é o filho 0
+                if (walker.childIndex() == 1 && (node.kind == NodeKind.IF || node.kind == NodeKind.WHILE)) {
+                    checkCondition(node, types[--count]);
+                }
+            } else {
+                switch (node.kind) {
+                    case BINARY_OP: {
+                        TokenType rightType = types[--count];
+                        TokenType leftType = types[--count];
+                        type = exitBinaryOp((BinaryOpNode) node, leftType, rightType);
+                        expression = true;
+                        break;
+                    }
+                    case INT_LIT:
+                        type = TokenType.INTEGER;
+                        expression = true;
+                        break;
+                    case BOOLEAN_LIT:
+                        type = TokenType.BOOLEAN;
+                        expression = true;
+                        break;
+                    case VARIABLE_USE:
+                        type = checkVariableUse((VariableUseNode) node);
+                        expression = true;
+                        break;
+                    case ASSIGN: {
+                        AssignNode assign = (AssignNode) node;
+                        checkAssign(assign, symbolTable.find(assign.variable.lexeme), types[--count]);
+                        break;
+                    }
+                    case VAR_DECL:
+                        declare((VarDeclNode) node);
+                        break;
+                    default:
+                        break;
+                }
+            }
+            if (expression) {
+                if (count == types.length) {
+                    types = Arrays.copyOf(types, count * 2);
+                }
+                types[count++] = type;
+            }
+        }
+        return count > 0 ? types[count - 1] : null;
+    }
+
+    // --- REGRAS ---
+    // Visíveis no pacote para que o CheckAndGenVisitor aplique exatamente as
+    // mesmas verificações e mensagens.
+
+    /**
+     * Lança o erro ou, com diagnostics, registra-o e deixa a verificação continuar.
+     */
+    private void error(String message, int line) {
+        if (diagnostics == null) {
+            throw new CompilationError(message, line);
+        }
+        diagnostics.report(Diagnostic.Kind.CONTEXT, line, message);
+    }
+
+    void declare(VarDeclNode node) {
+        IdEntry entry = new IdEntry(node.identifier, node.type.type);
+        if (diagnostics == null) {
+            symbolTable.add(entry);
+        } else if (!symbolTable.addIfAbsent(entry)) {
+            // A primeira declaração continua valendo
+            error(SymbolTable.duplicateMessage(node.identifier.lexeme), node.identifier.line);
+        }
+    }
+
+    /**
+     * @return A entrada da variável, ou null se ela não foi declarada (com diagnostics).
+     */
+    IdEntry checkDeclared(AssignNode node) {
         // REGRA DE IDENTIFICAÇÃO: Verifica se a variável à esquerda foi declarada
         IdEntry entry = symbolTable.find(node.variable.lexeme);
         if (entry == null) {
-            throw new Error("Erro de Contexto: Variavel '" + node.variable.lexeme + "' nao declarada (linha " + node.variable.line + ").");
+            error("Erro de Contexto: Variavel '" + node.variable.lexeme + "' nao declarada (linha " + node.variable.line + ").",
+                    node.variable.line);
         }
+        return entry;
+    }
 
-        // REGRA DE TIPOS: Verifica o tipo da expressão à direita
-        TokenType exprType = node.expression.accept(this);
+    void checkCondition(ASTNode node, TokenType conditionType) {
+        // REGRA DE TIPOS: A condição de um IF/WHILE deve ser sempre booleana
+        // (tipo desconhecido: o erro já foi registrado)
+        if (conditionType != null && conditionType != TokenType.BOOLEAN) {
+            String command = node.kind == NodeKind.IF ? "IF" : "WHILE";
+            ASTNode condition = node.kind == NodeKind.IF ? ((IfNode) node).condition : ((WhileNode) node).condition;
+            error("Erro de Contexto: A expressao de condicao do " + command + " deve ser do tipo BOOLEAN.",
+                    occurrenceLine(condition, lineOf(condition)));
+        }
+    }
 
-        // REGRA DE TIPOS: Verifica se os tipos são compatíveis para atribuição
-        if (entry.type != exprType) {
-            throw new Error("Erro de Contexto: Tipos incompativeis para atribuicao na linha " + node.variable.line + ". Esperado " +
-                    entry.type + " mas encontrou " + exprType);
+    /**
+     * @return A linha do operador ou do primeiro token da expressão, ou 0.
+     */
+    private static int lineOf(ASTNode node) {
+        while (node.kind == NodeKind.REF) {
+            node = ((NodeRef) node).resolve();
+        }
+        switch (node.kind) {
+            case BINARY_OP:
+                return ((BinaryOpNode) node).operator.line;
+            case INT_LIT:
+                return ((IntLitNode) node).value.line;
+            case BOOLEAN_LIT:
+                return ((BooleanLitNode) node).value.line;
+            case VARIABLE_USE:
+                return ((VariableUseNode) node).identifier.line;
+            default:
+                return 0;
         }
-        return null;
     }
 
-    @Override
-    public TokenType visitIfNode(IfNode node) {
-        // REGRA DE TIPOS: A condição de um IF deve ser sempre booleana
-        if (node.condition.accept(this) != TokenType.BOOLEAN) {
-            throw new Error("Erro de Contexto: A expressao de condicao do IF deve ser do tipo BOOLEAN.");
+    /**
+     * Registra mais uma visita a um nó de expressão, com {@link #setOccurrenceLines}.
+     * As ocorrências são visitadas na ordem em que o Parser as criou.
+     */
+    private void countOccurrence(ASTNode node) {
+        if (occurrences != null) {
+            visitedOccurrences.computeIfAbsent(node, n -> new int[1])[0]++;
+        }
+    }
+
+    /**
+     * @return A linha da ocorrência visitada por último do nó, se ele foi
+     *         construído por uma fábrica com hash-consing; line caso contrário.
+     */
+    private int occurrenceLine(ASTNode node, int line) {
+        while (node.kind == NodeKind.REF) {
+            node = ((NodeRef) node).resolve();
         }
-        // Visita as ramificações
-        node.thenBranch.accept(this);
-        if (node.elseBranch != null) {
-            node.elseBranch.accept(this);
+        int[] visited = occurrences == null ? null : visitedOccurrences.get(node);
+        if (visited == null) {
+            return line;
         }
-        return null;
+        int[] lines = occurrences.linesOf(node);
+        return visited[0] <= lines.length ? lines[visited[0] - 1] : line;
     }
 
-    @Override
-    public TokenType visitWhileNode(WhileNode node) {
-        // REGRA DE TIPOS: A condição de um WHILE deve ser sempre booleana
-        if (node.condition.accept(this) != TokenType.BOOLEAN) {
-            throw new Error("Erro de Contexto: A expressao de condicao do WHILE deve ser do tipo BOOLEAN.");
+    /**
+     * @return O tipo já calculado da expressão, com a memorização ligada (e
+     *         sem diagnostics); null caso contrário.
+     */
+    TokenType knownType(BinaryOpNode node) {
+        return expressionTypes == null || diagnostics != null ? null : expressionTypes.get(node);
+    }
+
+    TokenType exitBinaryOp(BinaryOpNode node, TokenType leftType, TokenType rightType) {
+        TokenType type = checkBinaryOp(node, leftType, rightType);
+        if (expressionTypes != null && diagnostics == null) {
+            expressionTypes.put(node, type);
         }
-        // Visita o corpo do laço
-        node.body.accept(this);
-        return null;
+        return type;
     }
 
-    @Override
-    public TokenType visitBinaryOpNode(BinaryOpNode node) {
-        TokenType leftType = node.left.accept(this);
-        TokenType rightType = node.right.accept(this);
+    void checkAssign(AssignNode node, IdEntry entry, TokenType exprType) {
+        // REGRA DE TIPOS: Verifica se os tipos são compatíveis para atribuição
+        // (variável não declarada ou tipo desconhecido: o erro já foi registrado)
+        if (entry != null && exprType != null && entry.type != exprType) {
+            error("Erro de Contexto: Tipos incompativeis para atribuicao na linha " + node.variable.line + ". Esperado " +
+                    entry.type + " mas encontrou " + exprType, node.variable.line);
+        }
+    }
 
+    private TokenType checkBinaryOp(BinaryOpNode node, TokenType leftType, TokenType rightType) {
+        // Operando de tipo desconhecido: o erro já foi registrado, e o
+        // resultado tem o tipo do operador
+        boolean unknown = leftType == null || rightType == null;
+        int line = occurrenceLine(node, node.operator.line);
         switch (node.operator.type) {
             case PLUS:
             case MINUS:
             case TIMES:
             case DIV:
                 // REGRA DE TIPOS: Operadores aritméticos exigem operandos do tipo INTEGER
-                if (leftType != TokenType.INTEGER || rightType != TokenType.INTEGER) {
-                    throw new Error("Erro de Contexto: Operador '" + node.operator.lexeme + "' exige operandos do tipo INTEGER (linha " + node.operator.line + ").");
+                if (!unknown && (leftType != TokenType.INTEGER || rightType != TokenType.INTEGER)) {
+                    error("Erro de Contexto: Operador '" + node.operator.lexeme + "' exige operandos do tipo INTEGER (linha " + line + ").",
+                            line);
                 }
                 return TokenType.INTEGER; // O resultado de uma operação aritmética é INTEGER
 
             case AND:
             case OR:
                 // REGRA DE TIPOS: Operadores lógicos exigem operandos do tipo BOOLEAN
-                if (leftType != TokenType.BOOLEAN || rightType != TokenType.BOOLEAN) {
-                    throw new Error("Erro de Contexto: Operador '" + node.operator.lexeme + "' exige operandos do tipo BOOLEAN (linha " + node.operator.line + ").");
+                if (!unknown && (leftType != TokenType.BOOLEAN || rightType != TokenType.BOOLEAN)) {
+                    error("Erro de Contexto: Operador '" + node.operator.lexeme + "' exige operandos do tipo BOOLEAN (linha " + line + ").",
+                            line);
                 }
                 return TokenType.BOOLEAN; // O resultado de uma operação lógica é BOOLEAN
 
@@ -130,32 +469,25 @@ public class CheckerVisitor implements Visitor<TokenType> {
             case GT:
             case EQ:
                 // REGRA DE TIPOS: Operadores relacionais exigem operandos do mesmo tipo
-                if (leftType != rightType) {
-                    throw new Error("Erro de Contexto: Operador '" + node.operator.lexeme + "' exige operandos de tipos compativeis (linha " + node.operator.line + ").");
+                if (!unknown && leftType != rightType) {
+                    error("Erro de Contexto: Operador '" + node.operator.lexeme + "' exige operandos de tipos compativeis (linha " + line + ").",
+                            line);
                 }
                 return TokenType.BOOLEAN; // O resultado de uma operação relacional é sempre BOOLEAN
         }
         return null;
     }
 
-    @Override
-    public TokenType visitIntLitNode(IntLitNode node) {
-        return TokenType.INTEGER;
-    }
-
-    @Override
-    public TokenType visitBooleanLitNode(BooleanLitNode node) {
-        return TokenType.BOOLEAN;
-    }
-
-    @Override
-    public TokenType visitVariableUseNode(VariableUseNode node) {
+    TokenType checkVariableUse(VariableUseNode node) {
         // REGRA DE IDENTIFICAÇÃO: Verifica se a variável foi declarada antes de ser usada
         IdEntry entry = symbolTable.find(node.identifier.lexeme);
         if (entry == null) {
-            throw new Error("Erro de Contexto: Variavel '" + node.identifier.lexeme + "' nao declarada (linha " + node.identifier.line + ").");
+            int line = occurrenceLine(node, node.identifier.line);
+            error("Erro de Contexto: Variavel '" + node.identifier.lexeme + "' nao declarada (linha " + line + ").",
+                    line);
+            return null; // Tipo desconhecido
         }
         // Retorna o tipo da variável que foi encontrado na Tabela de Símbolos
         return entry.type;
     }
-}
\ No newline at end of file
+}
@@ -4,17 +4,25 @@ import compilador.ast.*;
 import compilador.codegen.LabelGenerator;
 import compilador.lexer.TokenType;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
 import java.util.List;
 
 /**
  * Visitor para percorrer a AST e gerar o código de máquina para a TAM.
  * Constrói uma lista de instruções em formato de string.
+ *
+ * O percurso é recursivo até {@link AstWalker#RECURSION_LIMIT} níveis e, a
+ * partir daí, continua com a pilha explícita do {@link AstWalker}, então a
+ * profundidade de aninhamento do programa não é limitada pela pilha da JVM.
+ * O despacho é um switch em {@link ASTNode#kind}, sem chamadas accept/visit.
  */
 public class CodeGenVisitor implements Visitor<Void> {
 
-    private final List<String> objectCode;
+    private List<String> objectCode;
     private final LabelGenerator labelGenerator;
+    private final Deque<String[]> labels = new ArrayDeque<>();
 
     public CodeGenVisitor() {
         this.objectCode = new ArrayList<>();
@@ -29,22 +37,40 @@ public class CodeGenVisitor implements Visitor<Void> {
         return this.objectCode;
     }
 
-    private void emit(String instruction) {
+    /**
+     * @return Quantos rótulos foram usados até agora (L0 a L(n-1)).
+     */
+    public int getLabelCount() {
+        return labelGenerator.getCount();
+    }
+
+    /**
+     * Prepara o visitor para gerar outro programa. A lista devolvida por
+     * {@link #getObjectCode()} até aqui não é alterada: a próxima geração
+     * usa uma lista nova, já dimensionada pelo tamanho da anterior.
+     */
+    public void reset() {
+        objectCode = new ArrayList<>(Math.max(16, objectCode.size()));
+        labelGenerator.reset();
+        labels.clear();
+    }
+
+    // Visíveis no pacote para uso do CheckAndGenVisitor
+    void emit(String instruction) {
         objectCode.add(instruction);
     }
 
+    String newLabel() {
+        return labelGenerator.newLabel();
+    }
+
     // --- MÉTODOS DE VISITA ---
+    // Mantidos por compatibilidade com a API Visitor: cada visita apenas
+    // dispara o laço de geração a partir do nó.
 
     @Override
     public Void visitProgramaNode(ProgramaNode node) {
-        // Visita as declarações primeiro (no futuro, para alocar memória)
-        for (ASTNode decl : node.declaracoes) {
-            decl.accept(this);
-        }
-        // Visita o corpo principal do programa
-        node.comandoComposto.accept(this);
-        // Adiciona a instrução final para parar a máquina
-        emit("HALT");
+        generate(node);
         return null;
     }
 
@@ -58,110 +84,275 @@ public class CodeGenVisitor implements Visitor<Void> {
 
     @Override
     public Void visitBeginEndNode(BeginEndNode node) {
-        for (ASTNode cmd : node.commands) {
-            cmd.accept(this);
-        }
+        generate(node);
         return null;
     }
 
     @Override
     public Void visitAssignNode(AssignNode node) {
-        // 1. Gera código para a expressão à direita. O resultado ficará no topo da pilha.
-        node.expression.accept(this);
-        // 2. Gera a instrução para armazenar o valor do topo da pilha na variável.
-        // Conforme a especificação, as variáveis são referenciadas por nome.
-        emit("STORE " + node.variable.lexeme);
+        generate(node);
         return null;
     }
 
     @Override
     public Void visitIfNode(IfNode node) {
-        String elseLabel = labelGenerator.newLabel();
-        String endIfLabel = labelGenerator.newLabel();
-
-        // 1. Gera código para a condição. O resultado (0 ou 1) ficará na pilha.
-        node.condition.accept(this);
-        // 2. Se a condição for falsa (0), pula para o rótulo do "else".
-        emit("JUMPIF(0) " + elseLabel);
-
-        // 3. Gera código para o bloco "then".
-        node.thenBranch.accept(this);
-        // 4. Pula incondicionalmente para o fim do "if" para não executar o "else".
-        emit("JUMP " + endIfLabel);
-
-        // 5. Emite o rótulo do "else".
-        emit(elseLabel + ":");
-        if (node.elseBranch != null) {
-            node.elseBranch.accept(this);
-        }
-
-        // 6. Emite o rótulo de fim do "if".
-        emit(endIfLabel + ":");
+        generate(node);
         return null;
     }
 
     @Override
     public Void visitWhileNode(WhileNode node) {
-        String startLabel = labelGenerator.newLabel();
-        String endLabel = labelGenerator.newLabel();
-
-        // 1. Emite o rótulo do início do laço.
-        emit(startLabel + ":");
-        // 2. Gera código para a condição.
-        node.condition.accept(this);
-        // 3. Se a condição for falsa (0), pula para o fim do laço.
-        emit("JUMPIF(0) " + endLabel);
-        // 4. Gera código para o corpo do laço.
-        node.body.accept(this);
-        // 5. Pula de volta para o início para reavaliar a condição.
-        emit("JUMP " + startLabel);
-        // 6. Emite o rótulo de fim do laço.
-        emit(endLabel + ":");
+        generate(node);
         return null;
     }
 
     @Override
     public Void visitBinaryOpNode(BinaryOpNode node) {
-        // 1. Gera código para o operando esquerdo.
-        node.left.accept(this);
-        // 2. Gera código para o operando direito.
-        node.right.accept(this);
-        // 3. Emite a instrução da operação, que consumirá os dois valores do topo
-        //    da pilha e empilhará o resultado.
-        switch (node.operator.type) {
-            case PLUS: emit("ADD"); break;
-            case MINUS: emit("SUB"); break;
-            case TIMES: emit("MULT"); break;
-            case DIV: emit("DIV"); break;
-            case AND: emit("AND"); break;
-            case OR: emit("OR"); break;
-            case EQ: emit("EQ"); break;
-            case LT: emit("LT"); break;
-            case GT: emit("GT"); break;
-        }
+        generate(node);
         return null;
     }
 
     @Override
     public Void visitVariableUseNode(VariableUseNode node) {
-        emit("LOAD " + node.identifier.lexeme);
+        generate(node);
         return null;
     }
 
     @Override
     public Void visitIntLitNode(IntLitNode node) {
-        emit("LOADL " + node.value.lexeme);
+        generate(node);
         return null;
     }
 
     @Override
     public Void visitBooleanLitNode(BooleanLitNode node) {
-        // Representamos 'true' como 1 e 'false' como 0 na TAM
-        if (node.value.type == TokenType.TRUE) {
-            emit("LOADL 1");
-        } else {
-            emit("LOADL 0");
-        }
+        generate(node);
         return null;
     }
-}
\ No newline at end of file
+
+    // --- GERAÇÃO ---
+
+    /**
+     * Gera o código da subárvore, despachando cada nó por switch no seu tipo.
+     */
+    public void generate(ASTNode root) {
+        visit(root, 0);
+    }
+
+    /**
+     * Percorre por recursão até {@link AstWalker#RECURSION_LIMIT}; abaixo
+     * disso, continua com a pilha explícita do AstWalker ({@link #walk}),
+     * que emite exatamente as mesmas instruções.
+     */
+    private void visit(ASTNode node, int depth) {
+        if (depth == AstWalker.RECURSION_LIMIT) {
+            walk(node);
+            return;
+        }
+        int next = depth + 1;
+        switch (node.kind) {
+            case BINARY_OP: {
+                BinaryOpNode op = (BinaryOpNode) node;
+                // Os dois operandos ficam no topo da pilha e a operação os consome
+                visit(op.left, next);
+                visit(op.right, next);
+                emitOperator(op.operator.type);
+                break;
+            }
+            case VARIABLE_USE:
+            case INT_LIT:
+            case BOOLEAN_LIT:
+                emitLoad(node);
+                break;
+            case ASSIGN: {
+                AssignNode assign = (AssignNode) node;
+                // A expressão fica no topo da pilha; as variáveis são referenciadas por nome
+                visit(assign.expression, next);
+                emit("STORE " + assign.variable.lexeme);
+                break;
+            }
+            case IF: {
+                IfNode ifNode = (IfNode) node;
+                String elseLabel = labelGenerator.newLabel();
+                String endIfLabel = labelGenerator.newLabel();
+                // Se a condição for falsa (0), pula para o "else"
+                visit(ifNode.condition, next);
+                emit("JUMPIF(0) " + elseLabel);
+                // Depois do "then", pula o "else"
+                visit(ifNode.thenBranch, next);
+                emit("JUMP " + endIfLabel);
+                emit(elseLabel + ":");
+                if (ifNode.elseBranch != null) {
+                    visit(ifNode.elseBranch, next);
+                }
+                emit(endIfLabel + ":");
+                break;
+            }
+            case WHILE: {
+                WhileNode loop = (WhileNode) node;
+                String startLabel = labelGenerator.newLabel();
+                String endLabel = labelGenerator.newLabel();
+                // Reavalia a condição a cada volta; se for falsa (0), sai do laço
+                emit(startLabel + ":");
+                visit(loop.condition, next);
+                emit("JUMPIF(0) " + endLabel);
+                visit(loop.body, next);
+                emit("JUMP " + startLabel);
+                emit(endLabel + ":");
+                break;
+            }
+            case BEGIN_END:
+                for (ASTNode cmd : ((BeginEndNode) node).commands) {
+                    visit(cmd, next);
+                }
+                break;
+            case PROGRAMA: {
+                ProgramaNode program = (ProgramaNode) node;
+                // As declarações não geram código nesta versão
+                visit(program.comandoComposto, next);
+                // Instrução final para parar a máquina
+                emit("HALT");
+                break;
+            }
+            case REF:
+                visit(((NodeRef) node).resolve(), depth);
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * Versão iterativa de {@link #visit}. Os rótulos de cada IF/WHILE são
+     * criados ao entrar no nó e ficam numa pilha até a saída.
+     */
+    void walk(ASTNode root) {
+        AstWalker walker = new AstWalker(root);
+        for (int event = walker.next(); event != AstWalker.DONE; event = walker.next()) {
+            switch (event) {
+                case AstWalker.ENTER:
+                    enter(walker.node());
+                    break;
+                case AstWalker.BEFORE_CHILD:
+                    beforeChild(walker.node(), walker.childIndex());
+                    break;
+                default:
+                    exit(walker.node());
+                    break;
+            }
+        }
+    }
+
+    private void enter(ASTNode node) {
+        switch (node.kind) {
+            case IF: {
+                String elseLabel = labelGenerator.newLabel();
+                String endIfLabel = labelGenerator.newLabel();
+                labels.push(new String[] { elseLabel, endIfLabel });
+                break;
+            }
+            case WHILE: {
+                String startLabel = labelGenerator.newLabel();
+                String endLabel = labelGenerator.newLabel();
+                labels.push(new String[] { startLabel, endLabel });
+                // Rótulo do início do laço, antes da condição
+                emit(startLabel + ":");
+                break;
+            }
+            default:
+                break;
+        }
+    }
+
+    private void beforeChild(ASTNode node, int index) {
+        switch (node.kind) {
+            case IF:
+                if (index == 1) {
+                    // Depois da condição: se for falsa (0), pula para o "else"
+                    emit("JUMPIF(0) " + labels.peek()[0]);
+                } else if (index == 2) {
+                    // Depois do "then": pula o "else" e emite o seu rótulo
+                    String[] ifLabels = labels.peek();
+                    emit("JUMP " + ifLabels[1]);
+                    emit(ifLabels[0] + ":");
+                }
+                break;
+            case WHILE:
+                if (index == 1) {
+                    // Depois da condição: se for falsa (0), pula para o fim do laço
+                    emit("JUMPIF(0) " + labels.peek()[1]);
+                }
+                break;
+            default:
+                break;
+        }
+    }
+
+    private void exit(ASTNode node) {
+        switch (node.kind) {
+            case BINARY_OP:
+                emitOperator(((BinaryOpNode) node).operator.type);
+                break;
+            case VARIABLE_USE:
+            case INT_LIT:
+            case BOOLEAN_LIT:
+                emitLoad(node);
+                break;
+            case ASSIGN:
+                emit("STORE " + ((AssignNode) node).variable.lexeme);
+                break;
+            case IF: {
+                String[] ifLabels = labels.pop();
+                if (((IfNode) node).elseBranch == null) {
+                    emit("JUMP " + ifLabels[1]);
+                    emit(ifLabels[0] + ":");
+                }
+                emit(ifLabels[1] + ":");
+                break;
+            }
+            case WHILE: {
+                String[] whileLabels = labels.pop();
+                // Volta para reavaliar a condição e emite o rótulo de fim do laço
+                emit("JUMP " + whileLabels[0]);
+                emit(whileLabels[1] + ":");
+                break;
+            }
+            case PROGRAMA:
+                // Instrução final para parar a máquina
+                emit("HALT");
+                break;
+            default:
+                break;
+        }
+    }
+
+    void emitLoad(ASTNode node) {
+        switch (node.kind) {
+            case VARIABLE_USE:
+                emit("LOAD " + ((VariableUseNode) node).identifier.lexeme);
+                break;
+            case INT_LIT:
+                emit("LOADL " + ((IntLitNode) node).value.lexeme);
+                break;
+            default:
+                // Representamos 'true' como 1 e 'false' como 0 na TAM
+                emit(((BooleanLitNode) node).value.type == TokenType.TRUE ? "LOADL 1" : "LOADL 0");
+                break;
+        }
+    }
+
+    void emitOperator(TokenType operator) {
+        switch (operator) {
+            case PLUS: emit("ADD"); break;
+            case MINUS: emit("SUB"); break;
+            case TIMES: emit("MULT"); break;
+            case DIV: emit("DIV"); break;
+            case AND: emit("AND"); break;
+            case OR: emit("OR"); break;
+            case EQ: emit("EQ"); break;
+            case LT: emit("LT"); break;
+            case GT: emit("GT"); break;
+            default: break;
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package compilador.visitor;
+
+import compilador.ast.ASTNode;
+
+/**
+ * Recebe os eventos de um percurso da AST feito pelo {@link AstWalker}.
+ *
+ * Os filhos de cada nó são visitados na ordem:
+ *   ProgramaNode: declarações..., comando composto
+ *   BeginEndNode: comandos...
+ *   AssignNode:   expressão
+ *   IfNode:       condição, então, senão (se houver)
+ *   WhileNode:    condição, corpo
+ *   BinaryOpNode: esquerda, direita
+ */
+public interface WalkListener {
+
+    /**
+     * Chamado antes de visitar os filhos do nó.
+     * @return false para não visitar os filhos; nesse caso exit não é chamado.
+     */
+    boolean enter(ASTNode node);
+
+    /**
+     * Chamado imediatamente antes de visitar o filho de posição {@code index}.
+     */
+    void beforeChild(ASTNode node, int index);
+
+    /**
+     * Chamado depois de visitar todos os filhos do nó.
+     */
+    void exit(ASTNode node);
+}